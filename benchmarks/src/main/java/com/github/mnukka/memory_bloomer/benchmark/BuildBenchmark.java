@@ -0,0 +1,55 @@
+package com.github.mnukka.memory_bloomer.benchmark;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build benchmark.
+ *
+ * Time to build a cache from the whole dataset, sequentially and on the common fork join pool.
+ *
+ * @author Miko Nukka
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BuildBenchmark {
+
+    @Param({"wordlist", "synthetic-1000000", "synthetic-10000000"})
+    public String dataset;
+
+    @Param
+    public Structure structure;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private List<String> keys;
+
+    @Setup
+    public void setUp() {
+        keys = KeySets.load(dataset).present();
+    }
+
+    @Benchmark
+    public IMemoryCache<String> createCache() {
+        return structure.build(keys, parallel ? ForkJoinPool.commonPool() : null);
+    }
+}
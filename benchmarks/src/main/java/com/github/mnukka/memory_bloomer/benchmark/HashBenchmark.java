@@ -0,0 +1,67 @@
+package com.github.mnukka.memory_bloomer.benchmark;
+
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
+import com.github.mnukka.memory_bloomer.domain.hash.SpookyHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash benchmark.
+ *
+ * Cost of a single call of each built-in hash function for keys of different length.
+ *
+ * @author Miko Nukka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+    private static final int RANGE = 1 << 30;
+
+    @Param({"8", "32", "256"})
+    public int keyLength;
+
+    private final MurmurHash murmurHash = new MurmurHash();
+    private final SpookyHash spookyHash = new SpookyHash();
+    private final Murmur3Hash128 murmur3Hash128 = new Murmur3Hash128();
+    private final long[] hash128 = new long[2];
+    private byte[] key;
+
+    @Setup
+    public void setUp() {
+        key = new byte[keyLength];
+        new Random(1).nextBytes(key);
+    }
+
+    @Benchmark
+    public int murmurHash32() {
+        return murmurHash.hash32(key, 0, key.length, RANGE);
+    }
+
+    @Benchmark
+    public int spookyHash32() {
+        return spookyHash.hash32(key, 0, key.length, RANGE);
+    }
+
+    @Benchmark
+    public long[] murmur3Hash128() {
+        murmur3Hash128.hash128(key, 0, key.length, hash128);
+        return hash128;
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.mnukka.memory_bloomer.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Key sets.
+ *
+ * Datasets benchmarks run on. <i>wordlist</i> is the word list the tests sample from,
+ * <i>synthetic-N</i> is N random alphanumeric strings of 8 to 24 characters generated from a fixed seed.
+ * Absent keys are never part of the set, they are used for lookups that should miss and for measuring false positives.
+ *
+ * @author Miko Nukka
+ */
+public final class KeySets {
+    private static final String WORDLIST = "wordlist";
+    private static final String SYNTHETIC = "synthetic-";
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    private final List<String> present;
+    private final List<String> absent;
+
+    private KeySets(List<String> present, List<String> absent) {
+        this.present = present;
+        this.absent = absent;
+    }
+
+    /**
+     * Load dataset by name.
+     *
+     * @param dataset <i>wordlist</i> or <i>synthetic-N</i>
+     * @return the key sets
+     */
+    public static KeySets load(String dataset) {
+        if (WORDLIST.equals(dataset)) {
+            final List<String> words = readWordList();
+            // Words never contain a space, so appending one can not produce another word from the list
+            return new KeySets(words, words.stream().map(word -> word + ' ').collect(Collectors.toList()));
+        }
+        if (dataset.startsWith(SYNTHETIC)) {
+            final int size = Integer.parseInt(dataset.substring(SYNTHETIC.length()));
+            // Lengths differ between the two halves, so no absent key can equal a present one
+            return new KeySets(randomStrings(size, 8, 16, 1), randomStrings(size, 17, 24, 2));
+        }
+        throw new IllegalArgumentException("Unknown dataset " + dataset);
+    }
+
+    public List<String> present() {
+        return present;
+    }
+
+    public List<String> absent() {
+        return absent;
+    }
+
+    /**
+     * Present and absent keys in random order, half of each.
+     *
+     * @param count number of keys
+     * @return the mixed keys
+     */
+    public List<String> mixed(int count) {
+        final Random random = new Random(3);
+        final List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final List<String> source = i % 2 == 0 ? present : absent;
+            keys.add(source.get(random.nextInt(source.size())));
+        }
+        Collections.shuffle(keys, random);
+        return keys;
+    }
+
+    private static List<String> readWordList() {
+        try (InputStream stream = KeySets.class.getResourceAsStream("/wordlist.txt")) {
+            if (stream == null) {
+                throw new IllegalStateException("wordlist.txt is not on the classpath");
+            }
+            return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)).lines()
+                    .filter(line -> !line.isEmpty())
+                    .distinct()
+                    .collect(Collectors.toList());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static List<String> randomStrings(int count, int minLength, int maxLength, long seed) {
+        final Random random = new Random(seed);
+        final List<String> keys = new ArrayList<>(count);
+        final char[] chars = new char[maxLength];
+        for (int i = 0; i < count; i++) {
+            final int length = minLength + random.nextInt(maxLength - minLength + 1);
+            for (int c = 0; c < length; c++) {
+                chars[c] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            keys.add(new String(chars, 0, length));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.mnukka.memory_bloomer.benchmark;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup benchmark.
+ *
+ * Lookups of half present, half absent keys, one by one and {@value #BATCH_SIZE} at a time.
+ * Both report operations per key, run with <i>-prof gc</i> to see allocation per lookup.
+ *
+ * @author Miko Nukka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LookupBenchmark {
+    private static final int BATCH_SIZE = 256;
+    private static final int QUERY_COUNT = 1 << 16;
+
+    @Param({"wordlist", "synthetic-10000000"})
+    public String dataset;
+
+    @Param
+    public Structure structure;
+
+    private IMemoryCache<String> cache;
+    private List<String> queries;
+    private final boolean[] result = new boolean[BATCH_SIZE];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final KeySets keySets = KeySets.load(dataset);
+        cache = structure.build(keySets.present(), null);
+        queries = keySets.mixed(QUERY_COUNT);
+    }
+
+    @Benchmark
+    public boolean isKeyPresent() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return cache.isKeyPresent(queries.get(next));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean[] isKeysPresent() {
+        next = (next + BATCH_SIZE) & (QUERY_COUNT - 1);
+        cache.isKeysPresent(queries.subList(next, next + BATCH_SIZE), result);
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.mnukka.memory_bloomer.benchmark;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomFilter64;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.LongBloomFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Primitive lookup benchmark.
+ *
+ * Lookups of random numeric ids, half of them present, in {@link LongBloomFilter} and in {@link BloomFilter64} of boxed longs.
+ * Reports nanoseconds per lookup, run with <i>-prof gc</i> to see the boxed lookups allocate and the primitive ones do not.
+ * The batch case checks {@value #BATCH} keys per call and reports the time per call, compare it with
+ * <i>-jvmArgsAppend --add-modules=jdk.incubator.vector</i> and <i>-jvmArgsAppend -Dmemory_bloomer.hash.scalar=true</i>
+ * to see what hashing with the Vector API is worth.
+ *
+ * @author Miko Nukka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrimitiveLookupBenchmark {
+    private static final int QUERY_COUNT = 1 << 16;
+    private static final int BATCH = 32;
+
+    @Param({"10000", "10000000"})
+    public int size;
+
+    private LongBloomFilter primitive;
+    private BloomFilter64<Long> boxed;
+    private long[] queries;
+    private long[] batch;
+    private final boolean[] result = new boolean[BATCH];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final long[] keys = new SplittableRandom(1).longs(size).toArray();
+        primitive = new LongBloomFilter().createCache(keys);
+        boxed = new BloomFilter64<>();
+        final List<Long> boxedKeys = LongStream.of(keys).boxed().collect(Collectors.toList());
+        boxed.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), boxedKeys);
+
+        final SplittableRandom random = new SplittableRandom(2);
+        queries = new long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = (i & 1) == 0 ? keys[random.nextInt(size)] : random.nextLong();
+        }
+        batch = Arrays.copyOf(queries, BATCH);
+    }
+
+    @Benchmark
+    public boolean primitive() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return primitive.isKeyPresent(queries[next]);
+    }
+
+    @Benchmark
+    public boolean[] primitiveBatch() {
+        next = (next + BATCH) & (QUERY_COUNT - 1);
+        System.arraycopy(queries, next, batch, 0, BATCH);
+        primitive.isKeysPresent(batch, result);
+        return result;
+    }
+
+    @Benchmark
+    public boolean boxed() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return boxed.isKeyPresent(queries[next]);
+    }
+}
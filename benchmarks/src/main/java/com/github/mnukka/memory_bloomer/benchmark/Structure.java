@@ -0,0 +1,89 @@
+package com.github.mnukka.memory_bloomer.benchmark;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.CacheBuilder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
+import com.github.mnukka.memory_bloomer.domain.hash.SpookyHash;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BlockedBloomFilter;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomFilter32;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomFilter64;
+import com.github.mnukka.memory_bloomer.domain.structure.cuckoo.CuckooFilter;
+import com.github.mnukka.memory_bloomer.domain.structure.fuse.BinaryFuseFilter;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Structure.
+ *
+ * Data structures under benchmark, each built with the hash functions it is meant to be used with.
+ *
+ * @author Miko Nukka
+ */
+public enum Structure {
+    BLOOM_32_LEGACY {
+        @Override
+        CacheBuilder builder(int size) {
+            return new CacheBuilder()
+                    .addHashFunction(new MurmurHash())
+                    .addHashFunction(new SpookyHash())
+                    .addDataStructure(new BloomFilter32<String>());
+        }
+    },
+    BLOOM_32 {
+        @Override
+        CacheBuilder builder(int size) {
+            return withMurmur3(new BloomFilter32<String>());
+        }
+    },
+    BLOOM_64 {
+        @Override
+        CacheBuilder builder(int size) {
+            return withMurmur3(new BloomFilter64<String>());
+        }
+    },
+    BLOCKED_BLOOM {
+        @Override
+        CacheBuilder builder(int size) {
+            return withMurmur3(new BlockedBloomFilter<String>());
+        }
+    },
+    BINARY_FUSE {
+        @Override
+        CacheBuilder builder(int size) {
+            return withMurmur3(new BinaryFuseFilter<String>());
+        }
+    },
+    CUCKOO {
+        @Override
+        CacheBuilder builder(int size) {
+            return withMurmur3(new CuckooFilter<String>(size));
+        }
+    };
+
+    abstract CacheBuilder builder(int size);
+
+    /**
+     * Build cache from keys.
+     *
+     * @param keys the keys
+     * @param pool pool to build on, null builds on the calling thread
+     * @return the cache
+     */
+    @SuppressWarnings("unchecked")
+    public IMemoryCache<String> build(List<String> keys, ForkJoinPool pool) {
+        final CacheBuilder builder = builder(keys.size());
+        if (pool != null) {
+            builder.addForkJoinPool(pool);
+        }
+        return builder.buildCache(keys);
+    }
+
+    private static CacheBuilder withMurmur3(IDataStructure<String> dataStructure) {
+        return new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(dataStructure);
+    }
+}
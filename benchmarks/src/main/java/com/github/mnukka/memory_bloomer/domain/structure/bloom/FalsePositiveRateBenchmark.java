@@ -0,0 +1,113 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.benchmark.KeySets;
+import com.github.mnukka.memory_bloomer.benchmark.Structure;
+import com.github.mnukka.memory_bloomer.domain.structure.cuckoo.CuckooFilter;
+import com.github.mnukka.memory_bloomer.domain.structure.fuse.BinaryFuseFilter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * False positive rate benchmark.
+ *
+ * Looks up every absent key of the dataset and compares the measured collision probability
+ * with the one {@link BloomMath} predicts for the built filter. Both are reported as secondary results,
+ * <i>measuredCollisionProbability</i> and <i>expectedCollisionProbability</i>, next to <i>falsePositives</i> and <i>absentLookups</i>.
+ * Lives in the bloom package to reach {@link BloomMath}.
+ *
+ * @author Miko Nukka
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FalsePositiveRateBenchmark {
+
+    @Param({"wordlist", "synthetic-1000000", "synthetic-10000000"})
+    public String dataset;
+
+    @Param
+    public Structure structure;
+
+    private IMemoryCache<String> cache;
+    private List<String> absent;
+    private long presentCount;
+    private double expectedCollisionProbability;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long falsePositives;
+        public long absentLookups;
+        public double measuredCollisionProbability;
+        public double expectedCollisionProbability;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            falsePositives = 0;
+            absentLookups = 0;
+            measuredCollisionProbability = 0;
+            expectedCollisionProbability = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final KeySets keySets = KeySets.load(dataset);
+        cache = structure.build(keySets.present(), null);
+        absent = keySets.absent();
+        presentCount = keySets.present().size();
+        expectedCollisionProbability = expectedCollisionProbability();
+    }
+
+    @Benchmark
+    public void lookUpAbsentKeys(Counters counters) {
+        long count = 0;
+        for (String key : absent) {
+            if (cache.isKeyPresent(key)) {
+                count++;
+            }
+        }
+        counters.falsePositives += count;
+        counters.absentLookups += absent.size();
+        counters.measuredCollisionProbability = counters.falsePositives / (double) counters.absentLookups;
+        counters.expectedCollisionProbability = expectedCollisionProbability;
+    }
+
+    private double expectedCollisionProbability() {
+        if (cache instanceof BloomFilter32) {
+            final BloomProperties properties = ((BloomFilter32<?>) cache).getProperties();
+            return BloomMath.findCollisionProbability(properties.getHashFunctionCount(), presentCount, properties.getBitmapSize());
+        }
+        if (cache instanceof BloomFilter64) {
+            final BloomProperties properties = ((BloomFilter64<?>) cache).getProperties();
+            return BloomMath.findCollisionProbability(properties.getHashFunctionCount(), presentCount, properties.getBitmapSize());
+        }
+        if (cache instanceof BlockedBloomFilter) {
+            final BloomProperties properties = ((BlockedBloomFilter<?>) cache).getProperties();
+            return BloomMath.findBlockedCollisionProbability(properties.getHashFunctionCount(), presentCount,
+                    properties.getBitmapSize(), BlockedBloomFilter.BLOCK_BITS);
+        }
+        if (cache instanceof BinaryFuseFilter) {
+            return ((BinaryFuseFilter<?>) cache).getProperties().getCollisionProbability();
+        }
+        return ((CuckooFilter<?>) cache).getProperties().getCollisionProbability();
+    }
+}
@@ -1,5 +1,47 @@
 package com.github.mnukka.memory_bloomer.api;
 
+import java.util.List;
+
 public interface IMemoryCache<T> {
     boolean isKeyPresent(T key);
+
+    /**
+     * Check many keys at once.
+     *
+     * @param keys the keys
+     * @return result of {@link #isKeyPresent(Object)} for each key, in the order of <i>keys</i>
+     * @see #isKeysPresent(List, boolean[])
+     */
+    default boolean[] isKeysPresent(List<? extends T> keys) {
+        if (keys == null) {
+            throw new NullPointerException("isKeysPresent does not expect null as an argument");
+        }
+        final boolean[] result = new boolean[keys.size()];
+        isKeysPresent(keys, result);
+        return result;
+    }
+
+    /**
+     * Check many keys at once, writing results into caller supplied array.
+     *
+     * Implementations hash a batch of keys before touching their memory,
+     * which makes this considerably faster than calling {@link #isKeyPresent(Object)} in a loop.
+     *
+     * @param keys   the keys
+     * @param result array receiving result of {@link #isKeyPresent(Object)} for each key at the index of the key
+     * @throws NullPointerException if <i>keys</i>, <i>result</i> or any of the keys is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    default void isKeysPresent(List<? extends T> keys, boolean[] result) {
+        if (keys == null || result == null) {
+            throw new NullPointerException("isKeysPresent does not expect null as an argument");
+        }
+        if (result.length < keys.size()) {
+            throw new IllegalArgumentException("Result array must hold at least " + keys.size() + " items");
+        }
+        int index = 0;
+        for (T key : keys) {
+            result[index++] = isKeyPresent(key);
+        }
+    }
 }
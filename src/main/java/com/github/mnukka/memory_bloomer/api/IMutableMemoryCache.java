@@ -0,0 +1,32 @@
+package com.github.mnukka.memory_bloomer.api;
+
+/**
+ * The interface Mutable memory cache.
+ *
+ * Memory cache which accepts new keys after it has been built.
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public interface IMutableMemoryCache<T> extends IMemoryCache<T> {
+
+    /**
+     * Add key to the cache.
+     *
+     * @param key the key
+     * @return true if cache changed
+     */
+    boolean add(T key);
+
+    /**
+     * Add keys to the cache.
+     *
+     * @param keys the keys
+     */
+    default void addAll(Iterable<? extends T> keys) {
+        for (T key : keys) {
+            add(key);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.mnukka.memory_bloomer.api;
+
+/**
+ * The interface Removable memory cache.
+ *
+ * Memory cache which can forget keys, so revoked or expired keys do not force a rebuild.
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public interface IRemovableMemoryCache<T> extends IMutableMemoryCache<T> {
+
+    /**
+     * Remove key from the cache.
+     *
+     * @param key the key
+     * @return true if the key was found and removed
+     */
+    boolean remove(T key);
+}
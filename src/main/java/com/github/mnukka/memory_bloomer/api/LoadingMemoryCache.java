@@ -0,0 +1,255 @@
+package com.github.mnukka.memory_bloomer.api;
+
+import com.github.mnukka.memory_bloomer.domain.cache.WindowTinyLfuPolicy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Loading memory cache.
+ * <p>
+ * Read-through cache in front of a slow key-value source, guarded by a filter built from the keys of that source.
+ * A key the filter does not know is a definite miss and is answered without calling the loader,
+ * which keeps lookups of unknown keys away from the source.
+ * </p>
+ *
+ * <p>Loaded values are kept in a concurrent map bounded by size or by total weight.
+ * Eviction follows {@link WindowTinyLfuPolicy}, so keys looked up once do not push out keys which are hot.
+ * Concurrent misses on the same key share one load, the other callers wait for its result.</p>
+ *
+ * <p>Reads record their access only when the eviction lock is free. Under contention some accesses are lost,
+ * which slightly blurs the recency order but keeps hits from queuing on the lock.</p>
+ *
+ * @param <K> the type parameter for keys
+ * @param <V> the type parameter for values
+ *
+ * @author Miko Nukka
+ */
+public final class LoadingMemoryCache<K, V> implements IMemoryCache<K> {
+    private final IMemoryCache<K> filter;
+    private final Function<? super K, ? extends V> loader;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final ConcurrentHashMap<K, V> values = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    private final WindowTinyLfuPolicy<K> policy;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cache holding at most <i>maximumSize</i> values.
+     *
+     * @param filter      filter containing every key the loader can load
+     * @param loader      loads value of the key, null when there is none
+     * @param maximumSize maximum number of values kept
+     */
+    public LoadingMemoryCache(IMemoryCache<K> filter, Function<? super K, ? extends V> loader, long maximumSize) {
+        this(filter, loader, maximumSize, (key, value) -> 1);
+    }
+
+    /**
+     * Cache holding values up to <i>maximumWeight</i> in total.
+     *
+     * @param filter        filter containing every key the loader can load
+     * @param loader        loads value of the key, null when there is none
+     * @param maximumWeight maximum total weight of kept values
+     * @param weigher       weight of a value, must not be negative
+     * @throws IllegalArgumentException if <i>maximumWeight</i> is not positive
+     */
+    public LoadingMemoryCache(IMemoryCache<K> filter, Function<? super K, ? extends V> loader,
+                              long maximumWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        if (filter == null || loader == null || weigher == null) {
+            throw new NullPointerException("LoadingMemoryCache must be provided with non-null arguments as parameters");
+        }
+        this.filter = filter;
+        this.loader = loader;
+        this.weigher = weigher;
+        this.policy = new WindowTinyLfuPolicy<>(maximumWeight);
+    }
+
+    /**
+     * Get value of the key, loading it when it is not cached.
+     *
+     * @param key the key
+     * @return the value or null if the filter rules the key out or the loader has no value for it
+     * @throws NullPointerException if <i>key</i> is not defined
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new NullPointerException("get does not expect null as an argument");
+        }
+        if (!filter.isKeyPresent(key)) {
+            filtered.increment();
+            return null;
+        }
+        final V value = values.get(key);
+        if (value != null) {
+            hits.increment();
+            recordAccess(key);
+            return value;
+        }
+        misses.increment();
+        return load(key);
+    }
+
+    /**
+     * Get cached value of the key without loading it.
+     *
+     * @param key the key
+     * @return the value or null if it is not cached
+     */
+    public V getIfPresent(K key) {
+        final V value = values.get(key);
+        if (value != null) {
+            recordAccess(key);
+        }
+        return value;
+    }
+
+    /**
+     * Drop cached value of the key, next {@link #get(Object)} loads it again.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            values.remove(key);
+            policy.onRemove(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Key is possibly loadable, answered by the filter alone.
+     */
+    @Override
+    public boolean isKeyPresent(K key) {
+        return filter.isKeyPresent(key);
+    }
+
+    @Override
+    public void isKeysPresent(List<? extends K> keys, boolean[] result) {
+        filter.isKeysPresent(keys, result);
+    }
+
+    public long getSize() {
+        return values.size();
+    }
+
+    public long getWeight() {
+        evictionLock.lock();
+        try {
+            return policy.getWeight();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups of keys accepted by the filter which were not cached
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return lookups answered by the filter without calling the loader
+     */
+    public long getFilteredCount() {
+        return filtered.sum();
+    }
+
+    /**
+     * @return calls of the loader, lower than miss count when concurrent misses shared a load
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private V load(K key) {
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            V value = values.get(key);
+            if (value == null) {
+                loadCount.increment();
+                value = loader.apply(key);
+                if (value != null) {
+                    store(key, value);
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    private void store(K key, V value) {
+        final long weight = weigher.applyAsLong(key, value);
+        if (weight < 0) {
+            throw new IllegalStateException("Weight of the value for " + key + " is negative: " + weight);
+        }
+        evictionLock.lock();
+        try {
+            values.put(key, value);
+            for (K evicted : policy.onInsert(key, weight)) {
+                values.remove(evicted);
+                evictions.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void recordAccess(K key) {
+        if (evictionLock.tryLock()) {
+            try {
+                policy.onAccess(key);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.github.mnukka.memory_bloomer.api;
 
 import com.github.mnukka.memory_bloomer.domain.CacheBuilder;
-import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
-import com.github.mnukka.memory_bloomer.domain.hash.SpookyHash;
-import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomFilter32;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.fuse.BinaryFuseFilter;
 
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * Memory cache factory.
@@ -22,9 +23,22 @@ public final class MemoryCacheFactory {
      */
     public static IMemoryCache createImmutableCache(List<String> list) {
         return new CacheBuilder()
-                .addHashFunction(new MurmurHash())
-                .addHashFunction(new SpookyHash())
-                .addDataStructure(new BloomFilter32<String>())
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(new BinaryFuseFilter<String>())
                 .buildCache(list);
     }
+
+    /**
+     * Create memory cache which is rebuilt in the background.
+     *
+     * Unlike {@link #createImmutableCache(List)} the cache can be refreshed with
+     * {@link RefreshingMemoryCache#refresh()} while lookups keep using the previous snapshot.
+     *
+     * @param keys     supplies the current keys, called on the calling thread once and on <i>executor</i> for every refresh
+     * @param executor executor rebuilds run on
+     * @return the refreshing memory cache
+     */
+    public static RefreshingMemoryCache<String> createRefreshingCache(Supplier<? extends List<String>> keys, Executor executor) {
+        return new RefreshingMemoryCache<>(BinaryFuseFilter::new, List.of(new Murmur3Hash128()), keys, executor);
+    }
 }
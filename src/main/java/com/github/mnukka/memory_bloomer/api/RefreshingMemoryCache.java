@@ -0,0 +1,199 @@
+package com.github.mnukka.memory_bloomer.api;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Refreshing memory cache.
+ * <p>
+ * Memory cache over a key set which changes over time. A new data structure is built from the current keys
+ * on a background executor, on demand or on a schedule, and replaces the previous one with a single volatile write.
+ * Lookups never wait for a rebuild and never see a data structure which is still being built.
+ * Once lookups which started before the swap have finished, the previous data structure and its bitmap are unreachable
+ * and left to the garbage collector.
+ * </p>
+ *
+ * <p>Only one rebuild runs at a time. Asking for a refresh while one is running queues one more rebuild,
+ * which reads the keys again once the running one finishes, so it sees every change made before the request.
+ * Requests made while a rebuild is queued share it.
+ * A rebuild which fails keeps the previous data structure in place.</p>
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public final class RefreshingMemoryCache<T> implements IMemoryCache<T> {
+    private final Supplier<? extends IDataStructure<T>> dataStructures;
+    private final List<IHashFunction> hashFunctions;
+    private final IKeyEncoder<? super T> keyEncoder;
+    private final Supplier<? extends List<T>> keys;
+    private final Executor executor;
+    private final Object lock = new Object();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile IMemoryCache<T> cache;
+    private CompletableFuture<IMemoryCache<T>> running;
+    private CompletableFuture<IMemoryCache<T>> queued;
+
+    /**
+     * Cache hashing keys with the {@link DefaultKeyEncoder}.
+     *
+     * @param dataStructures supplies a new, not yet created data structure for every build
+     * @param hashFunctions  hash functions passed to the data structure
+     * @param keys           supplies the current keys for every build
+     * @param executor       executor rebuilds run on
+     * @see #RefreshingMemoryCache(Supplier, List, IKeyEncoder, Supplier, Executor)
+     */
+    public RefreshingMemoryCache(Supplier<? extends IDataStructure<T>> dataStructures, List<IHashFunction> hashFunctions,
+                                 Supplier<? extends List<T>> keys, Executor executor) {
+        this(dataStructures, hashFunctions, new DefaultKeyEncoder(), keys, executor);
+    }
+
+    /**
+     * Cache built on the calling thread once, so lookups are answered from the start, later rebuilds run on <i>executor</i>.
+     *
+     * @param dataStructures supplies a new, not yet created data structure for every build
+     * @param hashFunctions  hash functions passed to the data structure
+     * @param keyEncoder     encoder which turns keys into bytes for hash functions
+     * @param keys           supplies the current keys for every build
+     * @param executor       executor rebuilds run on
+     * @throws NullPointerException if any of the arguments is not defined
+     */
+    public RefreshingMemoryCache(Supplier<? extends IDataStructure<T>> dataStructures, List<IHashFunction> hashFunctions,
+                                 IKeyEncoder<? super T> keyEncoder, Supplier<? extends List<T>> keys, Executor executor) {
+        if (dataStructures == null || hashFunctions == null || keyEncoder == null || keys == null || executor == null
+                || hashFunctions.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("RefreshingMemoryCache must be provided with non-null arguments as parameters");
+        }
+        this.dataStructures = dataStructures;
+        this.hashFunctions = List.copyOf(hashFunctions);
+        this.keyEncoder = keyEncoder;
+        this.keys = keys;
+        this.executor = executor;
+        this.cache = build();
+    }
+
+    @Override
+    public boolean isKeyPresent(T key) {
+        return cache.isKeyPresent(key);
+    }
+
+    @Override
+    public void isKeysPresent(List<? extends T> keys, boolean[] result) {
+        cache.isKeysPresent(keys, result);
+    }
+
+    /**
+     * Rebuild the cache from the current keys in the background.
+     * When a rebuild is already running, another one is queued to start after it.
+     *
+     * @return future completing with the new data structure once lookups use it,
+     * or exceptionally with the failure of the build
+     */
+    public CompletableFuture<IMemoryCache<T>> refresh() {
+        final CompletableFuture<IMemoryCache<T>> refresh;
+        synchronized (lock) {
+            if (running != null) {
+                if (queued == null) {
+                    queued = new CompletableFuture<>();
+                }
+                return queued;
+            }
+            refresh = new CompletableFuture<>();
+            running = refresh;
+        }
+        start(refresh);
+        return refresh;
+    }
+
+    /**
+     * Refresh on a fixed schedule. The scheduler only starts rebuilds, they run on the executor of this cache.
+     *
+     * @param scheduler the scheduler
+     * @param period    time between refreshes
+     * @param unit      unit of the period
+     * @return future to cancel the refreshes with
+     */
+    public ScheduledFuture<?> scheduleRefresh(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        if (scheduler == null || unit == null) {
+            throw new NullPointerException("scheduleRefresh must be provided with non-null arguments as parameters");
+        }
+        return scheduler.scheduleAtFixedRate(this::refresh, period, period, unit);
+    }
+
+    /**
+     * @return data structure lookups are currently answered by
+     */
+    public IMemoryCache<T> getCurrent() {
+        return cache;
+    }
+
+    /**
+     * @return rebuilds which replaced the data structure, not counting the initial build
+     */
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    public long getFailedRefreshCount() {
+        return failures.sum();
+    }
+
+    private void start(CompletableFuture<IMemoryCache<T>> refresh) {
+        try {
+            executor.execute(() -> rebuild(refresh));
+        } catch (RuntimeException e) {
+            failures.increment();
+            startQueued();
+            refresh.completeExceptionally(e);
+        }
+    }
+
+    private void rebuild(CompletableFuture<IMemoryCache<T>> refresh) {
+        try {
+            final IMemoryCache<T> built = build();
+            cache = built;
+            refreshes.increment();
+            startQueued();
+            refresh.complete(built);
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            startQueued();
+            refresh.completeExceptionally(e);
+        }
+    }
+
+    private void startQueued() {
+        final CompletableFuture<IMemoryCache<T>> next;
+        synchronized (lock) {
+            next = queued;
+            queued = null;
+            running = next;
+        }
+        if (next != null) {
+            start(next);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private IMemoryCache<T> build() {
+        final IDataStructure<T> dataStructure = dataStructures.get();
+        final List<T> input = keys.get();
+        if (dataStructure == null || input == null) {
+            throw new NullPointerException("RefreshingMemoryCache suppliers must not return null");
+        }
+        return (IMemoryCache<T>) dataStructure.createCache(hashFunctions, keyEncoder, input);
+    }
+}
@@ -1,11 +1,20 @@
 package com.github.mnukka.memory_bloomer.domain;
 
 import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.file.KeyFile;
+import com.github.mnukka.memory_bloomer.domain.file.KeyFileFormat;
+import com.github.mnukka.memory_bloomer.domain.file.MappedKeyEncoder;
 import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.stats.InstrumentedMemoryCache;
 import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Cache builder.
@@ -15,6 +24,8 @@ import java.util.List;
 public class CacheBuilder {
     private List<IHashFunction> hashFunctionList = new ArrayList<>();
     private IDataStructure dataStructure;
+    private IKeyEncoder keyEncoder = new DefaultKeyEncoder();
+    private ForkJoinPool pool;
 
     /**
      * Add hash function to cache builder.
@@ -40,6 +51,33 @@ public class CacheBuilder {
         return this;
     }
 
+    /**
+     * Add key encoder to cache builder.
+     *
+     * Replaces the {@link DefaultKeyEncoder}, which only knows about built-in key types.
+     *
+     * @param keyEncoder the key encoder
+     * @return the cache builder
+     */
+    public CacheBuilder addKeyEncoder(final IKeyEncoder<?> keyEncoder) {
+        this.keyEncoder = keyEncoder;
+        return this;
+    }
+
+    /**
+     * Add fork join pool to cache builder.
+     *
+     * Cache is then built by hashing the input on the workers of the pool,
+     * e.g. {@link ForkJoinPool#commonPool()}, instead of the calling thread.
+     *
+     * @param pool the pool
+     * @return the cache builder
+     */
+    public CacheBuilder addForkJoinPool(final ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
     /**
      * Build cache memory cache.
      *
@@ -47,6 +85,44 @@ public class CacheBuilder {
      * @return the memory cache
      */
     public IMemoryCache buildCache(List<?> myList) {
-        return dataStructure.createCache(hashFunctionList, myList);
+        if (pool != null) {
+            return dataStructure.createCache(hashFunctionList, keyEncoder, myList, pool);
+        }
+        return dataStructure.createCache(hashFunctionList, keyEncoder, myList);
+    }
+
+    /**
+     * Build memory cache straight from a key file.
+     *
+     * The file is memory mapped and keys are hashed from the mapped bytes, without a list, String or byte array per key.
+     * With a fork join pool the file is split into chunks which are hashed on the workers of the pool.
+     * The file is handed to the data structure as an {@link IKeySource}, data structures which can not be built
+     * in parallel hash its keys on the calling thread.
+     * Lookups of the built cache go through the key encoder of this builder,
+     * so a key has to encode to the same bytes it has in the file, UTF-8 strings do.
+     *
+     * @param path   the path of the key file
+     * @param format layout of keys in the file
+     * @return the memory cache
+     */
+    public IMemoryCache buildCacheFromFile(Path path, KeyFileFormat format) {
+        final KeyFile keyFile = KeyFile.open(path, format);
+        final MappedKeyEncoder mappedKeyEncoder = new MappedKeyEncoder(keyEncoder);
+        if (pool != null) {
+            return dataStructure.createCache(hashFunctionList, mappedKeyEncoder, keyFile, pool);
+        }
+        return dataStructure.createCache(hashFunctionList, mappedKeyEncoder, keyFile);
+    }
+
+    /**
+     * Build cache wrapped into {@link InstrumentedMemoryCache}, which counts lookups and reports how full the cache is.
+     *
+     * @param myList the my list
+     * @return the instrumented memory cache
+     */
+    public InstrumentedMemoryCache buildInstrumentedCache(List<?> myList) {
+        final long start = System.nanoTime();
+        final IMemoryCache cache = buildCache(myList);
+        return new InstrumentedMemoryCache(cache, System.nanoTime() - start);
     }
 }
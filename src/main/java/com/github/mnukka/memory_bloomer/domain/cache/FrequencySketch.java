@@ -0,0 +1,115 @@
+package com.github.mnukka.memory_bloomer.domain.cache;
+
+/**
+ * Frequency sketch.
+ * <p>
+ * Count-min sketch with 4bit counters estimating how often a key has been seen recently.
+ * Each key has four counters in one row of sixteen, the estimate is the smallest of them.
+ * Once the number of increments reaches ten times the capacity every counter is halved,
+ * so keys which used to be popular fade away.
+ * </p>
+ *
+ * <p>Sketch starts small and grows with the number of tracked keys, as the maximum weight of the owner
+ * says nothing about how many keys it holds when values are weighed by their size in bytes.</p>
+ *
+ * <p>Not thread safe, {@link WindowTinyLfuPolicy} uses it under its owner's lock.</p>
+ *
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ *
+ * @author Miko Nukka
+ */
+final class FrequencySketch {
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long ONE_MASK = 0x1111_1111_1111_1111L;
+    private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+    private static final int MAX_COUNT = 15;
+    private static final int MIN_ROWS = 16;
+    private static final int MAX_ROWS = 1 << 26;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch() {
+        resize(MIN_ROWS);
+    }
+
+    /**
+     * Grow the sketch to count at least <i>size</i> keys. Counts are dropped when it grows,
+     * which happens only when the number of keys reaches the next power of two.
+     *
+     * @param size number of keys the owner tracks
+     */
+    void ensureCapacity(long size) {
+        if (size > table.length && table.length < MAX_ROWS) {
+            resize((int) Math.min(MAX_ROWS, Long.highestOneBit(size - 1) << 1));
+        }
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    private void resize(int rows) {
+        table = new long[rows];
+        tableMask = rows - 1;
+        sampleSize = 10 * rows;
+        additions = 0;
+    }
+
+    int frequency(Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xFL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+        hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,233 @@
+package com.github.mnukka.memory_bloomer.domain.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Window TinyLFU eviction policy.
+ * <p>
+ * New keys enter a small LRU window taking 1% of the maximum weight. Keys falling out of the window
+ * compete for a place in the main space against its least recently used key, the one seen more often
+ * according to {@link FrequencySketch} stays. The main space is a segmented LRU, keys accessed again
+ * while on probation are promoted to the protected segment holding 80% of the main space.
+ * </p>
+ *
+ * <p>The window lets bursts of new keys get a hit or two, while the admission filter keeps one off scans
+ * from flushing out keys which are used all the time.</p>
+ *
+ * <p>Policy only tracks keys and their weights, values are kept by the owner.
+ * Not thread safe, owner has to guard every call with a lock.</p>
+ *
+ * @param <K> type of keys
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ *
+ * @author Miko Nukka
+ */
+public final class WindowTinyLfuPolicy<K> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final Queue<K> window = new Queue<>();
+    private final Queue<K> probation = new Queue<>();
+    private final Queue<K> protectedQueue = new Queue<>();
+
+    /**
+     * @param maximumWeight maximum total weight of tracked keys
+     * @throws IllegalArgumentException if <i>maximumWeight</i> is not positive
+     */
+    public WindowTinyLfuPolicy(long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be positive, was " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch();
+    }
+
+    /**
+     * Record insertion or replacement of a key.
+     *
+     * @param key    the key
+     * @param weight weight of the value, not negative
+     * @return keys which have to be evicted to stay within maximum weight, may contain <i>key</i> itself
+     */
+    public List<K> onInsert(K key, long weight) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key, weight);
+            nodes.put(key, node);
+            window.addLast(node);
+            sketch.ensureCapacity(nodes.size());
+        } else {
+            queueOf(node).weight += weight - node.weight;
+            node.weight = weight;
+            reorder(node);
+        }
+        sketch.increment(key);
+        return evict();
+    }
+
+    /**
+     * Record a read of the key. Keys which are not tracked are ignored.
+     *
+     * @param key the key
+     */
+    public void onAccess(K key) {
+        sketch.increment(key);
+        final Node<K> node = nodes.get(key);
+        if (node != null) {
+            reorder(node);
+        }
+    }
+
+    /**
+     * Stop tracking the key.
+     *
+     * @param key the key
+     * @return true if the key was tracked
+     */
+    public boolean onRemove(K key) {
+        final Node<K> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        queueOf(node).remove(node);
+        return true;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public long getWeight() {
+        return window.weight + probation.weight + protectedQueue.weight;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    int sketchCapacity() {
+        return sketch.capacity();
+    }
+
+    private void reorder(Node<K> node) {
+        if (node.queue == PROBATION) {
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedQueue.addLast(node);
+            while (protectedQueue.weight > protectedMaximum && protectedQueue.head != node) {
+                final Node<K> demoted = protectedQueue.head;
+                protectedQueue.remove(demoted);
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            final Queue<K> queue = queueOf(node);
+            queue.remove(node);
+            queue.addLast(node);
+        }
+    }
+
+    private List<K> evict() {
+        while (window.weight > windowMaximum && window.head != null) {
+            final Node<K> candidate = window.head;
+            window.remove(candidate);
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+        }
+        List<K> evicted = List.of();
+        while (getWeight() > maximumWeight) {
+            final Node<K> victim = selectVictim();
+            if (evicted.isEmpty()) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(victim.key);
+            nodes.remove(victim.key);
+            queueOf(victim).remove(victim);
+        }
+        return evicted;
+    }
+
+    private Node<K> selectVictim() {
+        final Node<K> victim = probation.head;
+        final Node<K> candidate = probation.tail;
+        if (victim == null) {
+            return protectedQueue.head != null ? protectedQueue.head : window.head;
+        }
+        if (victim == candidate) {
+            return victim;
+        }
+        return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+    }
+
+    private Queue<K> queueOf(Node<K> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedQueue;
+        }
+    }
+
+    private static final class Node<K> {
+        private final K key;
+        private long weight;
+        private int queue = WINDOW;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key, long weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Doubly linked access order queue, least recently used node at the head.
+     */
+    private static final class Queue<K> {
+        private Node<K> head;
+        private Node<K> tail;
+        private long weight;
+
+        private void addLast(Node<K> node) {
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        private void remove(Node<K> node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+/**
+ * Byte array key encoder. Keys are used as they are.
+ *
+ * @author Miko Nukka
+ */
+public final class ByteArrayKeyEncoder implements IKeyEncoder<byte[]> {
+
+    @Override
+    public void encode(byte[] key, KeyBuffer buffer) {
+        buffer.putBytes(key);
+    }
+}
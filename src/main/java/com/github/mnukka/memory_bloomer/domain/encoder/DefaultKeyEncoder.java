@@ -0,0 +1,43 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+import java.util.UUID;
+
+/**
+ * Default key encoder.
+ *
+ * Picks one of the built-in encoders by the runtime type of the key:
+ * {@link CharSequence} (UTF-8), byte[], {@link Long}, {@link Integer} and {@link UUID}.
+ * Any other type is rejected, use {@link SerializingKeyEncoder} or a custom {@link IKeyEncoder} for those.
+ *
+ * @author Miko Nukka
+ */
+public final class DefaultKeyEncoder implements IKeyEncoder<Object> {
+    private final Utf8KeyEncoder stringEncoder = new Utf8KeyEncoder();
+    private final ByteArrayKeyEncoder byteArrayEncoder = new ByteArrayKeyEncoder();
+    private final LongKeyEncoder longEncoder = new LongKeyEncoder();
+    private final IntegerKeyEncoder integerEncoder = new IntegerKeyEncoder();
+    private final UuidKeyEncoder uuidEncoder = new UuidKeyEncoder();
+
+    /**
+     * Encode key with built-in encoder matching its type.
+     *
+     * @throws IllegalArgumentException if there is no built-in encoder for the type of the key
+     */
+    @Override
+    public void encode(Object key, KeyBuffer buffer) {
+        if (key instanceof CharSequence) {
+            stringEncoder.encode((CharSequence) key, buffer);
+        } else if (key instanceof byte[]) {
+            byteArrayEncoder.encode((byte[]) key, buffer);
+        } else if (key instanceof Long) {
+            longEncoder.encode((Long) key, buffer);
+        } else if (key instanceof Integer) {
+            integerEncoder.encode((Integer) key, buffer);
+        } else if (key instanceof UUID) {
+            uuidEncoder.encode((UUID) key, buffer);
+        } else {
+            throw new IllegalArgumentException("No built-in key encoder for " + key.getClass().getName()
+                    + ". Tip: register one with CacheBuilder.addKeyEncoder() or opt in to SerializingKeyEncoder");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+/**
+ * The interface Key encoder.
+ *
+ * Turns a key into the bytes which are handed over to hash functions.
+ * Implementations write straight into a reusable {@link KeyBuffer},
+ * so encoding a key does not need to allocate anything on its own.
+ *
+ * @param <T> the type parameter for keys which are to be encoded
+ *
+ * @author Miko Nukka
+ */
+public interface IKeyEncoder<T> {
+
+    /**
+     * Encode key into buffer.
+     *
+     * @param key    the key, never null
+     * @param buffer the buffer to append the encoded key to
+     */
+    void encode(T key, KeyBuffer buffer);
+}
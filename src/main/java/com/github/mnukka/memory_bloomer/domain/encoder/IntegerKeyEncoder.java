@@ -0,0 +1,14 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+/**
+ * Integer key encoder. Writes the 4 bytes of the value.
+ *
+ * @author Miko Nukka
+ */
+public final class IntegerKeyEncoder implements IKeyEncoder<Integer> {
+
+    @Override
+    public void encode(Integer key, KeyBuffer buffer) {
+        buffer.putInt(key);
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Key buffer.
+ *
+ * A growable byte sink that {@link IKeyEncoder} implementations write keys into.
+ * The buffer is meant to be reused between keys, see {@link #forCurrentThread()}.
+ * Multi-byte values are written in big-endian order.
+ *
+ * @author Miko Nukka
+ */
+public final class KeyBuffer {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final ThreadLocal<KeyBuffer> THREAD_BUFFER = ThreadLocal.withInitial(KeyBuffer::new);
+
+    private byte[] bytes;
+    private int length;
+
+    public KeyBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public KeyBuffer(int initialCapacity) {
+        bytes = new byte[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Gets empty buffer owned by the calling thread.
+     *
+     * @return the cleared thread local buffer
+     */
+    public static KeyBuffer forCurrentThread() {
+        return THREAD_BUFFER.get().reset();
+    }
+
+    /**
+     * Clears the buffer while keeping the allocated capacity.
+     *
+     * @return the key buffer
+     */
+    public KeyBuffer reset() {
+        length = 0;
+        return this;
+    }
+
+    public void putByte(int value) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) value;
+    }
+
+    public void putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        bytes[length++] = (byte) (value >>> 24);
+        bytes[length++] = (byte) (value >>> 16);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+    }
+
+    public void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    public void putBytes(byte[] source) {
+        putBytes(source, 0, source.length);
+    }
+
+    public void putBytes(byte[] source, int offset, int count) {
+        ensureCapacity(count);
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+    }
+
+    /**
+     * Append remaining bytes of the source, advancing its position.
+     *
+     * @param source the source, e.g. a slice of a memory mapped file
+     */
+    public void putBytes(ByteBuffer source) {
+        final int count = source.remaining();
+        ensureCapacity(count);
+        source.get(bytes, length, count);
+        length += count;
+    }
+
+    /**
+     * Make sure at least given amount of bytes can be appended without growing the buffer again.
+     *
+     * @param additional number of bytes about to be appended
+     */
+    public void ensureCapacity(int additional) {
+        final int required = length + additional;
+        if (required < 0) {
+            throw new IllegalStateException("KeyBuffer can not hold more than Integer.MAX_VALUE bytes");
+        }
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length << 1));
+        }
+    }
+
+    /**
+     * Gets backing array. Only the first {@link #length()} bytes are meaningful.
+     *
+     * @return the backing array
+     */
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int length() {
+        return length;
+    }
+}
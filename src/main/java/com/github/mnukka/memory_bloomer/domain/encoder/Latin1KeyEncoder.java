@@ -0,0 +1,22 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+/**
+ * Latin-1 key encoder.
+ *
+ * Writes one byte per character. Characters outside of ISO-8859-1 are written as '?',
+ * which is only safe when keys are known to be Latin-1 (for example ASCII identifiers).
+ *
+ * @author Miko Nukka
+ */
+public final class Latin1KeyEncoder implements IKeyEncoder<CharSequence> {
+
+    @Override
+    public void encode(CharSequence key, KeyBuffer buffer) {
+        final int size = key.length();
+        buffer.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            final char c = key.charAt(i);
+            buffer.putByte(c <= 0xFF ? c : '?');
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+/**
+ * Long key encoder. Writes the 8 bytes of the value.
+ *
+ * @author Miko Nukka
+ */
+public final class LongKeyEncoder implements IKeyEncoder<Long> {
+
+    @Override
+    public void encode(Long key, KeyBuffer buffer) {
+        buffer.putLong(key);
+    }
+}
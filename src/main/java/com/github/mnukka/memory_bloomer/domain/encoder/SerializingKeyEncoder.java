@@ -0,0 +1,45 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializing key encoder.
+ *
+ * Fallback for key types which have no dedicated encoder. Keys are written with Java serialization,
+ * which is slow and allocates an {@link ObjectOutputStream} for every key, so it has to be opted in explicitly.
+ *
+ * @author Miko Nukka
+ */
+public final class SerializingKeyEncoder implements IKeyEncoder<Object> {
+
+    @Override
+    public void encode(Object key, KeyBuffer buffer) {
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new KeyBufferOutputStream(buffer))) {
+            objectOutputStream.writeObject(key);
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+    }
+
+    private static final class KeyBufferOutputStream extends OutputStream {
+        private final KeyBuffer buffer;
+
+        private KeyBufferOutputStream(KeyBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.putByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.putBytes(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+/**
+ * UTF-8 key encoder.
+ *
+ * Encodes characters one by one into the buffer, so no intermediate byte[] is created.
+ * Unpaired surrogates are written as '?', same as {@link String#getBytes(java.nio.charset.Charset)} does.
+ *
+ * @author Miko Nukka
+ */
+public final class Utf8KeyEncoder implements IKeyEncoder<CharSequence> {
+
+    @Override
+    public void encode(CharSequence key, KeyBuffer buffer) {
+        final int size = key.length();
+        buffer.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            final char c = key.charAt(i);
+            if (c < 0x80) {
+                buffer.putByte(c);
+            } else if (c < 0x800) {
+                buffer.putByte(0xC0 | (c >>> 6));
+                buffer.putByte(0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer.putByte(0xE0 | (c >>> 12));
+                buffer.putByte(0x80 | ((c >>> 6) & 0x3F));
+                buffer.putByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(key.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                buffer.putByte(0xF0 | (codePoint >>> 18));
+                buffer.putByte(0x80 | ((codePoint >>> 12) & 0x3F));
+                buffer.putByte(0x80 | ((codePoint >>> 6) & 0x3F));
+                buffer.putByte(0x80 | (codePoint & 0x3F));
+            } else {
+                buffer.putByte('?');
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+import java.util.UUID;
+
+/**
+ * UUID key encoder. Writes the 16 bytes of the value, most significant bits first.
+ *
+ * @author Miko Nukka
+ */
+public final class UuidKeyEncoder implements IKeyEncoder<UUID> {
+
+    @Override
+    public void encode(UUID key, KeyBuffer buffer) {
+        buffer.putLong(key.getMostSignificantBits());
+        buffer.putLong(key.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.mnukka.memory_bloomer.domain.file;
+
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidKeyFileException;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Key file.
+ * <p>
+ * Keys of a file memory mapped in segments of up to 1GB, so files larger than the heap can be turned into a filter
+ * without reading them into a list. Keys are handed out as {@link MappedKey} windows over the mapping,
+ * no String or byte array is created per key. Empty keys are skipped.
+ * </p>
+ *
+ * <p>Opening the file walks it once to count the keys, which the filter is sized by,
+ * and to cut it into chunks of about 4MB on key boundaries. Chunks are the unit of work of a parallel build.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class KeyFile implements IKeySource<MappedKey> {
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final int CHUNK_SIZE = 4 << 20;
+
+    private final KeyFileFormat format;
+    private final List<Chunk> chunks;
+    private final long size;
+
+    private KeyFile(KeyFileFormat format, List<Chunk> chunks, long size) {
+        this.format = format;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * Map the file and count its keys.
+     *
+     * @param path   the path
+     * @param format layout of keys in the file
+     * @return the key file
+     * @throws InvalidKeyFileException if the file does not follow the format
+     * @throws UnexpectedIOException if reading fails
+     */
+    public static KeyFile open(Path path, KeyFileFormat format) {
+        return open(path, format, CHUNK_SIZE);
+    }
+
+    static KeyFile open(Path path, KeyFileFormat format, int chunkSize) {
+        if (path == null || format == null) {
+            throw new NullPointerException("open must be provided with non-null arguments as parameters");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            final List<Chunk> chunks = new ArrayList<>();
+            long size = 0;
+            long position = 0;
+            while (position < fileSize) {
+                final int length = (int) Math.min(SEGMENT_SIZE, fileSize - position);
+                final boolean endOfInput = position + length == fileSize;
+                final MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                final MappedKey key = new MappedKey(segment);
+
+                int offset = 0;
+                int chunkStart = 0;
+                int next;
+                while ((next = format.next(segment, offset, length, endOfInput, key)) >= 0) {
+                    if (key.length() > 0) {
+                        size++;
+                    }
+                    offset = next;
+                    if (offset - chunkStart >= chunkSize) {
+                        chunks.add(new Chunk(segment, chunkStart, offset));
+                        chunkStart = offset;
+                    }
+                }
+                if (offset == 0) {
+                    throw new InvalidKeyFileException("Key at offset " + position + " of " + path + " is longer than " + SEGMENT_SIZE + " bytes");
+                }
+                if (offset > chunkStart) {
+                    chunks.add(new Chunk(segment, chunkStart, offset));
+                }
+                position += offset;
+            }
+            return new KeyFile(format, chunks, size);
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<? super MappedKey> action) {
+        for (Chunk chunk : chunks) {
+            visit(chunk, action);
+        }
+    }
+
+    @Override
+    public void forEach(ForkJoinPool pool, Consumer<? super MappedKey> action) {
+        if (pool == null || action == null) {
+            throw new NullPointerException("forEach must be provided with non-null arguments as parameters");
+        }
+        pool.invoke(new ChunkTask(action, 0, chunks.size()));
+    }
+
+    int chunkCount() {
+        return chunks.size();
+    }
+
+    private void visit(Chunk chunk, Consumer<? super MappedKey> action) {
+        final ByteBuffer scan = chunk.segment.duplicate();
+        final MappedKey key = new MappedKey(chunk.segment.duplicate());
+        int offset = chunk.from;
+        while (offset < chunk.to) {
+            offset = format.next(scan, offset, chunk.to, true, key);
+            if (key.length() > 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final ByteBuffer segment;
+        private final int from;
+        private final int to;
+
+        private Chunk(ByteBuffer segment, int from, int to) {
+            this.segment = segment;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private final Consumer<? super MappedKey> action;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(Consumer<? super MappedKey> action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                visit(chunks.get(from), action);
+            } else if (to > from) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(action, from, middle), new ChunkTask(action, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.mnukka.memory_bloomer.domain.file;
+
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidKeyFileException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Key file format.
+ *
+ * Layout of keys in a file read by {@link KeyFile}. Key bytes are hashed as they are,
+ * so UTF-8 text keys match lookups of the same strings through the default key encoder.
+ *
+ * @author Miko Nukka
+ */
+public enum KeyFileFormat {
+    /**
+     * One key per line, lines end with <i>\n</i> or <i>\r\n</i>. The last line does not need a line break.
+     */
+    NEWLINE {
+        @Override
+        int next(ByteBuffer buffer, int position, int limit, boolean endOfInput, MappedKey key) {
+            for (int i = position; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    key.set(position, trimCarriageReturn(buffer, position, i));
+                    return i + 1;
+                }
+            }
+            if (endOfInput && position < limit) {
+                key.set(position, trimCarriageReturn(buffer, position, limit));
+                return limit;
+            }
+            return -1;
+        }
+
+        private int trimCarriageReturn(ByteBuffer buffer, int from, int to) {
+            return to > from && buffer.get(to - 1) == '\r' ? to - from - 1 : to - from;
+        }
+    },
+
+    /**
+     * Each key is preceded by its length in bytes, a 4 byte big-endian integer.
+     */
+    LENGTH_PREFIXED {
+        @Override
+        int next(ByteBuffer buffer, int position, int limit, boolean endOfInput, MappedKey key) {
+            if (limit - position < Integer.BYTES) {
+                if (endOfInput && position < limit) {
+                    throw new InvalidKeyFileException("Key length at the end of the file is truncated");
+                }
+                return -1;
+            }
+            final int length = buffer.getInt(position);
+            if (length < 0) {
+                throw new InvalidKeyFileException("Negative key length " + length);
+            }
+            final long end = (long) position + Integer.BYTES + length;
+            if (end > limit) {
+                if (endOfInput) {
+                    throw new InvalidKeyFileException("Key of " + length + " bytes at the end of the file is truncated");
+                }
+                return -1;
+            }
+            key.set(position + Integer.BYTES, length);
+            return (int) end;
+        }
+    };
+
+    /**
+     * Parse key starting at given position.
+     *
+     * @param buffer     the buffer, read with absolute gets only
+     * @param position   index of the first byte of the key
+     * @param limit      index after the last readable byte
+     * @param endOfInput whether bytes after the limit belong to no key
+     * @param key        receives offset and length of the key
+     * @return index after the key, or -1 if the key does not end before the limit
+     */
+    abstract int next(ByteBuffer buffer, int position, int limit, boolean endOfInput, MappedKey key);
+}
@@ -0,0 +1,64 @@
+package com.github.mnukka.memory_bloomer.domain.file;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mapped key.
+ * <p>
+ * Key read from a {@link KeyFile}, a window over the memory mapped file rather than a copy of the key.
+ * One instance is reused for every key of a chunk, so it is only valid until the action it was handed to returns.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+public final class MappedKey {
+    private final ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    MappedKey(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    void set(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return buffer.get(offset + index);
+    }
+
+    /**
+     * Append the key bytes to the buffer.
+     *
+     * @param target the buffer
+     */
+    public void copyTo(KeyBuffer target) {
+        buffer.clear().position(offset);
+        buffer.limit(offset + length);
+        target.putBytes(buffer);
+    }
+
+    /**
+     * Key decoded as UTF-8. Allocates, meant for debugging.
+     */
+    @Override
+    public String toString() {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
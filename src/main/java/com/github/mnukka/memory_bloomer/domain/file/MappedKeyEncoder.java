@@ -0,0 +1,43 @@
+package com.github.mnukka.memory_bloomer.domain.file;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+
+/**
+ * Mapped key encoder.
+ *
+ * Copies bytes of a {@link MappedKey} straight from the mapped file into the key buffer,
+ * any other key is handed over to the delegate. A filter built from a file with this encoder
+ * answers lookups of ordinary keys whose delegate encoding equals the bytes in the file,
+ * e.g. strings of a UTF-8 text file with the {@link DefaultKeyEncoder}.
+ *
+ * @author Miko Nukka
+ */
+public final class MappedKeyEncoder implements IKeyEncoder<Object> {
+    private final IKeyEncoder<Object> delegate;
+
+    public MappedKeyEncoder() {
+        this(new DefaultKeyEncoder());
+    }
+
+    /**
+     * @param delegate encoder for keys which are not mapped keys
+     */
+    @SuppressWarnings("unchecked")
+    public MappedKeyEncoder(IKeyEncoder<?> delegate) {
+        if (delegate == null) {
+            throw new NullPointerException("MappedKeyEncoder must be provided with non-null delegate");
+        }
+        this.delegate = (IKeyEncoder<Object>) delegate;
+    }
+
+    @Override
+    public void encode(Object key, KeyBuffer buffer) {
+        if (key instanceof MappedKey) {
+            ((MappedKey) key).copyTo(buffer);
+        } else {
+            delegate.encode(key, buffer);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+/**
+ * Double hashing batch.
+ * <p>
+ * Holds the 128bit hashes of up to {@link #SIZE} keys, so a batch lookup can hash every key first
+ * and then probe the bitmap key after key for the same probe index.
+ * Loads of independent keys do not wait for each other, which lets the CPU keep many cache misses in flight
+ * instead of paying for them one by one.
+ * </p>
+ *
+ * <p>Bit positions are the same as the ones of {@link DoubleHashProbe}.
+ * Instances are not thread safe, see {@link #forCurrentThread()}.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class DoubleHashBatch {
+    /**
+     * Maximum number of keys in batch.
+     */
+    public static final int SIZE = 32;
+    private static final ThreadLocal<DoubleHashBatch> THREAD_BATCH = ThreadLocal.withInitial(DoubleHashBatch::new);
+
+    private final long[] h1 = new long[SIZE];
+    private final long[] h2 = new long[SIZE];
+    private final long[] hash = new long[2];
+
+    /**
+     * Gets batch owned by the calling thread.
+     *
+     * @return the thread local batch
+     */
+    public static DoubleHashBatch forCurrentThread() {
+        return THREAD_BATCH.get();
+    }
+
+    /**
+     * Hash the key into given slot, replacing previously computed hash.
+     *
+     * @param slot         the slot, in range [0, SIZE)
+     * @param hashFunction the hash function
+     * @param input        the input
+     * @param offset       index of first byte to hash
+     * @param length       number of bytes to hash
+     */
+    public void hash(int slot, IHashFunction128 hashFunction, byte[] input, int offset, int length) {
+        hashFunction.hash128(input, offset, length, hash);
+        h1[slot] = hash[0];
+        h2[slot] = hash[1];
+    }
+
+    public long h1(int slot) {
+        return h1[slot];
+    }
+
+    public long h2(int slot) {
+        return h2[slot];
+    }
+
+    /**
+     * Bit position of i-th probe of the key in given slot.
+     *
+     * @param slot  the slot
+     * @param i     index of the probe, starting from 0
+     * @param range number of bits in bitmap
+     * @return bit position in range [0, range)
+     * @see DoubleHashProbe#position(int, long)
+     */
+    public long position(int slot, int i, long range) {
+        return DoubleHashProbe.reduce(h1[slot] + i * h2[slot], range);
+    }
+}
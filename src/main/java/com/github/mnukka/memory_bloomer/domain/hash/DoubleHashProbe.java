@@ -0,0 +1,103 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+/**
+ * Double hashing probe generator.
+ * <p>
+ * Derives k bit positions from one 128bit hash as described by Kirsch and Mitzenmacher:
+ * <i>g<sub>i</sub>(x) = h<sub>1</sub>(x) + i * h<sub>2</sub>(x)</i>.
+ * This keeps the asymptotic false positive rate of k independent hash functions
+ * while paying for a single pass over the key.
+ * </p>
+ *
+ * <p>Positions are mapped into the bitmap with multiply-shift range reduction,
+ * which unlike <i>hash % m</i> is free of modulo bias and never goes negative.</p>
+ *
+ * <p>Instances hold the last computed hash and are not thread safe, see {@link #forCurrentThread()}.</p>
+ *
+ * @see <a href="https://www.eecs.harvard.edu/~michaelm/postscripts/rsa2008.pdf">Less Hashing, Same Performance</a>
+ * @see <a href="https://lemire.me/blog/2016/06/27/a-fast-alternative-to-the-modulo-reduction/">A fast alternative to the modulo reduction</a>
+ *
+ * @author Miko Nukka
+ */
+public final class DoubleHashProbe {
+    private static final ThreadLocal<DoubleHashProbe> THREAD_PROBE = ThreadLocal.withInitial(DoubleHashProbe::new);
+
+    private final long[] hash = new long[2];
+
+    /**
+     * Gets probe owned by the calling thread.
+     *
+     * @return the thread local probe
+     */
+    public static DoubleHashProbe forCurrentThread() {
+        return THREAD_PROBE.get();
+    }
+
+    /**
+     * Hash the key, replacing previously computed hash.
+     *
+     * @param hashFunction the hash function
+     * @param input        the input
+     * @param offset       index of first byte to hash
+     * @param length       number of bytes to hash
+     * @return the probe
+     */
+    public DoubleHashProbe hash(IHashFunction128 hashFunction, byte[] input, int offset, int length) {
+        hashFunction.hash128(input, offset, length, hash);
+        return this;
+    }
+
+    /**
+     * Use given hash halves instead of hashing a key.
+     *
+     * @param h1 the first hash
+     * @param h2 the second hash
+     * @return the probe
+     */
+    public DoubleHashProbe set(long h1, long h2) {
+        hash[0] = h1;
+        hash[1] = h2;
+        return this;
+    }
+
+    public long h1() {
+        return hash[0];
+    }
+
+    public long h2() {
+        return hash[1];
+    }
+
+    /**
+     * Bit position of i-th probe.
+     *
+     * @param i     index of the probe, starting from 0
+     * @param range number of bits in bitmap
+     * @return bit position in range [0, range)
+     */
+    public long position(int i, long range) {
+        return reduce(hash[0] + i * hash[1], range);
+    }
+
+    /**
+     * Map 64bit hash uniformly into [0, range).
+     *
+     * @param hash  the hash
+     * @param range the range, must not be negative
+     * @return the reduced value
+     */
+    public static long reduce(long hash, long range) {
+        return Math.multiplyHigh(hash, range) + ((hash >> 63) & range);
+    }
+
+    /**
+     * Map 32bit hash uniformly into [0, range).
+     *
+     * @param hash  the hash
+     * @param range the range, must not be negative
+     * @return the reduced value
+     */
+    public static int reduce(int hash, int range) {
+        return (int) (((hash & 0xFFFFFFFFL) * range) >>> 32);
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+/**
+ * Hash functions.
+ *
+ * Identifiers of built-in hash functions, used to recreate a hash function with the same seed
+ * when a persisted filter is loaded. Identifiers are part of the snapshot format and must never change.
+ *
+ * @author Miko Nukka
+ */
+public final class HashFunctions {
+    public static final int CUSTOM = 0;
+    public static final int MURMUR_32 = 1;
+    public static final int SPOOKY_32 = 2;
+    public static final int MURMUR3_128 = 3;
+
+    private HashFunctions() {
+    }
+
+    /**
+     * Create built-in hash function.
+     *
+     * @param id   the identifier as returned by {@link IHashFunction#getId()}
+     * @param seed the seed as returned by {@link IHashFunction#getHashSeed()}
+     * @return the hash function
+     * @throws IllegalArgumentException if <i>id</i> does not belong to a built-in hash function
+     */
+    public static IHashFunction create(int id, int seed) {
+        switch (id) {
+            case MURMUR_32:
+                return new MurmurHash(seed);
+            case SPOOKY_32:
+                return new SpookyHash(seed);
+            case MURMUR3_128:
+                return new Murmur3Hash128(seed);
+            default:
+                throw new IllegalArgumentException("Unknown hash function id " + id);
+        }
+    }
+}
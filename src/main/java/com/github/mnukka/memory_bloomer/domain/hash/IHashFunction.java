@@ -1,5 +1,7 @@
 package com.github.mnukka.memory_bloomer.domain.hash;
 
+import java.util.Arrays;
+
 public interface IHashFunction {
     int seed = (int)System.nanoTime();
 
@@ -8,4 +10,44 @@ public interface IHashFunction {
     }
 
     int hash32(byte[] input, int maxBitPos);
+
+    /**
+     * Hash part of the input.
+     *
+     * Lets callers hash keys straight out of a reusable buffer.
+     * Default implementation copies the range when it does not cover the whole array,
+     * implementations which can read a range directly should override it.
+     *
+     * @param input     the input
+     * @param offset    index of first byte to hash
+     * @param length    number of bytes to hash
+     * @param maxBitPos upper bound (exclusive) of returned bit position
+     * @return bit position in range [0, maxBitPos)
+     */
+    default int hash32(byte[] input, int offset, int length, int maxBitPos) {
+        if (offset == 0 && length == input.length) {
+            return hash32(input, maxBitPos);
+        }
+        return hash32(Arrays.copyOfRange(input, offset, offset + length), maxBitPos);
+    }
+
+    /**
+     * Gets identifier of the hash function, see {@link HashFunctions}.
+     *
+     * Persisted filters store it to recreate the same hash function when loaded.
+     *
+     * @return the identifier, {@link HashFunctions#CUSTOM} for functions which can not be recreated
+     */
+    default int getId() {
+        return HashFunctions.CUSTOM;
+    }
+
+    /**
+     * Gets seed this hash function instance hashes with.
+     *
+     * @return the seed
+     */
+    default int getHashSeed() {
+        return getSeed();
+    }
 }
@@ -0,0 +1,22 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+/**
+ * The interface 128bit hash function.
+ *
+ * Wide hash functions are used with {@link DoubleHashProbe} to derive any number
+ * of bit positions from a single hash computation.
+ *
+ * @author Miko Nukka
+ */
+public interface IHashFunction128 extends IHashFunction {
+
+    /**
+     * Hash part of the input into 128 bits.
+     *
+     * @param input  the input
+     * @param offset index of first byte to hash
+     * @param length number of bytes to hash
+     * @param result array of at least two elements, receives lower 64 bits at index 0 and upper 64 bits at index 1
+     */
+    void hash128(byte[] input, int offset, int length, long[] result);
+}
@@ -0,0 +1,156 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Long hash batch.
+ * <p>
+ * Like {@link DoubleHashBatch}, but for fixed width keys: up to {@link #SIZE} primitive keys are hashed in one call,
+ * giving the same hashes as hashing them one by one with h1 = fmix64(key ^ seedMix) and h2 = fmix64(h1 + 0x9E3779B97F4A7C15L).
+ * </p>
+ *
+ * <p>The library is a multi-release jar. On Java 17 and newer, when the <i>jdk.incubator.vector</i> module
+ * has been added to the runtime (<i>--add-modules jdk.incubator.vector</i>), keys are hashed with the Vector API,
+ * many keys per instruction. Otherwise, or when the system property {@value #SCALAR_PROPERTY} is true,
+ * they are hashed one by one. The vector kernel is checked against the scalar one when the class loads
+ * and is only used if both give bit identical results.</p>
+ *
+ * <p>Instances are not thread safe, see {@link #forCurrentThread()}.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class LongHashBatch {
+    /**
+     * Maximum number of keys in batch.
+     */
+    public static final int SIZE = DoubleHashBatch.SIZE;
+    /**
+     * System property which, when true, turns the vector kernel off.
+     */
+    public static final String SCALAR_PROPERTY = "memory_bloomer.hash.scalar";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "com.github.mnukka.memory_bloomer.domain.hash.VectorLongHashKernel";
+    private static final LongHashKernel KERNEL = selectKernel();
+    private static final ThreadLocal<LongHashBatch> THREAD_BATCH = ThreadLocal.withInitial(LongHashBatch::new);
+
+    private final long[] keys = new long[SIZE];
+    private final long[] h1 = new long[SIZE];
+    private final long[] h2 = new long[SIZE];
+
+    /**
+     * Gets batch owned by the calling thread.
+     *
+     * @return the thread local batch
+     */
+    public static LongHashBatch forCurrentThread() {
+        return THREAD_BATCH.get();
+    }
+
+    /**
+     * @return true if keys are hashed with the Vector API
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarLongHashKernel);
+    }
+
+    /**
+     * Hash keys[from, from + count) into slots [0, count), replacing previously computed hashes.
+     *
+     * @param keys    the keys
+     * @param from    index of the first key
+     * @param count   number of keys, in range [0, SIZE]
+     * @param seedMix the mixed seed
+     */
+    public void hash(long[] keys, int from, int count, long seedMix) {
+        KERNEL.hash(keys, from, count, seedMix, h1, h2);
+    }
+
+    /**
+     * Hash keys[from, from + count) into slots [0, count), each key widened to long first.
+     *
+     * @param keys    the keys
+     * @param from    index of the first key
+     * @param count   number of keys, in range [0, SIZE]
+     * @param seedMix the mixed seed
+     */
+    public void hash(int[] keys, int from, int count, long seedMix) {
+        for (int i = 0; i < count; i++) {
+            this.keys[i] = keys[from + i];
+        }
+        KERNEL.hash(this.keys, 0, count, seedMix, h1, h2);
+    }
+
+    public long h1(int slot) {
+        return h1[slot];
+    }
+
+    public long h2(int slot) {
+        return h2[slot];
+    }
+
+    /**
+     * Bit position of i-th probe of the key in given slot.
+     *
+     * @param slot  the slot
+     * @param i     index of the probe, starting from 0
+     * @param range number of bits in bitmap
+     * @return bit position in range [0, range)
+     * @see DoubleHashProbe#position(int, long)
+     */
+    public long position(int slot, int i, long range) {
+        return DoubleHashProbe.reduce(h1[slot] + i * h2[slot], range);
+    }
+
+    /**
+     * Loads the vector kernel, if both the Java 17 classes and the vector module are there.
+     *
+     * @return the vector kernel or null
+     */
+    static LongHashKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (LongHashKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check that kernel gives the same hashes as the scalar kernel for every batch size up to SIZE.
+     *
+     * @param kernel the kernel
+     * @return true if every hash is bit identical
+     */
+    static boolean matchesScalar(final LongHashKernel kernel) {
+        final SplittableRandom random = new SplittableRandom(SIZE);
+        final long[] keys = random.longs(2 * SIZE).toArray();
+        final LongHashKernel scalar = new ScalarLongHashKernel();
+        final long[] expected1 = new long[SIZE];
+        final long[] expected2 = new long[SIZE];
+        final long[] actual1 = new long[SIZE];
+        final long[] actual2 = new long[SIZE];
+        for (int count = 0; count <= SIZE; count++) {
+            final long seedMix = random.nextLong();
+            final int from = random.nextInt(SIZE + 1);
+            scalar.hash(keys, from, count, seedMix, expected1, expected2);
+            kernel.hash(keys, from, count, seedMix, actual1, actual2);
+            if (!Arrays.equals(expected1, actual1) || !Arrays.equals(expected2, actual2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LongHashKernel selectKernel() {
+        if (!Boolean.getBoolean(SCALAR_PROPERTY)) {
+            final LongHashKernel vector = loadVectorKernel();
+            if (vector != null && matchesScalar(vector)) {
+                return vector;
+            }
+        }
+        return new ScalarLongHashKernel();
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+/**
+ * Long hash kernel.
+ * <p>
+ * Hashes a run of 64bit keys into the two hashes double hashing is fed with,
+ * h1 = fmix64(key ^ seedMix) and h2 = fmix64(h1 + {@link #GOLDEN_GAMMA}).
+ * Every implementation must give bit identical results to {@link ScalarLongHashKernel}.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+interface LongHashKernel {
+    long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Hash keys[from, from + count) into h1[0, count) and h2[0, count).
+     *
+     * @param keys    the keys
+     * @param from    index of the first key
+     * @param count   number of keys to hash
+     * @param seedMix the mixed seed
+     * @param h1      receives first hash of each key
+     * @param h2      receives second hash of each key
+     */
+    void hash(long[] keys, int from, int count, long seedMix, long[] h1, long[] h2);
+}
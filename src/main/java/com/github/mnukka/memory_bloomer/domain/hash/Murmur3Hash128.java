@@ -0,0 +1,163 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+/**
+ * MurmurHash3 x64 128bit variant by Austin Appleby.
+ *
+ * @see <a href="https://github.com/aappleby/smhasher/blob/master/src/MurmurHash3.cpp">MurmurHash3.cpp</a>
+ *
+ * @author Miko Nukka
+ */
+public final class Murmur3Hash128 implements IHashFunction128 {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    // Own buffer of hash32, so it does not overwrite a DoubleHashProbe the calling thread is still using
+    private static final ThreadLocal<long[]> THREAD_HASH = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final int seed;
+
+    /**
+     * Create hash function seeded with {@link IHashFunction#getSeed()}.
+     */
+    public Murmur3Hash128() {
+        this(IHashFunction.getSeed());
+    }
+
+    public Murmur3Hash128(int seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public int hash32(byte[] input, int maxBitPos) {
+        return hash32(input, 0, input.length, maxBitPos);
+    }
+
+    @Override
+    public int hash32(byte[] input, int offset, int length, int maxBitPos) {
+        final long[] hash = THREAD_HASH.get();
+        hash128(input, offset, length, hash);
+        return DoubleHashProbe.reduce((int) hash[0], maxBitPos);
+    }
+
+    @Override
+    public void hash128(byte[] input, int offset, int length, long[] result) {
+        long h1 = seed & 0xFFFFFFFFL;
+        long h2 = seed & 0xFFFFFFFFL;
+        final int blockEnd = offset + (length & ~15);
+
+        for (int i = offset; i < blockEnd; i += 16) {
+            long k1 = getLong(input, i);
+            long k2 = getLong(input, i + 8);
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15:
+                k2 ^= (input[blockEnd + 14] & 0xFFL) << 48;
+            case 14:
+                k2 ^= (input[blockEnd + 13] & 0xFFL) << 40;
+            case 13:
+                k2 ^= (input[blockEnd + 12] & 0xFFL) << 32;
+            case 12:
+                k2 ^= (input[blockEnd + 11] & 0xFFL) << 24;
+            case 11:
+                k2 ^= (input[blockEnd + 10] & 0xFFL) << 16;
+            case 10:
+                k2 ^= (input[blockEnd + 9] & 0xFFL) << 8;
+            case 9:
+                k2 ^= input[blockEnd + 8] & 0xFFL;
+                k2 *= C2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= C1;
+                h2 ^= k2;
+            case 8:
+                k1 ^= (input[blockEnd + 7] & 0xFFL) << 56;
+            case 7:
+                k1 ^= (input[blockEnd + 6] & 0xFFL) << 48;
+            case 6:
+                k1 ^= (input[blockEnd + 5] & 0xFFL) << 40;
+            case 5:
+                k1 ^= (input[blockEnd + 4] & 0xFFL) << 32;
+            case 4:
+                k1 ^= (input[blockEnd + 3] & 0xFFL) << 24;
+            case 3:
+                k1 ^= (input[blockEnd + 2] & 0xFFL) << 16;
+            case 2:
+                k1 ^= (input[blockEnd + 1] & 0xFFL) << 8;
+            case 1:
+                k1 ^= input[blockEnd] & 0xFFL;
+                k1 *= C1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= C2;
+                h1 ^= k1;
+            default:
+                break;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        result[0] = h1;
+        result[1] = h2;
+    }
+
+    @Override
+    public int getId() {
+        return HashFunctions.MURMUR3_128;
+    }
+
+    @Override
+    public int getHashSeed() {
+        return seed;
+    }
+
+    /**
+     * Finalization mix of MurmurHash3, every input bit affects every output bit.
+     *
+     * Good enough to hash a single primitive on its own, see {@code LongBloomFilter}.
+     *
+     * @param k the value
+     * @return the mixed value
+     */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLong(byte[] input, int index) {
+        return (input[index] & 0xFFL)
+                | (input[index + 1] & 0xFFL) << 8
+                | (input[index + 2] & 0xFFL) << 16
+                | (input[index + 3] & 0xFFL) << 24
+                | (input[index + 4] & 0xFFL) << 32
+                | (input[index + 5] & 0xFFL) << 40
+                | (input[index + 6] & 0xFFL) << 48
+                | (input[index + 7] & 0xFFL) << 56;
+    }
+}
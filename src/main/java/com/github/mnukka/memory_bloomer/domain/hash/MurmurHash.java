@@ -4,8 +4,33 @@ package com.github.mnukka.memory_bloomer.domain.hash;
 import com.github.hasher.mnukka.api.MurmurHash3;
 
 public final class MurmurHash implements IHashFunction {
+    private final int seed;
+
+    public MurmurHash() {
+        this(IHashFunction.getSeed());
+    }
+
+    public MurmurHash(int seed) {
+        this.seed = seed;
+    }
+
     @Override
     public int hash32(byte[] input, int maxBitPos) {
-        return Math.abs(MurmurHash3.hash32x86(input, 0, input.length, IHashFunction.getSeed()) % maxBitPos);
+        return hash32(input, 0, input.length, maxBitPos);
+    }
+
+    @Override
+    public int hash32(byte[] input, int offset, int length, int maxBitPos) {
+        return DoubleHashProbe.reduce(MurmurHash3.hash32x86(input, offset, length, seed), maxBitPos);
+    }
+
+    @Override
+    public int getId() {
+        return HashFunctions.MURMUR_32;
+    }
+
+    @Override
+    public int getHashSeed() {
+        return seed;
     }
 }
@@ -0,0 +1,22 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+/**
+ * Scalar long hash kernel.
+ * <p>
+ * Hashes one key after another with {@link Murmur3Hash128#fmix64(long)}. Runs on every Java 11 runtime
+ * and is the reference other kernels are checked against.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+final class ScalarLongHashKernel implements LongHashKernel {
+
+    @Override
+    public void hash(long[] keys, int from, int count, long seedMix, long[] h1, long[] h2) {
+        for (int i = 0; i < count; i++) {
+            final long first = Murmur3Hash128.fmix64(keys[from + i] ^ seedMix);
+            h1[i] = first;
+            h2[i] = Murmur3Hash128.fmix64(first + GOLDEN_GAMMA);
+        }
+    }
+}
@@ -3,11 +3,35 @@ package com.github.mnukka.memory_bloomer.domain.hash;
 import com.github.hasher.mnukka.api.SpookyHash32;
 
 public final class SpookyHash implements IHashFunction {
+    private static final ThreadLocal<long[]> SEED = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final int seed;
+
+    public SpookyHash() {
+        this(IHashFunction.getSeed());
+    }
+
+    public SpookyHash(int seed) {
+        this.seed = seed;
+    }
 
     @Override
     public int hash32(byte[] input, int maxBitPos) {
-        long[] seed = new long[]{IHashFunction.getSeed(), IHashFunction.getSeed()};
-        long bit = SpookyHash32.hash(input, seed) % maxBitPos;
-        return (int) Math.abs(bit);
+        // refilled on every call, so nothing written back into the array leaks into the next hash
+        final long[] seeds = SEED.get();
+        seeds[0] = seed;
+        seeds[1] = seed;
+        final long hash = SpookyHash32.hash(input, seeds);
+        return DoubleHashProbe.reduce((int) hash, maxBitPos);
+    }
+
+    @Override
+    public int getId() {
+        return HashFunctions.SPOOKY_32;
+    }
+
+    @Override
+    public int getHashSeed() {
+        return seed;
     }
 }
@@ -0,0 +1,78 @@
+package com.github.mnukka.memory_bloomer.domain.stats;
+
+/**
+ * Cache stats.
+ *
+ * Point in time copy of the statistics of an {@link InstrumentedMemoryCache}.
+ *
+ * @author Miko Nukka
+ */
+public final class CacheStats {
+    private final long lookupCount;
+    private final long positiveCount;
+    private final long buildDurationNanos;
+    private final long bitmapSize;
+    private final long bitCount;
+    private final double collisionProbability;
+    private final double estimatedCollisionProbability;
+
+    CacheStats(long lookupCount, long positiveCount, long buildDurationNanos, long bitmapSize, long bitCount,
+               double collisionProbability, double estimatedCollisionProbability) {
+        this.lookupCount = lookupCount;
+        this.positiveCount = positiveCount;
+        this.buildDurationNanos = buildDurationNanos;
+        this.bitmapSize = bitmapSize;
+        this.bitCount = bitCount;
+        this.collisionProbability = collisionProbability;
+        this.estimatedCollisionProbability = estimatedCollisionProbability;
+    }
+
+    public long getLookupCount() {
+        return lookupCount;
+    }
+
+    public long getPositiveCount() {
+        return positiveCount;
+    }
+
+    public long getNegativeCount() {
+        return lookupCount - positiveCount;
+    }
+
+    public long getBuildDurationNanos() {
+        return buildDurationNanos;
+    }
+
+    public long getBitmapSize() {
+        return bitmapSize;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public double getFillRatio() {
+        return bitmapSize == 0 ? 0 : bitCount / (double) bitmapSize;
+    }
+
+    public double getCollisionProbability() {
+        return collisionProbability;
+    }
+
+    public double getEstimatedCollisionProbability() {
+        return estimatedCollisionProbability;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{"
+                + "lookupCount=" + lookupCount
+                + ", positiveCount=" + positiveCount
+                + ", buildDurationNanos=" + buildDurationNanos
+                + ", bitmapSize=" + bitmapSize
+                + ", bitCount=" + bitCount
+                + ", collisionProbability=" + collisionProbability
+                + ", estimatedCollisionProbability=" + estimatedCollisionProbability
+                + '}';
+    }
+}
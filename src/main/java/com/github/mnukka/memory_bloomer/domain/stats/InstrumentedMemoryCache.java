@@ -0,0 +1,191 @@
+package com.github.mnukka.memory_bloomer.domain.stats;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumented memory cache.
+ * <p>
+ * Wraps a memory cache and counts lookups and their answers. Counters are {@link LongAdder}s,
+ * so threads looking up keys at the same time do not contend on a shared counter.
+ * When the wrapped cache implements {@link IFilterStatistics} its fill and estimated collision probability are reported too,
+ * which tells a filter is saturated before the false positives show up downstream.
+ * </p>
+ *
+ * <p>Statistics can be polled with {@link #getStats()} or published as a JMX MXBean with {@link #register(String)}.</p>
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public final class InstrumentedMemoryCache<T> implements IMemoryCache<T>, MemoryCacheStatsMXBean {
+    private static final String JMX_DOMAIN = "com.github.mnukka.memory_bloomer";
+
+    private final IMemoryCache<T> cache;
+    private final IFilterStatistics statistics;
+    private final long buildDurationNanos;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private volatile ObjectName objectName;
+
+    /**
+     * Instrument cache.
+     *
+     * @param cache the cache
+     */
+    public InstrumentedMemoryCache(IMemoryCache<T> cache) {
+        this(cache, 0);
+    }
+
+    /**
+     * Instrument cache which took given time to build.
+     *
+     * @param cache              the cache
+     * @param buildDurationNanos the build duration in nanoseconds
+     */
+    public InstrumentedMemoryCache(IMemoryCache<T> cache, long buildDurationNanos) {
+        if (cache == null) {
+            throw new NullPointerException("InstrumentedMemoryCache must be provided with non-null cache");
+        }
+        this.cache = cache;
+        this.statistics = cache instanceof IFilterStatistics ? (IFilterStatistics) cache : null;
+        this.buildDurationNanos = buildDurationNanos;
+    }
+
+    @Override
+    public boolean isKeyPresent(T key) {
+        final boolean present = cache.isKeyPresent(key);
+        lookups.increment();
+        if (present) {
+            positives.increment();
+        }
+        return present;
+    }
+
+    @Override
+    public void isKeysPresent(List<? extends T> keys, boolean[] result) {
+        cache.isKeysPresent(keys, result);
+        final int size = keys.size();
+        int present = 0;
+        for (int i = 0; i < size; i++) {
+            if (result[i]) {
+                present++;
+            }
+        }
+        lookups.add(size);
+        positives.add(present);
+    }
+
+    /**
+     * Gets the wrapped cache.
+     *
+     * @return the cache
+     */
+    public IMemoryCache<T> getCache() {
+        return cache;
+    }
+
+    /**
+     * Copy current statistics.
+     *
+     * @return the stats
+     */
+    public CacheStats getStats() {
+        // Positives are read first, so a lookup finishing in between can not make negatives go below zero
+        final long positiveCount = positives.sum();
+        final long lookupCount = lookups.sum();
+        return new CacheStats(lookupCount, positiveCount, buildDurationNanos, getBitmapSize(), getBitCount(),
+                getCollisionProbability(), getEstimatedCollisionProbability());
+    }
+
+    /**
+     * Register statistics in the platform MBean server under
+     * <i>com.github.mnukka.memory_bloomer:type=MemoryCache,name=&lt;name&gt;</i>.
+     *
+     * @param name name of the cache, unique within the JVM
+     * @return the cache
+     * @throws IllegalStateException if registration fails, e.g. because the name is already taken
+     */
+    public InstrumentedMemoryCache<T> register(String name) {
+        try {
+            final ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=MemoryCache,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+            return this;
+        } catch (JMException exception) {
+            throw new IllegalStateException("Could not register cache " + name + " in MBean server: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Remove statistics from the platform MBean server, does nothing if they were not registered.
+     *
+     * @throws IllegalStateException if unregistering fails
+     */
+    public void unregister() {
+        final ObjectName objectName = this.objectName;
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            this.objectName = null;
+        } catch (JMException exception) {
+            throw new IllegalStateException("Could not unregister " + objectName + " from MBean server: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getPositiveCount() {
+        return positives.sum();
+    }
+
+    @Override
+    public long getNegativeCount() {
+        final long positiveCount = positives.sum();
+        return lookups.sum() - positiveCount;
+    }
+
+    @Override
+    public long getBuildDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(buildDurationNanos);
+    }
+
+    @Override
+    public long getBitmapSize() {
+        return statistics == null ? 0 : statistics.getProperties().getBitmapSize();
+    }
+
+    @Override
+    public long getBitCount() {
+        return statistics == null ? 0 : statistics.getBitCount();
+    }
+
+    @Override
+    public double getFillRatio() {
+        final long bitmapSize = getBitmapSize();
+        return bitmapSize == 0 ? 0 : getBitCount() / (double) bitmapSize;
+    }
+
+    @Override
+    public double getCollisionProbability() {
+        return statistics == null ? 0 : statistics.getProperties().getCollisionProbability();
+    }
+
+    @Override
+    public double getEstimatedCollisionProbability() {
+        return statistics == null ? 0 : statistics.getEstimatedCollisionProbability();
+    }
+}
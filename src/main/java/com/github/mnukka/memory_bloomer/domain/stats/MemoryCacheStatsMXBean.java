@@ -0,0 +1,45 @@
+package com.github.mnukka.memory_bloomer.domain.stats;
+
+/**
+ * The interface Memory cache stats MXBean.
+ *
+ * Statistics of an {@link InstrumentedMemoryCache} as seen through JMX.
+ * Filter related values are zero when the wrapped cache does not report them.
+ *
+ * @author Miko Nukka
+ */
+public interface MemoryCacheStatsMXBean {
+
+    long getLookupCount();
+
+    long getPositiveCount();
+
+    long getNegativeCount();
+
+    long getBuildDurationMillis();
+
+    long getBitmapSize();
+
+    long getBitCount();
+
+    /**
+     * Share of bits in use, in range [0, 1].
+     *
+     * @return the fill ratio
+     */
+    double getFillRatio();
+
+    /**
+     * Collision probability the filter was built for.
+     *
+     * @return the collision probability
+     */
+    double getCollisionProbability();
+
+    /**
+     * Collision probability at the current fill of the filter, alert when it grows past {@link #getCollisionProbability()}.
+     *
+     * @return the estimated collision probability
+     */
+    double getEstimatedCollisionProbability();
+}
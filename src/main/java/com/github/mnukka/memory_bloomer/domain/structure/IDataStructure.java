@@ -1,9 +1,12 @@
 package com.github.mnukka.memory_bloomer.domain.structure;
 
 import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
 import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The interface Data structure.
@@ -17,9 +20,65 @@ public interface IDataStructure<T> {
     /**
      * Create memory cache.
      *
+     * Keys are encoded with {@link DefaultKeyEncoder}.
+     *
+     * @param hashingMethods the hashing methods
+     * @param input          the input
+     * @return the memory cache
+     */
+    default IMemoryCache createCache(List<IHashFunction> hashingMethods, List<T> input) {
+        return createCache(hashingMethods, new DefaultKeyEncoder(), input);
+    }
+
+    /**
+     * Create memory cache.
+     *
+     * @param hashingMethods the hashing methods
+     * @param keyEncoder     the encoder turning keys into bytes for hashing methods
+     * @param input          the input
+     * @return the memory cache
+     */
+    IMemoryCache createCache(List<IHashFunction> hashingMethods, IKeyEncoder<? super T> keyEncoder, List<T> input);
+
+    /**
+     * Create memory cache by hashing input on the workers of given pool.
+     *
+     * Data structures which can not be built in parallel ignore the pool and build on the calling thread.
+     * Hashing methods and key encoder are then called from many threads at once and have to be thread-safe.
+     *
+     * @param hashingMethods the hashing methods
+     * @param keyEncoder     the encoder turning keys into bytes for hashing methods
+     * @param input          the input
+     * @param pool           the pool to build on
+     * @return the memory cache
+     */
+    default IMemoryCache createCache(List<IHashFunction> hashingMethods, IKeyEncoder<? super T> keyEncoder, List<T> input, ForkJoinPool pool) {
+        return createCache(hashingMethods, keyEncoder, input);
+    }
+
+    /**
+     * Create memory cache from keys which are not held in a list, see {@link IKeySource}.
+     *
+     * @param hashingMethods the hashing methods
+     * @param keyEncoder     the encoder turning keys into bytes for hashing methods
+     * @param input          the input
+     * @return the memory cache
+     */
+    IMemoryCache createCache(List<IHashFunction> hashingMethods, IKeyEncoder<? super T> keyEncoder, IKeySource<? extends T> input);
+
+    /**
+     * Create memory cache from keys which are not held in a list, hashing them on the workers of given pool.
+     *
+     * Data structures which can not be built in parallel ignore the pool and build on the calling thread.
+     *
      * @param hashingMethods the hashing methods
+     * @param keyEncoder     the encoder turning keys into bytes for hashing methods
      * @param input          the input
+     * @param pool           the pool to build on
      * @return the memory cache
      */
-    IMemoryCache createCache(List<IHashFunction> hashingMethods, List<T> input);
+    default IMemoryCache createCache(List<IHashFunction> hashingMethods, IKeyEncoder<? super T> keyEncoder,
+                                     IKeySource<? extends T> input, ForkJoinPool pool) {
+        return createCache(hashingMethods, keyEncoder, input);
+    }
 }
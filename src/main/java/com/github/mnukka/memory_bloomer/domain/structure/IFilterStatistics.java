@@ -0,0 +1,35 @@
+package com.github.mnukka.memory_bloomer.domain.structure;
+
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomProperties;
+
+/**
+ * The interface Filter statistics.
+ *
+ * Implemented by filters which can tell how full they are. Bit count and estimated collision probability
+ * follow the actual content of the filter, unlike the configured values in {@link BloomProperties}.
+ *
+ * @author Miko Nukka
+ */
+public interface IFilterStatistics {
+
+    /**
+     * Gets properties the filter was built with.
+     *
+     * @return the properties
+     */
+    BloomProperties getProperties();
+
+    /**
+     * Number of bits in use, out of {@link BloomProperties#getBitmapSize()}.
+     *
+     * @return the bit count
+     */
+    long getBitCount();
+
+    /**
+     * Collision probability at the current fill of the filter.
+     *
+     * @return the estimated collision probability
+     */
+    double getEstimatedCollisionProbability();
+}
@@ -0,0 +1,40 @@
+package com.github.mnukka.memory_bloomer.domain.structure;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * The interface Key source.
+ *
+ * Keys which are not held in a list, for example keys read straight from a file.
+ * A key handed to the action may be a reused object which is only valid until the action returns,
+ * data structures hash it right away and never keep it.
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public interface IKeySource<T> {
+
+    /**
+     * Number of keys, used to size the data structure before the keys are visited.
+     *
+     * @return the number of keys
+     */
+    long size();
+
+    /**
+     * Visit every key on the calling thread.
+     *
+     * @param action the action
+     */
+    void forEach(Consumer<? super T> action);
+
+    /**
+     * Visit every key on the workers of given pool, the action is called from many threads at once.
+     *
+     * @param pool   the pool
+     * @param action thread-safe action
+     */
+    void forEach(ForkJoinPool pool, Consumer<? super T> action);
+}
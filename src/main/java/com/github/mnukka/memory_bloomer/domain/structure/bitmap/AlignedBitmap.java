@@ -0,0 +1,106 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Cache line aligned bitmap.
+ * <p>
+ * Bitmap in direct memory starting at a cache line boundary, so every aligned block of 512 bits lies in one cache line.
+ * The JVM only aligns a long[] to 8 bytes, which leaves most 64 byte blocks of a heap array straddling two lines.
+ * Direct memory does not move, unlike heap arrays, so the alignment holds for the lifetime of the bitmap.
+ * </p>
+ *
+ * <p>Bits are set with an atomic OR on the word and read with acquire semantics,
+ * so the bitmap can be filled from many threads at once.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class AlignedBitmap implements IBitmap {
+    /**
+     * Size of cache line the bitmap is aligned to.
+     */
+    public static final int CACHE_LINE_BYTES = 64;
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int REGION_WORD_SHIFT = 27;
+
+    private final ByteBuffer[] regions;
+    private final int regionWordShift;
+    private final long regionWordMask;
+    private final long bitSize;
+    private final long wordCount;
+
+    /**
+     * Create bitmap with all bits cleared.
+     *
+     * @param bitSize number of addressable bits
+     * @throws IllegalArgumentException if <i>bitSize</i> is not positive
+     */
+    public AlignedBitmap(long bitSize) {
+        this(bitSize, REGION_WORD_SHIFT);
+    }
+
+    AlignedBitmap(long bitSize, int regionWordShift) {
+        if (bitSize < 1) {
+            throw new IllegalArgumentException("Bitmap must hold at least one bit");
+        }
+        this.bitSize = bitSize;
+        this.wordCount = (bitSize + 63) >>> 6;
+        this.regionWordShift = regionWordShift;
+        this.regionWordMask = (1L << regionWordShift) - 1;
+        final long regionWords = 1L << regionWordShift;
+        final int regionCount = (int) ((wordCount + regionWords - 1) >>> regionWordShift);
+        regions = new ByteBuffer[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            final long words = Math.min(regionWords, wordCount - i * regionWords);
+            final int bytes = (int) ((words << 3) + CACHE_LINE_BYTES - 1) & -CACHE_LINE_BYTES;
+            // Regions are whole cache lines, so a block never spans two of them
+            regions[i] = ByteBuffer.allocateDirect(bytes + CACHE_LINE_BYTES - 1).alignedSlice(CACHE_LINE_BYTES);
+        }
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public boolean get(long bitIndex) {
+        return (getWord(bitIndex >>> 6) & (1L << bitIndex)) != 0;
+    }
+
+    @Override
+    public void set(long bitIndex) {
+        final long wordIndex = bitIndex >>> 6;
+        WORDS.getAndBitwiseOr(region(wordIndex), offset(wordIndex), 1L << bitIndex);
+    }
+
+    @Override
+    public long wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return (long) WORDS.getAcquire(region(wordIndex), offset(wordIndex));
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (long i = 0; i < wordCount; i++) {
+            count += Long.bitCount(getWord(i));
+        }
+        return count;
+    }
+
+    private ByteBuffer region(long wordIndex) {
+        return regions[(int) (wordIndex >>> regionWordShift)];
+    }
+
+    private int offset(long wordIndex) {
+        return (int) (wordIndex & regionWordMask) << 3;
+    }
+}
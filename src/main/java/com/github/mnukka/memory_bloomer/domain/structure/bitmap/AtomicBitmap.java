@@ -0,0 +1,125 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Atomic bitmap.
+ * <p>
+ * Paged bitmap, same layout as {@link PagedBitmap}, which can be written and read by many threads without locks.
+ * Bits are set with an atomic OR on the word ({@link VarHandle#getAndBitwiseOr(Object...)}),
+ * so concurrent writers never lose each other's bits, and read with acquire semantics.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+public final class AtomicBitmap implements IBitmap {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int PAGE_SHIFT = PagedBitmap.PAGE_SHIFT;
+    private static final int PAGE_MASK = PagedBitmap.PAGE_WORDS - 1;
+
+    private final long[][] pages;
+    private final long bitSize;
+    private final long wordCount;
+
+    /**
+     * Create bitmap with all bits cleared.
+     *
+     * @param bitSize number of addressable bits
+     * @throws IllegalArgumentException if <i>bitSize</i> is not positive or needs more pages than an array can hold
+     */
+    public AtomicBitmap(long bitSize) {
+        if (bitSize < 1) {
+            throw new IllegalArgumentException("Bitmap must hold at least one bit");
+        }
+        this.bitSize = bitSize;
+        this.wordCount = (bitSize + 63) >>> 6;
+        final long pageCount = (wordCount + PAGE_MASK) >>> PAGE_SHIFT;
+        if (pageCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bitmap of " + bitSize + " bits is too large");
+        }
+        pages = new long[(int) pageCount][];
+        for (int i = 0; i < pages.length; i++) {
+            final long remainingWords = wordCount - ((long) i << PAGE_SHIFT);
+            pages[i] = new long[(int) Math.min(PagedBitmap.PAGE_WORDS, remainingWords)];
+        }
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public boolean get(long bitIndex) {
+        return (getWord(bitIndex >>> 6) & (1L << bitIndex)) != 0;
+    }
+
+    @Override
+    public void set(long bitIndex) {
+        trySet(bitIndex);
+    }
+
+    /**
+     * Atomically set bit.
+     *
+     * @param bitIndex the bit index
+     * @return true if this call changed the bit from zero to one
+     */
+    public boolean trySet(long bitIndex) {
+        final long wordIndex = bitIndex >>> 6;
+        final long mask = 1L << bitIndex;
+        if ((getWord(wordIndex) & mask) != 0) {
+            return false;
+        }
+        final long previous = (long) WORDS.getAndBitwiseOr(pages[(int) (wordIndex >>> PAGE_SHIFT)], (int) (wordIndex & PAGE_MASK), mask);
+        return (previous & mask) == 0;
+    }
+
+    /**
+     * Atomically set bit in a flat array of words, e.g. words a {@link java.util.BitSet} is created from
+     * once many threads have set their bits.
+     *
+     * @param words    the words, bit i being bit (i % 64) of word (i / 64)
+     * @param bitIndex the bit index
+     */
+    public static void set(long[] words, long bitIndex) {
+        final int wordIndex = (int) (bitIndex >>> 6);
+        final long mask = 1L << bitIndex;
+        if (((long) WORDS.getAcquire(words, wordIndex) & mask) == 0) {
+            WORDS.getAndBitwiseOr(words, wordIndex, mask);
+        }
+    }
+
+    /**
+     * Clear every bit, one word at a time with release semantics.
+     *
+     * Readers running at the same time see a mix of cleared and not yet cleared words, never a torn word.
+     */
+    public void clear() {
+        for (long[] page : pages) {
+            for (int i = 0; i < page.length; i++) {
+                WORDS.setRelease(page, i, 0L);
+            }
+        }
+    }
+
+    @Override
+    public long wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return (long) WORDS.getAcquire(pages[(int) (wordIndex >>> PAGE_SHIFT)], (int) (wordIndex & PAGE_MASK));
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (long i = 0; i < wordCount; i++) {
+            count += Long.bitCount(getWord(i));
+        }
+        return count;
+    }
+}
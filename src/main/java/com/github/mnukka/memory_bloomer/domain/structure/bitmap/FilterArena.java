@@ -0,0 +1,189 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Filter arena.
+ * <p>
+ * Hands out {@link OffHeapBitmap}s in direct memory under a memory budget shared by all of them.
+ * Memory is reserved against the budget on {@link #allocate(long)} and given back on {@link #release(OffHeapBitmap)}.
+ * Bitmaps are plain direct {@link ByteBuffer}s, no Unsafe is involved: a released bitmap stays readable
+ * by lookups which still hold it and its memory is freed once the buffer becomes unreachable.
+ * </p>
+ *
+ * <p>Owners of bitmaps which can give memory back on demand, e.g. registries spilling cold filters to disk,
+ * register an {@link Evictor}. {@link #allocateEvicting(long)} then asks all of them in turn to evict a bitmap
+ * until the new one fits, so owners sharing the arena make room for each other.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class FilterArena {
+    private static final long EVICTION_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long EVICTION_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final long budgetBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final List<Evictor> evictors = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextEvictor = new AtomicInteger();
+
+    /**
+     * Owner of bitmaps of the arena which can release one of them on demand.
+     */
+    @FunctionalInterface
+    public interface Evictor {
+
+        /**
+         * Release a bitmap back to the arena.
+         *
+         * @return true if a bitmap was released, false if there was none which could be released right now
+         */
+        boolean evict();
+    }
+
+    /**
+     * Create arena.
+     *
+     * @param budgetBytes maximum number of bytes of all bitmaps allocated and not yet released
+     * @throws IllegalArgumentException if <i>budgetBytes</i> is not positive
+     */
+    public FilterArena(long budgetBytes) {
+        if (budgetBytes < 1) {
+            throw new IllegalArgumentException("Arena budget must be positive");
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Allocate bitmap with all bits cleared, if it fits into the budget.
+     *
+     * @param bitSize number of addressable bits
+     * @return the bitmap or null if the budget does not have room for it
+     * @throws IllegalArgumentException if <i>bitSize</i> is not positive
+     */
+    public OffHeapBitmap allocate(long bitSize) {
+        if (bitSize < 1) {
+            throw new IllegalArgumentException("Bitmap must hold at least one bit");
+        }
+        final long bytes = OffHeapBitmap.byteSize(bitSize);
+        long used;
+        do {
+            used = usedBytes.get();
+            if (used + bytes > budgetBytes) {
+                return null;
+            }
+        } while (!usedBytes.compareAndSet(used, used + bytes));
+
+        try {
+            final long wordCount = bytes >>> 3;
+            final int regionCount = (int) ((wordCount + OffHeapBitmap.REGION_WORDS - 1) / OffHeapBitmap.REGION_WORDS);
+            final ByteBuffer[] regions = new ByteBuffer[regionCount];
+            for (int i = 0; i < regionCount; i++) {
+                final long words = Math.min(OffHeapBitmap.REGION_WORDS, wordCount - i * OffHeapBitmap.REGION_WORDS);
+                regions[i] = ByteBuffer.allocateDirect((int) (words << 3));
+            }
+            return new OffHeapBitmap(regions, bitSize);
+        } catch (OutOfMemoryError e) {
+            usedBytes.addAndGet(-bytes);
+            throw e;
+        }
+    }
+
+    /**
+     * Allocate bitmap with all bits cleared, asking registered evictors to release bitmaps until it fits into the budget.
+     *
+     * Evictors are asked one at a time, each call starting with the next one. An evictor which has nothing to release
+     * right now may have later, e.g. once a bitmap it is filling is done, so the arena keeps asking for a while
+     * before it gives up.
+     *
+     * @param bitSize number of addressable bits
+     * @return the bitmap
+     * @throws IllegalArgumentException if <i>bitSize</i> is not positive or the bitmap is larger than the whole budget
+     * @throws IllegalStateException if no evictor released enough memory for the bitmap
+     */
+    public OffHeapBitmap allocateEvicting(long bitSize) {
+        if (bitSize > 0 && !fits(bitSize)) {
+            throw new IllegalArgumentException("Bitmap of " + OffHeapBitmap.byteSize(bitSize)
+                    + " bytes is larger than the arena budget of " + budgetBytes + " bytes");
+        }
+        long deadline = System.nanoTime() + EVICTION_TIMEOUT_NANOS;
+        while (true) {
+            final OffHeapBitmap bitmap = allocate(bitSize);
+            if (bitmap != null) {
+                return bitmap;
+            }
+            if (evictOne()) {
+                deadline = System.nanoTime() + EVICTION_TIMEOUT_NANOS;
+            } else if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Arena is full, " + usedBytes.get() + " of " + budgetBytes
+                        + " bytes are held by bitmaps which could not be evicted");
+            } else {
+                LockSupport.parkNanos(EVICTION_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Register owner of bitmaps {@link #allocateEvicting(long)} may ask to release one of them.
+     *
+     * @param evictor the evictor
+     * @throws NullPointerException if <i>evictor</i> is not defined
+     */
+    public void register(Evictor evictor) {
+        if (evictor == null) {
+            throw new NullPointerException("register does not expect null as an argument");
+        }
+        evictors.add(evictor);
+    }
+
+    /**
+     * @param evictor evictor registered before
+     * @return true if the evictor was registered
+     */
+    public boolean unregister(Evictor evictor) {
+        return evictors.remove(evictor);
+    }
+
+    private boolean evictOne() {
+        final Object[] evictors = this.evictors.toArray();
+        final int first = Math.floorMod(nextEvictor.getAndIncrement(), Math.max(1, evictors.length));
+        for (int i = 0; i < evictors.length; i++) {
+            if (((Evictor) evictors[(first + i) % evictors.length]).evict()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Give memory of the bitmap back to the budget. The bitmap must not be released twice.
+     *
+     * @param bitmap bitmap allocated by this arena
+     */
+    public void release(OffHeapBitmap bitmap) {
+        usedBytes.addAndGet(-OffHeapBitmap.byteSize(bitmap.bitSize()));
+    }
+
+    /**
+     * Check whether a bitmap could ever be allocated, i.e. it is not larger than the whole budget.
+     *
+     * @param bitSize number of addressable bits
+     * @return true if the bitmap fits into an empty arena
+     */
+    public boolean fits(long bitSize) {
+        return OffHeapBitmap.byteSize(bitSize) <= budgetBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+}
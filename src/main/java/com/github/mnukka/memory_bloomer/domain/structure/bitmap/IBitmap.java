@@ -0,0 +1,39 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+/**
+ * The interface Bitmap.
+ *
+ * Long indexed bit array used by filters which can grow past {@link java.util.BitSet}'s 32bit limit.
+ * Bit <i>i</i> lives in word <i>i / 64</i> at position <i>i % 64</i>, same layout as {@link java.util.BitSet#toLongArray()}.
+ *
+ * @author Miko Nukka
+ */
+public interface IBitmap {
+
+    /**
+     * Number of addressable bits.
+     *
+     * @return the bit size
+     */
+    long bitSize();
+
+    boolean get(long bitIndex);
+
+    void set(long bitIndex);
+
+    /**
+     * Number of 64bit words backing the bitmap.
+     *
+     * @return the word count
+     */
+    long wordCount();
+
+    long getWord(long wordIndex);
+
+    /**
+     * Number of bits set to one.
+     *
+     * @return the cardinality
+     */
+    long cardinality();
+}
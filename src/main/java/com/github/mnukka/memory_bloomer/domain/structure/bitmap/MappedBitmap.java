@@ -0,0 +1,89 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory mapped bitmap.
+ * <p>
+ * Read-only view over 64bit little-endian words stored in a file.
+ * The file is mapped in regions of 1GiB, so bitmaps larger than a single
+ * {@link MappedByteBuffer} can address are supported as well.
+ * Pages are loaded by the operating system on first access and are shared between processes mapping the same file.
+ * </p>
+ *
+ * <p>Mapping stays valid after the channel is closed.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class MappedBitmap implements IBitmap {
+    private static final int REGION_WORD_SHIFT = 27;
+    private static final long REGION_WORDS = 1L << REGION_WORD_SHIFT;
+    private static final long REGION_WORD_MASK = REGION_WORDS - 1;
+
+    private final MappedByteBuffer[] regions;
+    private final long bitSize;
+    private final long wordCount;
+
+    /**
+     * Map bitmap from file.
+     *
+     * @param channel channel of the file, opened for reading
+     * @param offset  position of the first word in the file
+     * @param bitSize number of addressable bits
+     * @throws IOException if mapping fails
+     */
+    public MappedBitmap(FileChannel channel, long offset, long bitSize) throws IOException {
+        this.bitSize = bitSize;
+        this.wordCount = (bitSize + 63) >>> 6;
+        final long regionCount = (wordCount + REGION_WORD_MASK) >>> REGION_WORD_SHIFT;
+        regions = new MappedByteBuffer[(int) regionCount];
+        for (int i = 0; i < regions.length; i++) {
+            final long firstWord = (long) i << REGION_WORD_SHIFT;
+            final long words = Math.min(REGION_WORDS, wordCount - firstWord);
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + (firstWord << 3), words << 3);
+            regions[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public boolean get(long bitIndex) {
+        return (getWord(bitIndex >>> 6) & (1L << bitIndex)) != 0;
+    }
+
+    /**
+     * Not supported, mapped bitmap is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void set(long bitIndex) {
+        throw new UnsupportedOperationException("MappedBitmap is read-only");
+    }
+
+    @Override
+    public long wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return regions[(int) (wordIndex >>> REGION_WORD_SHIFT)].getLong((int) (wordIndex & REGION_WORD_MASK) << 3);
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (long i = 0; i < wordCount; i++) {
+            count += Long.bitCount(getWord(i));
+        }
+        return count;
+    }
+}
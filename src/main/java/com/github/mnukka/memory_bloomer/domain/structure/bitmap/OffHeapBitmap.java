@@ -0,0 +1,96 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Off-heap bitmap.
+ * <p>
+ * Bitmap in direct memory handed out by a {@link FilterArena}, same word layout as {@link MappedBitmap}.
+ * The garbage collector never scans or copies the bits, only the small buffer objects pointing at them.
+ * Bits are set with an atomic OR on the word and read with acquire semantics, like {@link AtomicBitmap}.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+public final class OffHeapBitmap implements IBitmap {
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    static final int REGION_WORD_SHIFT = 27;
+    static final long REGION_WORDS = 1L << REGION_WORD_SHIFT;
+    private static final long REGION_WORD_MASK = REGION_WORDS - 1;
+
+    private final ByteBuffer[] regions;
+    private final long bitSize;
+    private final long wordCount;
+
+    OffHeapBitmap(ByteBuffer[] regions, long bitSize) {
+        this.regions = regions;
+        this.bitSize = bitSize;
+        this.wordCount = (bitSize + 63) >>> 6;
+    }
+
+    /**
+     * Number of bytes of direct memory holding the words.
+     *
+     * @param bitSize number of addressable bits
+     * @return the byte size
+     */
+    public static long byteSize(long bitSize) {
+        return ((bitSize + 63) >>> 6) << 3;
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public boolean get(long bitIndex) {
+        return (getWord(bitIndex >>> 6) & (1L << bitIndex)) != 0;
+    }
+
+    @Override
+    public void set(long bitIndex) {
+        final long wordIndex = bitIndex >>> 6;
+        WORDS.getAndBitwiseOr(region(wordIndex), offset(wordIndex), 1L << bitIndex);
+    }
+
+    /**
+     * Overwrite whole word, e.g. when loading the bitmap from a snapshot.
+     *
+     * @param wordIndex the word index
+     * @param word      the word
+     */
+    public void setWord(long wordIndex, long word) {
+        WORDS.setRelease(region(wordIndex), offset(wordIndex), word);
+    }
+
+    @Override
+    public long wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return (long) WORDS.getAcquire(region(wordIndex), offset(wordIndex));
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (long i = 0; i < wordCount; i++) {
+            count += Long.bitCount(getWord(i));
+        }
+        return count;
+    }
+
+    private ByteBuffer region(long wordIndex) {
+        return regions[(int) (wordIndex >>> REGION_WORD_SHIFT)];
+    }
+
+    private static int offset(long wordIndex) {
+        return (int) (wordIndex & REGION_WORD_MASK) << 3;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+/**
+ * Paged bitmap.
+ * <p>
+ * Keeps the bits in fixed size long[] pages instead of one contiguous array,
+ * so multi-GiB bitmaps neither hit the array length limit
+ * nor need a single huge allocation which garbage collector would have to find room for.
+ * </p>
+ *
+ * <p>Not thread safe for writes.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class PagedBitmap implements IBitmap {
+    static final int PAGE_SHIFT = 15;
+    static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_WORDS - 1;
+
+    private final long[][] pages;
+    private final long bitSize;
+    private final long wordCount;
+
+    /**
+     * Create bitmap with all bits cleared.
+     *
+     * @param bitSize number of addressable bits
+     * @throws IllegalArgumentException if <i>bitSize</i> is not positive or needs more pages than an array can hold
+     */
+    public PagedBitmap(long bitSize) {
+        if (bitSize < 1) {
+            throw new IllegalArgumentException("Bitmap must hold at least one bit");
+        }
+        this.bitSize = bitSize;
+        this.wordCount = (bitSize + 63) >>> 6;
+        final long pageCount = (wordCount + PAGE_MASK) >>> PAGE_SHIFT;
+        if (pageCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bitmap of " + bitSize + " bits is too large");
+        }
+        pages = new long[(int) pageCount][];
+        for (int i = 0; i < pages.length; i++) {
+            final long remainingWords = wordCount - ((long) i << PAGE_SHIFT);
+            pages[i] = new long[(int) Math.min(PAGE_WORDS, remainingWords)];
+        }
+    }
+
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public boolean get(long bitIndex) {
+        final long wordIndex = bitIndex >>> 6;
+        return (pages[(int) (wordIndex >>> PAGE_SHIFT)][(int) (wordIndex & PAGE_MASK)] & (1L << bitIndex)) != 0;
+    }
+
+    @Override
+    public void set(long bitIndex) {
+        final long wordIndex = bitIndex >>> 6;
+        pages[(int) (wordIndex >>> PAGE_SHIFT)][(int) (wordIndex & PAGE_MASK)] |= 1L << bitIndex;
+    }
+
+    @Override
+    public long wordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getWord(long wordIndex) {
+        return pages[(int) (wordIndex >>> PAGE_SHIFT)][(int) (wordIndex & PAGE_MASK)];
+    }
+
+    /**
+     * Replace whole word, used to combine bitmaps word by word.
+     *
+     * @param wordIndex the word index
+     * @param word      the word
+     */
+    public void setWord(long wordIndex, long word) {
+        pages[(int) (wordIndex >>> PAGE_SHIFT)][(int) (wordIndex & PAGE_MASK)] = word;
+    }
+
+    @Override
+    public long cardinality() {
+        long count = 0;
+        for (long[] page : pages) {
+            for (long word : page) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+}
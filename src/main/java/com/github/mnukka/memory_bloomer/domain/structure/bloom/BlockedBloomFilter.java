@@ -0,0 +1,376 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashBatch;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.AlignedBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Blocked bloom filter.
+ * <p>
+ * Bitmap is split into blocks of 512 bits, which is the size of a cache line on common hardware.
+ * First half of the key's hash picks the block and all k bits of the key are set inside that block,
+ * so a lookup costs a single cache miss instead of k misses to random places of the bitmap.
+ * Bitmap is an {@link AlignedBitmap} in direct memory, as blocks of a heap array would mostly straddle two cache lines.
+ * </p>
+ *
+ * <p>Keys do not spread over blocks evenly, which makes the filter slightly less precise for the same size.
+ * Bitmap is therefore sized with {@link BloomMath#optimalBlockedBits(int, long, double, int)}
+ * and ends up a few percent larger than the one of {@link BloomFilter64}.</p>
+ *
+ * @param <T> the type parameter for elements which are to be hashed within bitmap of bloom filter
+ * @see <a href="https://algo2.iti.kit.edu/documents/cacheefficientbloomfilters-jea.pdf">Cache-, Hash- and Space-Efficient Bloom Filters</a>
+ *
+ * @author Miko Nukka
+ */
+public final class BlockedBloomFilter<T> implements IDataStructure<T>, IMemoryCache<T>, IFilterStatistics {
+    private static final int BLOCK_SHIFT = 9;
+    static final int BLOCK_BITS = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_WORD_SHIFT = 3;
+    private static final long[] SALTS = createSalts();
+    private static final double COLLISION_PROBABILITY = 0.005;
+
+    private IBitmap bitMap;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private long blockCount;
+    private int hashFunctionCount;
+    private long bitCount;
+    private final BloomProperties properties = new BloomProperties();
+    private final double collisionProbability;
+    private final int configuredHashFunctionCount;
+
+    /**
+     * Create blocked bloom filter with collision probability of p=0.005.
+     */
+    public BlockedBloomFilter() {
+        this(COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create blocked bloom filter with given collision probability.
+     *
+     * @param collisionProbability the collision probability, in range (0, 1)
+     */
+    public BlockedBloomFilter(double collisionProbability) {
+        this(collisionProbability, 0);
+    }
+
+    /**
+     * Create blocked bloom filter with given collision probability and number of bits set per key.
+     *
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @param hashFunctionCount    number of bits set per key, 0 picks the optimal count for collision probability
+     * @throws IllegalArgumentException if <i>collisionProbability</i> or <i>hashFunctionCount</i> is out of range
+     */
+    public BlockedBloomFilter(double collisionProbability, int hashFunctionCount) {
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        if (hashFunctionCount < 0 || hashFunctionCount > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+            throw new IllegalArgumentException("Hash function count must be in range [0, " + BloomMath.MAX_HASH_FUNCTION_COUNT + "]");
+        }
+        this.collisionProbability = collisionProbability;
+        this.configuredHashFunctionCount = hashFunctionCount;
+    }
+
+    /**
+     * Create blocked bloom filter cache
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            input of data to be hashed and stored in bitmap
+     * @return instance of BlockedBloomFilter
+     * @throws NullPointerException if <i>hashFunctionList</i>, <i>keyEncoder</i> or <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> list does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        return createCache(hashFunctionList, keyEncoder, input.iterator(), input.size());
+    }
+
+    /**
+     * Create blocked bloom filter cache from input which does not fit into a list.
+     *
+     * @param hashFunctionList   single 128bit hash function
+     * @param keyEncoder         encoder which turns elements into bytes for hash function
+     * @param input              iterator over data to be hashed and stored in bitmap
+     * @param expectedInsertions number of elements the bitmap is sized for
+     * @return instance of BlockedBloomFilter
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>expectedInsertions</i> is not positive
+     */
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final Iterator<? extends T> input, final long expectedInsertions) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, expectedInsertions);
+        createBitmap(expectedInsertions);
+        populateBitmap(input);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Create blocked bloom filter cache by hashing input on the workers of given pool.
+     *
+     * Workers set bits in the shared {@link AlignedBitmap} with an atomic OR.
+     *
+     * @param hashFunctionList single thread-safe 128bit hash function
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash function
+     * @param input            input of data to be hashed and stored in bitmap
+     * @param pool             the pool to build on
+     * @return instance of BlockedBloomFilter
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> list does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final List<T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input.size());
+        ParallelBuild.forEach(pool, input, this::setBits);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Create blocked bloom filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            the keys, bitmap is sized by their count
+     * @return instance of BlockedBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input.size());
+        input.forEach(this::setBits);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Create blocked bloom filter cache from keys which are not held in a list, hashing them on the workers of given pool.
+     *
+     * @param hashFunctionList single thread-safe 128bit hash function
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash function
+     * @param input            the keys, bitmap is sized by their count
+     * @param pool             the pool to build on
+     * @return instance of BlockedBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input.size());
+        input.forEach(pool, this::setBits);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Check if value is present in the bitmap for blocked bloom filter
+     *
+     * @param input key to check which was previously stored in the
+     * bitmap during the createCache call
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        if (hashFunction == null || bitMap == null) {
+            throw new IllegalStateException("BlockedBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        if (input == null) {
+            throw new NullPointerException("isKeyPresent does not expect null as an argument");
+        }
+
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, input);
+        final long firstWord = DoubleHashProbe.reduce(probe.h1(), blockCount) << BLOCK_WORD_SHIFT;
+        final long blockHash = probe.h2();
+        for (int i = 0; i < hashFunctionCount; i++) {
+            final int bit = bitInBlock(blockHash, i);
+            if ((bitMap.getWord(firstWord + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check many keys at once.
+     *
+     * Keys are hashed {@link DoubleHashBatch#SIZE} at a time, then the bitmap is probed for the first bit of every key in the batch,
+     * then for the second one and so on, so memory loads of independent keys overlap.
+     *
+     * @param keys   the keys
+     * @param result array receiving result of {@link #isKeyPresent(Object)} for each key at the index of the key
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException if <i>keys</i>, <i>result</i> or any of the keys is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    @Override
+    public void isKeysPresent(final List<? extends T> keys, final boolean[] result) {
+        if (hashFunction == null || bitMap == null) {
+            throw new IllegalStateException("BlockedBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        BloomLookup.isKeysPresent(keys, result, hashFunction, keyEncoder, hashFunctionCount,
+                (batch, slot, i) -> isBlockBitSet(batch.h1(slot), batch.h2(slot), i));
+    }
+
+    /**
+     * Gets properties for currently built bloom filter.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Number of bits set in the bitmap, counted once the filter has been built.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Collision probability at the fill of the built bitmap.
+     *
+     * Number of keys is estimated from the fill first, then run through the blocked model,
+     * as uneven fill of blocks makes <i>(bits set / m)<sup>k</sup></i> too optimistic.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        if (bitMap == null) {
+            return 0;
+        }
+        final long bitmapSize = bitMap.bitSize();
+        final double elements = BloomMath.estimateElementCount(hashFunctionCount, bitCount, bitmapSize);
+        return BloomMath.findBlockedCollisionProbability(hashFunctionCount, Math.round(elements), bitmapSize, BLOCK_BITS);
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final long expectedInsertions) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("BlockedBloomFilter must be provided a single IHashFunction128");
+        }
+
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Bloom filter must be provided at least one item to be stored in the cache");
+        }
+
+        this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+        this.keyEncoder = keyEncoder;
+        this.hashFunctionCount = configuredHashFunctionCount != 0
+                ? configuredHashFunctionCount
+                : BloomMath.optimalBlockedHashFunctionCount(collisionProbability, BLOCK_BITS);
+    }
+
+    private void createBitmap(final long expectedInsertions) {
+        final double bits = BloomMath.optimalBlockedBits(hashFunctionCount, expectedInsertions, collisionProbability, BLOCK_BITS);
+        blockCount = Math.max(1L, (long) Math.ceil(bits / BLOCK_BITS));
+        final long bitmapSize = blockCount * BLOCK_BITS;
+        bitMap = new AlignedBitmap(bitmapSize);
+
+        properties.setCollisionProbability(collisionProbability);
+        properties.setBitmapSize(bitmapSize);
+        properties.setHashFunctionCount(hashFunctionCount);
+        properties.setSeed(hashFunction.getHashSeed());
+    }
+
+    private void populateBitmap(final Iterator<? extends T> input) {
+        while (input.hasNext()) {
+            final T element = input.next();
+            if (element == null) {
+                throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+            }
+            setBits(element);
+        }
+    }
+
+    private void setBits(final T element) {
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, element);
+        final long firstBit = DoubleHashProbe.reduce(probe.h1(), blockCount) * BLOCK_BITS;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            bitMap.set(firstBit + bitInBlock(probe.h2(), i));
+        }
+    }
+
+    private boolean isBlockBitSet(final long h1, final long h2, final int i) {
+        final long firstWord = DoubleHashProbe.reduce(h1, blockCount) << BLOCK_WORD_SHIFT;
+        final int bit = bitInBlock(h2, i);
+        return (bitMap.getWord(firstWord + (bit >>> 6)) & (1L << bit)) != 0;
+    }
+
+    // Multiplying by a different odd salt per bit and keeping the top 9 bits spreads bits far better
+    // than double hashing modulo block size, which only has 9 bit wide inputs to vary.
+    private static int bitInBlock(final long blockHash, final int i) {
+        return (int) ((blockHash * SALTS[i]) >>> (Long.SIZE - BLOCK_SHIFT));
+    }
+
+    private static long[] createSalts() {
+        final long[] salts = new long[BloomMath.MAX_HASH_FUNCTION_COUNT];
+        long state = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < salts.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long salt = state;
+            salt = (salt ^ (salt >>> 30)) * 0xBF58476D1CE4E5B9L;
+            salt = (salt ^ (salt >>> 27)) * 0x94D049BB133111EBL;
+            salts[i] = (salt ^ (salt >>> 31)) | 1L;
+        }
+        return salts;
+    }
+}
@@ -1,18 +1,23 @@
 package com.github.mnukka.memory_bloomer.domain.structure.bloom;
 
 import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashBatch;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
 import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
 import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
-import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.AtomicBitmap;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 
 /**
@@ -28,38 +33,165 @@ import java.util.stream.Stream;
  * </p>
  *
  * <p>This implementation of Bloom filter creates bitmap with
- * collision probability of p=0.005. It comes with a <i>naive</i>
+ * collision probability of p=0.005 unless configured otherwise. It comes with a <i>naive</i>
  * assumption that underlying hashing algorithms distribute data uniformly.</p>
  *
+ * <p>When the filter is given a single {@link IHashFunction128}, every key is hashed once
+ * and k bit positions are derived from that hash with {@link DoubleHashProbe}.
+ * k is then either the configured hash function count or the optimal one for the collision probability.
+ * With any other hash functions each of them is called once per key, so k equals the number of hash functions.</p>
+ *
  * @param <T> the type parameter for elements which are to be hashed within bitmap of bloom filter
  * @apiNote This is 32bit bloom filter, meaning maximum number of bits that can be stored is equal to Integer.MAX_VALUE.
- * In laymen terms this means that in order to have collision probability of 0.005 satisfied,
+ * In laymen terms this means that in order to have collision probability of 0.005 satisfied with 2 hash functions,
  * maximum number of items which can be stored in the filter is 78_743_024.
  * This would cost 25,6MiB for bitmap size.
  *
  * @author Miko Nukka
  */
-public final class BloomFilter32<T> implements IDataStructure<T>, IMemoryCache<T> {
+public final class BloomFilter32<T> implements IDataStructure<T>, IMemoryCache<T>, IFilterStatistics {
     private BitSet bitMap;
     private List<IHashFunction> hashFunctionList;
+    private IHashFunction128 probeHashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
     private int bitmapSize;
+    private int hashFunctionCount;
+    private long bitCount;
     private final BloomProperties properties = new BloomProperties();
-    private final double COLLISION_PROBABILITY = 0.005;
+    private static final double COLLISION_PROBABILITY = 0.005;
+    private final double collisionProbability;
+    private final int configuredHashFunctionCount;
+
+    /**
+     * Create bloom filter with collision probability of p=0.005.
+     */
+    public BloomFilter32() {
+        this(COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create bloom filter with given collision probability.
+     *
+     * @param collisionProbability the collision probability, in range (0, 1)
+     */
+    public BloomFilter32(double collisionProbability) {
+        this(collisionProbability, 0);
+    }
+
+    /**
+     * Create bloom filter with given collision probability and number of probes per key.
+     *
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @param hashFunctionCount    number of bit positions derived per key, 0 picks the optimal count for collision probability.
+     *                             Only applies when filter is created with single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>collisionProbability</i> or <i>hashFunctionCount</i> is out of range
+     */
+    public BloomFilter32(double collisionProbability, int hashFunctionCount) {
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        if (hashFunctionCount < 0 || hashFunctionCount > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+            throw new IllegalArgumentException("Hash function count must be in range [0, " + BloomMath.MAX_HASH_FUNCTION_COUNT + "]");
+        }
+        this.collisionProbability = collisionProbability;
+        this.configuredHashFunctionCount = hashFunctionCount;
+    }
 
     /**
      * Create bloom filter cache
      *
      * @param hashFunctionList list of hash functions to be called for each element in the input list
+     * @param keyEncoder       encoder which turns elements into bytes for hash functions
      * @param input            input of data to be hashed and stored in bitmap
      * @return instance of BloomFilter32
-     * @throws NullPointerException if <i>hashFunctionList</i> or <i>input</i> is not defined
+     * @throws NullPointerException if <i>hashFunctionList</i>, <i>keyEncoder</i> or <i>input</i> is not defined
      * @throws IllegalArgumentException if <i>hashFunctionList</i> or <i>input</i> list does not contain at least one item
+     * @throws IllegalArgumentException if hash function count was configured but <i>hashFunctionList</i> is not a single {@link IHashFunction128}
      * @throws IllegalArgumentException if <i>input</i> list contains more items than bitmapSize
-     * can hold with predetermined collision probability of 0.005
+     * can hold with configured collision probability
      */
     @Override
-    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final List<T> input) {
-        if (hashFunctionList == null || input == null || hashFunctionList.contains(null) || input.contains(null)) {
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null || input.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input::forEach);
+        return this;
+    }
+
+    /**
+     * Create bloom filter cache by hashing input on the workers of given pool.
+     *
+     * Workers set bits in a shared array of words with an atomic OR, which {@link BitSet#valueOf(long[])} copies
+     * into the filter's bitmap once all keys are in. Bitmap takes twice its size until the copy is done.
+     *
+     * @param hashFunctionList list of thread-safe hash functions to be called for each element in the input list
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash functions
+     * @param input            input of data to be hashed and stored in bitmap
+     * @param pool             the pool to build on
+     * @return instance of BloomFilter32
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException for the same reasons as {@link #createCache(List, IKeyEncoder, List)}
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final List<T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmapInParallel(action -> ParallelBuild.forEach(pool, input, action));
+        return this;
+    }
+
+    /**
+     * Create bloom filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * @param hashFunctionList list of hash functions to be called for each key
+     * @param keyEncoder       encoder which turns elements into bytes for hash functions
+     * @param input            the keys, bitmap is sized by their count
+     * @return instance of BloomFilter32
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException for the same reasons as {@link #createCache(List, IKeyEncoder, List)}
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input::forEach);
+        return this;
+    }
+
+    /**
+     * Create bloom filter cache from keys which are not held in a list, hashing them on the workers of given pool.
+     *
+     * Bits are set the same way as by {@link #createCache(List, IKeyEncoder, List, ForkJoinPool)}.
+     *
+     * @param hashFunctionList list of thread-safe hash functions to be called for each key
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash functions
+     * @param input            the keys, bitmap is sized by their count
+     * @param pool             the pool to build on
+     * @return instance of BloomFilter32
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException for the same reasons as {@link #createCache(List, IKeyEncoder, List)}
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmapInParallel(action -> input.forEach(pool, action));
+        return this;
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final long size) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
             throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
         }
 
@@ -67,17 +199,28 @@ public final class BloomFilter32<T> implements IDataStructure<T>, IMemoryCache<T
             throw new IllegalArgumentException("Bloom filter must be provided at least one hash function");
         }
 
-        if (input.size() < 1) {
+        if (size < 1) {
             throw new IllegalArgumentException("Bloom filter must be provided at least one item to be stored in the cache");
         }
 
-        if (input.size() > 78743024) {
-            throw new IllegalArgumentException("Bloom filter's bitmap will exceed 32bit in its size and will no longer satisfy 0.005 collision probability");
+        final boolean doubleHashing = hashFunctionList.size() == 1 && hashFunctionList.get(0) instanceof IHashFunction128;
+        if (!doubleHashing && configuredHashFunctionCount != 0) {
+            throw new IllegalArgumentException("Hash function count can only be configured when bloom filter is given a single IHashFunction128");
+        }
+
+        final int k = doubleHashing
+                ? (configuredHashFunctionCount != 0 ? configuredHashFunctionCount : BloomMath.optimalHashFunctionCount(collisionProbability))
+                : hashFunctionList.size();
+        final double bits = BloomMath.optimalBits(k, size, collisionProbability);
+        if (bits > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter's bitmap will exceed 32bit in its size and will no longer satisfy " + collisionProbability + " collision probability");
         }
 
         this.hashFunctionList = hashFunctionList;
-        createBitmap(input, COLLISION_PROBABILITY);
-        return this;
+        this.probeHashFunction = doubleHashing ? (IHashFunction128) hashFunctionList.get(0) : null;
+        this.hashFunctionCount = k;
+        this.keyEncoder = keyEncoder;
+        this.bitmapSize = (int) bits;
     }
 
     /**
@@ -103,9 +246,51 @@ public final class BloomFilter32<T> implements IDataStructure<T>, IMemoryCache<T
             throw new NullPointerException("isKeyPresent does not expect null as an argument");
         }
 
-        byte[] key = convertObjToByte(input);
-        List<Integer> hashes = hashKey(key).collect(Collectors.toList());
-        return hashes.stream().allMatch(bitMap::get);
+        final KeyBuffer key = encode(input);
+        if (probeHashFunction != null) {
+            final DoubleHashProbe probe = DoubleHashProbe.forCurrentThread().hash(probeHashFunction, key.array(), 0, key.length());
+            for (int i = 0; i < hashFunctionCount; i++) {
+                if (!bitMap.get((int) probe.position(i, bitmapSize))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        for (IHashFunction hashFunction : hashFunctionList) {
+            if (!bitMap.get(hashFunction.hash32(key.array(), 0, key.length(), bitmapSize))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check many keys at once.
+     *
+     * With a single {@link IHashFunction128} keys are hashed {@link DoubleHashBatch#SIZE} at a time,
+     * then the bitmap is probed for the first bit of every key in the batch, then for the second one and so on,
+     * so memory loads of independent keys overlap. Other hash functions check keys one by one.
+     *
+     * @param keys   the keys
+     * @param result array receiving result of {@link #isKeyPresent(Object)} for each key at the index of the key
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException if <i>keys</i>, <i>result</i> or any of the keys is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    @Override
+    public void isKeysPresent(final List<? extends T> keys, final boolean[] result) {
+        if (hashFunctionList == null || bitmapSize == 0 || bitMap == null) {
+            throw new IllegalStateException("BloomFilter32 is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        if (probeHashFunction == null) {
+            IMemoryCache.super.isKeysPresent(keys, result);
+            return;
+        }
+
+        BloomLookup.isKeysPresent(keys, result, probeHashFunction, keyEncoder, hashFunctionCount,
+                (batch, slot, i) -> bitMap.get((int) batch.position(slot, i, bitmapSize)));
     }
 
     /**
@@ -113,48 +298,83 @@ public final class BloomFilter32<T> implements IDataStructure<T>, IMemoryCache<T
      *
      * @return the properties
      */
+    @Override
     public BloomProperties getProperties() {
         return properties;
     }
 
-    private void createBitmap(final List<T> input, final double collisionProbability) {
-        bitmapSize = (int) BloomMath.optimalBits(hashFunctionList.size(), input.size(), collisionProbability);
-        final List<byte[]> byteArrayList = transformToByteArrayList(input);
-        bitMap = new BitSet(bitmapSize);
-        populateBitmap(byteArrayList);
+    /**
+     * Number of bits set in the bitmap, counted once the filter has been built.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        return bitCount;
+    }
 
-        properties.setCollisionProbability(collisionProbability);
-        properties.setBitmapSize(bitmapSize);
-        properties.setHashFunctionCount(hashFunctionList.size());
-        properties.setSeed(IHashFunction.getSeed());
+    /**
+     * Collision probability at the fill of the built bitmap.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        return bitMap == null ? 0 : BloomMath.estimateCollisionProbability(hashFunctionCount, bitCount, bitmapSize);
     }
 
-    private void populateBitmap(final List<byte[]> byteArrayList) {
-        byteArrayList.stream()
-                .flatMap(this::hashKey)
-                .forEach(p -> bitMap.set(p));
+    BitSet bitMap() {
+        return bitMap;
     }
 
-    private Stream<Integer> hashKey(final byte[] key) {
-        return hashFunctionList.stream().map(p -> p.hash32(key, bitmapSize));
+    List<IHashFunction> hashFunctions() {
+        return hashFunctionList;
     }
 
-    private List<byte[]> transformToByteArrayList(final List<T> input) {
-        List<byte[]> byteList = new ArrayList<>();
-        for (Object o : input) {
-            byteList.add(convertObjToByte(o));
-        }
-        return byteList;
+    boolean isDoubleHashing() {
+        return probeHashFunction != null;
     }
 
-    private byte[] convertObjToByte(final Object input) {
-        try {
-            ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
-            ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteOutputStream);
-            objectOutputStream.writeObject(input);
-            return byteOutputStream.toByteArray();
-        } catch (IOException exception) {
-            throw new UnexpectedIOException(exception.getMessage());
+    private void createBitmap(final Consumer<Consumer<T>> input) {
+        final BitSet bitMap = new BitSet(bitmapSize);
+        input.accept(element -> setBits(element, bitIndex -> bitMap.set((int) bitIndex)));
+        this.bitMap = bitMap;
+        updateProperties();
+    }
+
+    private void createBitmapInParallel(final Consumer<Consumer<T>> input) {
+        final long[] words = new long[(int) ((bitmapSize + 63) >>> 6)];
+        input.accept(element -> setBits(element, bitIndex -> AtomicBitmap.set(words, bitIndex)));
+        this.bitMap = BitSet.valueOf(words);
+        updateProperties();
+    }
+
+    private void updateProperties() {
+        bitCount = bitMap.cardinality();
+
+        properties.setCollisionProbability(collisionProbability);
+        properties.setBitmapSize(bitmapSize);
+        properties.setHashFunctionCount(hashFunctionCount);
+        properties.setSeed(hashFunctionList.get(0).getHashSeed());
+    }
+
+    private void setBits(final T element, final LongConsumer bitMap) {
+        final KeyBuffer key = encode(element);
+        if (probeHashFunction != null) {
+            final DoubleHashProbe probe = DoubleHashProbe.forCurrentThread().hash(probeHashFunction, key.array(), 0, key.length());
+            for (int i = 0; i < hashFunctionCount; i++) {
+                bitMap.accept(probe.position(i, bitmapSize));
+            }
+            return;
         }
+        for (IHashFunction hashFunction : hashFunctionList) {
+            bitMap.accept(hashFunction.hash32(key.array(), 0, key.length(), bitmapSize));
+        }
+    }
+
+    private KeyBuffer encode(final T input) {
+        final KeyBuffer buffer = KeyBuffer.forCurrentThread();
+        keyEncoder.encode(input, buffer);
+        return buffer;
     }
 }
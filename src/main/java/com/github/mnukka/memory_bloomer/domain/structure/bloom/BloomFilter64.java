@@ -0,0 +1,340 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashBatch;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.AtomicBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.PagedBitmap;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * 64bit Bloom filter.
+ * <p>
+ * Same filter as {@link BloomFilter32}, but bit positions are long indexed
+ * and the bitmap is kept in {@link PagedBitmap} pages.
+ * This lifts the 78_743_024 element cap of {@link BloomFilter32},
+ * e.g. 2 billion elements at p=0.005 fit into a bitmap of about 2,6GiB.
+ * </p>
+ *
+ * <p>Filter needs a single {@link IHashFunction128}. Each key is hashed once
+ * and k 64bit bit positions are derived from the hash with {@link DoubleHashProbe}.</p>
+ *
+ * @param <T> the type parameter for elements which are to be hashed within bitmap of bloom filter
+ *
+ * @author Miko Nukka
+ */
+public final class BloomFilter64<T> implements IDataStructure<T>, IMemoryCache<T>, IFilterStatistics {
+    private static final double COLLISION_PROBABILITY = 0.005;
+
+    private IBitmap bitMap;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private long bitmapSize;
+    private int hashFunctionCount;
+    private long bitCount;
+    private final BloomProperties properties = new BloomProperties();
+    private final double collisionProbability;
+    private final int configuredHashFunctionCount;
+
+    /**
+     * Create bloom filter with collision probability of p=0.005.
+     */
+    public BloomFilter64() {
+        this(COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create bloom filter with given collision probability.
+     *
+     * @param collisionProbability the collision probability, in range (0, 1)
+     */
+    public BloomFilter64(double collisionProbability) {
+        this(collisionProbability, 0);
+    }
+
+    /**
+     * Create bloom filter with given collision probability and number of probes per key.
+     *
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @param hashFunctionCount    number of bit positions derived per key, 0 picks the optimal count for collision probability
+     * @throws IllegalArgumentException if <i>collisionProbability</i> or <i>hashFunctionCount</i> is out of range
+     */
+    public BloomFilter64(double collisionProbability, int hashFunctionCount) {
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        if (hashFunctionCount < 0 || hashFunctionCount > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+            throw new IllegalArgumentException("Hash function count must be in range [0, " + BloomMath.MAX_HASH_FUNCTION_COUNT + "]");
+        }
+        this.collisionProbability = collisionProbability;
+        this.configuredHashFunctionCount = hashFunctionCount;
+    }
+
+    /**
+     * Create bloom filter cache
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            input of data to be hashed and stored in bitmap
+     * @return instance of BloomFilter64
+     * @throws NullPointerException if <i>hashFunctionList</i>, <i>keyEncoder</i> or <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> list does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        return createCache(hashFunctionList, keyEncoder, input.iterator(), input.size());
+    }
+
+    /**
+     * Create bloom filter cache from input which does not fit into a list.
+     *
+     * @param hashFunctionList   single 128bit hash function
+     * @param keyEncoder         encoder which turns elements into bytes for hash function
+     * @param input              iterator over data to be hashed and stored in bitmap
+     * @param expectedInsertions number of elements the bitmap is sized for
+     * @return instance of BloomFilter64
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>expectedInsertions</i> is not positive
+     */
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final Iterator<? extends T> input, final long expectedInsertions) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, expectedInsertions);
+        createBitmap(expectedInsertions, false);
+        populateBitmap(input);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Create bloom filter cache by hashing input on the workers of given pool.
+     *
+     * Workers set bits in a shared {@link AtomicBitmap} with an atomic OR, which is kept for lookups afterwards.
+     *
+     * @param hashFunctionList single thread-safe 128bit hash function
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash function
+     * @param input            input of data to be hashed and stored in bitmap
+     * @param pool             the pool to build on
+     * @return instance of BloomFilter64
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> list does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final List<T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input.size(), true);
+        ParallelBuild.forEach(pool, input, this::setBits);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Create bloom filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            the keys, bitmap is sized by their count
+     * @return instance of BloomFilter64
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input.size(), false);
+        input.forEach(this::setBits);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Create bloom filter cache from keys which are not held in a list, hashing them on the workers of given pool.
+     *
+     * @param hashFunctionList single thread-safe 128bit hash function
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash function
+     * @param input            the keys, bitmap is sized by their count
+     * @param pool             the pool to build on
+     * @return instance of BloomFilter64
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> does not contain at least one item
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        createBitmap(input.size(), true);
+        input.forEach(pool, this::setBits);
+        bitCount = bitMap.cardinality();
+        return this;
+    }
+
+    /**
+     * Check if value is present in the bitmap for bloom filter
+     *
+     * @param input key to check which was previously stored in the
+     * bitmap during the createCache call
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        if (hashFunction == null || bitMap == null) {
+            throw new IllegalStateException("BloomFilter64 is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        if (input == null) {
+            throw new NullPointerException("isKeyPresent does not expect null as an argument");
+        }
+
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, input);
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (!bitMap.get(probe.position(i, bitmapSize))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check many keys at once.
+     *
+     * Keys are hashed {@link DoubleHashBatch#SIZE} at a time, then the bitmap is probed for the first bit of every key in the batch,
+     * then for the second one and so on, so memory loads of independent keys overlap.
+     *
+     * @param keys   the keys
+     * @param result array receiving result of {@link #isKeyPresent(Object)} for each key at the index of the key
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException if <i>keys</i>, <i>result</i> or any of the keys is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    @Override
+    public void isKeysPresent(final List<? extends T> keys, final boolean[] result) {
+        if (hashFunction == null || bitMap == null) {
+            throw new IllegalStateException("BloomFilter64 is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        BloomLookup.isKeysPresent(keys, result, hashFunction, keyEncoder, hashFunctionCount,
+                (batch, slot, i) -> bitMap.get(batch.position(slot, i, bitmapSize)));
+    }
+
+    /**
+     * Gets properties for currently built bloom filter.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Number of bits set in the bitmap, counted once the filter has been built.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Collision probability at the fill of the built bitmap.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        return bitMap == null ? 0 : BloomMath.estimateCollisionProbability(hashFunctionCount, bitCount, bitmapSize);
+    }
+
+    IBitmap bitMap() {
+        return bitMap;
+    }
+
+    IHashFunction128 hashFunction() {
+        return hashFunction;
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final long expectedInsertions) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("BloomFilter64 must be provided a single IHashFunction128");
+        }
+
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Bloom filter must be provided at least one item to be stored in the cache");
+        }
+
+        this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+        this.keyEncoder = keyEncoder;
+        this.hashFunctionCount = configuredHashFunctionCount != 0
+                ? configuredHashFunctionCount
+                : BloomMath.optimalHashFunctionCount(collisionProbability);
+    }
+
+    private void createBitmap(final long expectedInsertions, final boolean shared) {
+        bitmapSize = Math.max(1L, (long) BloomMath.optimalBits(hashFunctionCount, expectedInsertions, collisionProbability));
+        bitMap = shared ? new AtomicBitmap(bitmapSize) : new PagedBitmap(bitmapSize);
+
+        properties.setCollisionProbability(collisionProbability);
+        properties.setBitmapSize(bitmapSize);
+        properties.setHashFunctionCount(hashFunctionCount);
+        properties.setSeed(hashFunction.getHashSeed());
+    }
+
+    private void populateBitmap(final Iterator<? extends T> input) {
+        while (input.hasNext()) {
+            final T element = input.next();
+            if (element == null) {
+                throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+            }
+            setBits(element);
+        }
+    }
+
+    private void setBits(final T element) {
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, element);
+        for (int i = 0; i < hashFunctionCount; i++) {
+            bitMap.set(probe.position(i, bitmapSize));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashBatch;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bloom lookup.
+ * <p>
+ * Key hashing and batch lookups shared by the bloom filters of this package. A filter only tells
+ * whether a probe bit of a key is set, hashing keys in batches and probing them side by side is done here.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+final class BloomLookup {
+
+    /**
+     * Tells whether the bit of i-th probe of the key in given slot is set.
+     */
+    @FunctionalInterface
+    interface SlotProbe {
+        boolean isSet(int slot, int i);
+    }
+
+    /**
+     * Tells whether the bit of i-th probe of the key in given slot of the batch is set.
+     */
+    @FunctionalInterface
+    interface BatchProbe {
+        boolean isSet(DoubleHashBatch batch, int slot, int i);
+    }
+
+    private BloomLookup() {
+    }
+
+    /**
+     * Encode key and hash it into the probe of the calling thread.
+     *
+     * @param hashFunction the hash function
+     * @param keyEncoder   the key encoder
+     * @param input        the key
+     * @param <T>          the type parameter for keys
+     * @return the thread local probe
+     */
+    static <T> DoubleHashProbe hash(final IHashFunction128 hashFunction, final IKeyEncoder<? super T> keyEncoder, final T input) {
+        final KeyBuffer key = KeyBuffer.forCurrentThread();
+        keyEncoder.encode(input, key);
+        return DoubleHashProbe.forCurrentThread().hash(hashFunction, key.array(), 0, key.length());
+    }
+
+    /**
+     * Check many keys at once.
+     *
+     * Keys are hashed {@link DoubleHashBatch#SIZE} at a time, then the bitmap is probed for the first bit of every key in the batch,
+     * then for the second one and so on, so memory loads of independent keys overlap.
+     *
+     * @param keys              the keys
+     * @param result            array receiving whether each key is possibly in set, at the index of the key
+     * @param hashFunction      the hash function
+     * @param keyEncoder        the key encoder
+     * @param hashFunctionCount number of probes per key
+     * @param probe             tells whether a probe bit of a key in the batch of the calling thread is set
+     * @param <T>               the type parameter for keys
+     * @throws NullPointerException if <i>keys</i>, <i>result</i> or any of the keys is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    static <T> void isKeysPresent(final List<? extends T> keys, final boolean[] result, final IHashFunction128 hashFunction,
+                                  final IKeyEncoder<? super T> keyEncoder, final int hashFunctionCount, final BatchProbe probe) {
+        if (keys == null || result == null) {
+            throw new NullPointerException("isKeysPresent does not expect null as an argument");
+        }
+        checkResultLength(keys.size(), result);
+
+        final DoubleHashBatch batch = DoubleHashBatch.forCurrentThread();
+        final SlotProbe slotProbe = (slot, i) -> probe.isSet(batch, slot, i);
+        final Iterator<? extends T> iterator = keys.iterator();
+        for (int from = 0; iterator.hasNext(); from += DoubleHashBatch.SIZE) {
+            int count = 0;
+            while (count < DoubleHashBatch.SIZE && iterator.hasNext()) {
+                final T key = iterator.next();
+                if (key == null) {
+                    throw new NullPointerException("isKeysPresent does not expect null as an argument");
+                }
+                final KeyBuffer buffer = KeyBuffer.forCurrentThread();
+                keyEncoder.encode(key, buffer);
+                batch.hash(count++, hashFunction, buffer.array(), 0, buffer.length());
+            }
+            probeBatch(count, result, from, hashFunctionCount, slotProbe);
+        }
+    }
+
+    /**
+     * Probe a batch of hashed keys, the first bit of every key, then the second one and so on,
+     * skipping keys which already missed a bit.
+     *
+     * @param count             number of keys in the batch
+     * @param result            array receiving whether each key is possibly in set
+     * @param from              index of result of the first key in the batch
+     * @param hashFunctionCount number of probes per key
+     * @param probe             tells whether a probe bit of a key is set
+     */
+    static void probeBatch(final int count, final boolean[] result, final int from, final int hashFunctionCount, final SlotProbe probe) {
+        for (int slot = 0; slot < count; slot++) {
+            result[from + slot] = true;
+        }
+        int remaining = count;
+        for (int i = 0; i < hashFunctionCount && remaining > 0; i++) {
+            for (int slot = 0; slot < count; slot++) {
+                if (result[from + slot] && !probe.isSet(slot, i)) {
+                    result[from + slot] = false;
+                    remaining--;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param keyCount number of keys
+     * @param result   array receiving results
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keyCount</i>
+     */
+    static void checkResultLength(final int keyCount, final boolean[] result) {
+        if (result.length < keyCount) {
+            throw new IllegalArgumentException("Result array must hold at least " + keyCount + " items");
+        }
+    }
+}
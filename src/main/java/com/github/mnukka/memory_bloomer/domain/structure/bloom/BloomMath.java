@@ -13,6 +13,7 @@ import java.math.RoundingMode;
  * @author Miko Nukka
  */
 final class BloomMath {
+    static final int MAX_HASH_FUNCTION_COUNT = 32;
 
     /**
      * Collision probability in bitmap.
@@ -25,7 +26,7 @@ final class BloomMath {
      * @param m number of bits in bitmap
      * @return the probability of collision
      */
-    public static double findCollisionProbability(int k, int n, int m) {
+    public static double findCollisionProbability(int k, long n, long m) {
         BigDecimal bk = BigDecimal.valueOf(k);
         BigDecimal minusOne = BigDecimal.valueOf(-1);
         BigDecimal bn = BigDecimal.valueOf(n);
@@ -49,9 +50,136 @@ final class BloomMath {
      * @apiNote Keep in mind that double will introduce rounding precision errors.
      * Around 1 bit worth of extra complexity.
      */
-    public static double optimalBits(int k, int n, double p) {
+    public static double optimalBits(int k, long n, double p) {
         return n * (-k / Math.log(1 - Math.exp(Math.log(p) / k)));
     }
 
-}
+    /**
+     * Optimal number of hash functions (probes) for given collision probability.
+     *
+     * Picks k which needs the least amount of bits per element according to {@link #optimalBits(int, long, double)}.
+     *
+     * @param p probability
+     * @return number of hash functions in range [1, 32]
+     */
+    public static int optimalHashFunctionCount(double p) {
+        int optimalK = 1;
+        double leastBits = optimalBits(1, 1, p);
+        for (int k = 2; k <= MAX_HASH_FUNCTION_COUNT; k++) {
+            final double bits = optimalBits(k, 1, p);
+            if (bits < leastBits) {
+                leastBits = bits;
+                optimalK = k;
+            }
+        }
+        return optimalK;
+    }
+
+    /**
+     * Collision probability of blocked bloom filter.
+     *
+     * In a blocked filter all k bits of an element land in one block of <i>blockBits</i> bits.
+     * Blocks do not fill evenly, the number of elements per block follows Poisson distribution,
+     * and overfilled blocks push the collision probability above the one of a standard filter with the same m.
+     *
+     * @param k         number of bits set per element
+     * @param n         number of expected elements to be inserted into bloom filter's bitmap
+     * @param m         number of bits in bitmap
+     * @param blockBits number of bits in a block
+     * @return the probability of collision
+     * @see <a href="https://algo2.iti.kit.edu/documents/cacheefficientbloomfilters-jea.pdf">Cache-, Hash- and Space-Efficient Bloom Filters</a>
+     */
+    public static double findBlockedCollisionProbability(int k, long n, long m, int blockBits) {
+        final double lambda = blockBits * (double) n / m;
+        final double missPerBit = Math.log1p(-1D / blockBits);
+        final long lastLoad = (long) Math.ceil(lambda + 12 * Math.sqrt(lambda) + 50);
+        double probability = 0;
+        double logPoisson = -lambda;
+        for (long load = 0; load <= lastLoad; load++) {
+            final double blockCollision = Math.pow(-Math.expm1(missPerBit * k * load), k);
+            probability += Math.exp(logPoisson) * blockCollision;
+            logPoisson += Math.log(lambda) - Math.log(load + 1);
+        }
+        return probability;
+    }
+
+    /**
+     * Optimal bits count for blocked bloom filter when given k, n, p.
+     *
+     * @param k         number of bits set per element
+     * @param n         number of expected elements to be inserted into bloom filter's bitmap
+     * @param p         probability
+     * @param blockBits number of bits in a block
+     * @return smallest number of bits which satisfies p, never less than {@link #optimalBits(int, long, double)}
+     */
+    public static double optimalBlockedBits(int k, long n, double p, int blockBits) {
+        double low = optimalBits(k, n, p);
+        if (findBlockedCollisionProbability(k, n, (long) Math.ceil(low), blockBits) <= p) {
+            return low;
+        }
+        double high = low * 2;
+        while (findBlockedCollisionProbability(k, n, (long) Math.ceil(high), blockBits) > p) {
+            low = high;
+            high *= 2;
+        }
+        while (high - low > 1) {
+            final double middle = (low + high) / 2;
+            if (findBlockedCollisionProbability(k, n, (long) Math.ceil(middle), blockBits) > p) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
 
+    /**
+     * Optimal number of bits set per element in blocked bloom filter for given collision probability.
+     *
+     * @param p         probability
+     * @param blockBits number of bits in a block
+     * @return number of bits set per element which needs the least bits per element
+     */
+    public static int optimalBlockedHashFunctionCount(double p, int blockBits) {
+        final long n = 1_000_000;
+        int optimalK = 1;
+        double leastBits = optimalBlockedBits(1, n, p, blockBits);
+        for (int k = 2; k <= MAX_HASH_FUNCTION_COUNT; k++) {
+            final double bits = optimalBlockedBits(k, n, p, blockBits);
+            if (bits < leastBits) {
+                leastBits = bits;
+                optimalK = k;
+            }
+        }
+        return optimalK;
+    }
+
+    /**
+     * Collision probability of filled bitmap.
+     *
+     * Unlike {@link #findCollisionProbability(int, long, long)} this does not need to know how many elements were inserted,
+     * it is the chance that k random bits are all set given the current fill of the bitmap.
+     *
+     * @param k       number of bits set per element
+     * @param bitsSet number of bits set to one in bitmap
+     * @param m       number of bits in bitmap
+     * @return the probability of collision
+     */
+    public static double estimateCollisionProbability(int k, long bitsSet, long m) {
+        return Math.pow((double) bitsSet / m, k);
+    }
+
+    /**
+     * Estimated number of distinct elements inserted into bitmap.
+     *
+     * @param k       number of bits set per element
+     * @param bitsSet number of bits set to one in bitmap
+     * @param m       number of bits in bitmap
+     * @return the estimated element count, infinity for a completely filled bitmap
+     * @see <a href="https://doi.org/10.1021/ci600358f">Swamidass and Baldi, Mathematical correction for fingerprint similarity measures</a>
+     */
+    public static double estimateElementCount(int k, long bitsSet, long m) {
+        return -((double) m / k) * Math.log1p(-(double) bitsSet / m);
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.PagedBitmap;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Bloom merge.
+ * <p>
+ * Combines bloom filters built separately, e.g. one per data shard, word by word without hashing any key again.
+ * The union answers true for every key of any of the filters, the intersection for keys of all of them
+ * plus keys whose bits happen to be set in every filter.
+ * </p>
+ *
+ * <p>Filters have to be compatible: same probe mode, same number of bits m, same k and the same hash functions
+ * with the same seeds. {@link BloomFilter32}, {@link BloomFilter64}, {@link ConcurrentBloomFilter}
+ * and {@link MappedBloomFilter}, including loaded snapshots, can be mixed when these match.
+ * The result is a {@link MappedBloomFilter} on the heap, which reports fill, collision probability
+ * and element count of the combined bitmap and can be written with {@link BloomSnapshot}.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class BloomMerge {
+
+    private BloomMerge() {
+    }
+
+    /**
+     * Union of compatible filters.
+     *
+     * @param filters    at least one filter
+     * @param keyEncoder encoder the filters were built with
+     * @param <T>        the type parameter for keys
+     * @return filter holding keys of every filter
+     * @throws NullPointerException if any of the arguments or filters is not defined
+     * @throws IllegalArgumentException if filters are not compatible or not created yet
+     */
+    public static <T> MappedBloomFilter<T> union(List<? extends IMemoryCache<?>> filters, IKeyEncoder<? super T> keyEncoder) {
+        return combine(filters, keyEncoder, (left, right) -> left | right);
+    }
+
+    /**
+     * Intersection of compatible filters.
+     *
+     * Collision probability of the result is at most the one of the emptiest filter, but bits shared by chance
+     * make its element count an overestimate, see {@link #estimateIntersectionSize(IMemoryCache, IMemoryCache)}.
+     *
+     * @param filters    at least one filter
+     * @param keyEncoder encoder the filters were built with
+     * @param <T>        the type parameter for keys
+     * @return filter holding keys present in every filter
+     * @throws NullPointerException if any of the arguments or filters is not defined
+     * @throws IllegalArgumentException if filters are not compatible or not created yet
+     */
+    public static <T> MappedBloomFilter<T> intersection(List<? extends IMemoryCache<?>> filters, IKeyEncoder<? super T> keyEncoder) {
+        return combine(filters, keyEncoder, (left, right) -> left & right);
+    }
+
+    /**
+     * Number of keys two compatible filters have in common, estimated from the fill of both and of their union.
+     *
+     * @param first  the first filter
+     * @param second the second filter
+     * @return the estimated size of the intersection, not negative
+     * @throws IllegalArgumentException if filters are not compatible or not created yet
+     */
+    public static long estimateIntersectionSize(IMemoryCache<?> first, IMemoryCache<?> second) {
+        final Operand left = Operand.of(first);
+        final Operand right = Operand.of(second);
+        left.checkCompatible(right);
+
+        final long wordCount = left.wordCount();
+        long leftBits = 0;
+        long rightBits = 0;
+        long unionBits = 0;
+        for (long i = 0; i < wordCount; i++) {
+            final long leftWord = left.words.applyAsLong(i);
+            final long rightWord = right.words.applyAsLong(i);
+            leftBits += Long.bitCount(leftWord);
+            rightBits += Long.bitCount(rightWord);
+            unionBits += Long.bitCount(leftWord | rightWord);
+        }
+        final int k = left.properties.getHashFunctionCount();
+        final long m = left.properties.getBitmapSize();
+        final double estimate = BloomMath.estimateElementCount(k, leftBits, m) + BloomMath.estimateElementCount(k, rightBits, m)
+                - BloomMath.estimateElementCount(k, unionBits, m);
+        return Math.max(0, Math.round(estimate));
+    }
+
+    private static <T> MappedBloomFilter<T> combine(List<? extends IMemoryCache<?>> filters, IKeyEncoder<? super T> keyEncoder,
+                                                    LongBinaryOperator operator) {
+        if (filters == null || keyEncoder == null || filters.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("BloomMerge must be provided with non-null arguments as parameters");
+        }
+        if (filters.isEmpty()) {
+            throw new IllegalArgumentException("BloomMerge must be provided at least one filter");
+        }
+
+        final List<Operand> operands = new ArrayList<>(filters.size());
+        for (IMemoryCache<?> filter : filters) {
+            final Operand operand = Operand.of(filter);
+            if (!operands.isEmpty()) {
+                operands.get(0).checkCompatible(operand);
+            }
+            operands.add(operand);
+        }
+
+        final Operand first = operands.get(0);
+        final PagedBitmap bitmap = new PagedBitmap(first.properties.getBitmapSize());
+        final long wordCount = bitmap.wordCount();
+        for (long i = 0; i < wordCount; i++) {
+            long word = first.words.applyAsLong(i);
+            for (int j = 1; j < operands.size(); j++) {
+                word = operator.applyAsLong(word, operands.get(j).words.applyAsLong(i));
+            }
+            bitmap.setWord(i, word);
+        }
+
+        final BloomProperties properties = new BloomProperties();
+        properties.setBitmapSize(first.properties.getBitmapSize());
+        properties.setHashFunctionCount(first.properties.getHashFunctionCount());
+        properties.setCollisionProbability(first.properties.getCollisionProbability());
+        properties.setSeed(first.properties.getSeed());
+        return new MappedBloomFilter<>(bitmap, first.hashFunctions, first.doubleHashing, keyEncoder, properties);
+    }
+
+    /**
+     * Bitmap and probing parameters of a filter, whichever type it is.
+     */
+    private static final class Operand {
+        private final boolean doubleHashing;
+        private final List<IHashFunction> hashFunctions;
+        private final BloomProperties properties;
+        private final LongUnaryOperator words;
+
+        private Operand(boolean doubleHashing, List<IHashFunction> hashFunctions, BloomProperties properties, LongUnaryOperator words) {
+            this.doubleHashing = doubleHashing;
+            this.hashFunctions = hashFunctions;
+            this.properties = properties;
+            this.words = words;
+        }
+
+        private static Operand of(IMemoryCache<?> filter) {
+            if (filter instanceof BloomFilter32) {
+                final BloomFilter32<?> bloomFilter = (BloomFilter32<?>) filter;
+                final BitSet bitSet = initialized(bloomFilter.bitMap(), filter);
+                final long[] words = bitSet.toLongArray();
+                return new Operand(bloomFilter.isDoubleHashing(), bloomFilter.hashFunctions(), bloomFilter.getProperties(),
+                        index -> index < words.length ? words[(int) index] : 0L);
+            }
+            if (filter instanceof BloomFilter64) {
+                final BloomFilter64<?> bloomFilter = (BloomFilter64<?>) filter;
+                final IBitmap bitmap = initialized(bloomFilter.bitMap(), filter);
+                return new Operand(true, List.of(bloomFilter.hashFunction()), bloomFilter.getProperties(), bitmap::getWord);
+            }
+            if (filter instanceof ConcurrentBloomFilter) {
+                final ConcurrentBloomFilter<?> bloomFilter = (ConcurrentBloomFilter<?>) filter;
+                final IBitmap bitmap = initialized(bloomFilter.bitMap(), filter);
+                return new Operand(true, List.of(bloomFilter.hashFunction()), bloomFilter.getProperties(), bitmap::getWord);
+            }
+            if (filter instanceof MappedBloomFilter) {
+                final MappedBloomFilter<?> bloomFilter = (MappedBloomFilter<?>) filter;
+                return new Operand(bloomFilter.isDoubleHashing(), bloomFilter.hashFunctions(), bloomFilter.getProperties(),
+                        bloomFilter.bitMap()::getWord);
+            }
+            throw new IllegalArgumentException(filter.getClass().getSimpleName() + " can not be merged");
+        }
+
+        private static <B> B initialized(B bitmap, IMemoryCache<?> filter) {
+            if (bitmap == null) {
+                throw new IllegalArgumentException(filter.getClass().getSimpleName() + " is not fully initialized. Tip: has createCache() been called on the class instance?");
+            }
+            return bitmap;
+        }
+
+        private long wordCount() {
+            return (properties.getBitmapSize() + 63) >>> 6;
+        }
+
+        private void checkCompatible(Operand other) {
+            if (doubleHashing != other.doubleHashing) {
+                throw new IllegalArgumentException("Filters are not compatible: probe modes differ");
+            }
+            if (properties.getBitmapSize() != other.properties.getBitmapSize()) {
+                throw new IllegalArgumentException("Filters are not compatible: bitmap sizes " + properties.getBitmapSize()
+                        + " and " + other.properties.getBitmapSize() + " differ");
+            }
+            if (properties.getHashFunctionCount() != other.properties.getHashFunctionCount()) {
+                throw new IllegalArgumentException("Filters are not compatible: hash function counts " + properties.getHashFunctionCount()
+                        + " and " + other.properties.getHashFunctionCount() + " differ");
+            }
+            if (hashFunctions.size() != other.hashFunctions.size()) {
+                throw new IllegalArgumentException("Filters are not compatible: hash functions differ");
+            }
+            for (int i = 0; i < hashFunctions.size(); i++) {
+                final IHashFunction left = hashFunctions.get(i);
+                final IHashFunction right = other.hashFunctions.get(i);
+                if (left.getClass() != right.getClass() || left.getId() != right.getId() || left.getHashSeed() != right.getHashSeed()) {
+                    throw new IllegalArgumentException("Filters are not compatible: hash functions or their seeds differ");
+                }
+            }
+        }
+    }
+}
@@ -11,16 +11,16 @@ package com.github.mnukka.memory_bloomer.domain.structure.bloom;
  * @author Miko Nukka
  */
 public final class BloomProperties {
-    public int bitmapSize;
+    public long bitmapSize;
     public int hashFunctionCount;
     public double collisionProbability;
     public int seed;
 
-    public int getBitmapSize() {
+    public long getBitmapSize() {
         return bitmapSize;
     }
 
-    public void setBitmapSize(int bitmapSize) {
+    public void setBitmapSize(long bitmapSize) {
         this.bitmapSize = bitmapSize;
     }
 
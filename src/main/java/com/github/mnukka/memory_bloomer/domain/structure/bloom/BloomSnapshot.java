@@ -0,0 +1,291 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.HashFunctions;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.MappedBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidSnapshotException;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Bloom snapshot.
+ * <p>
+ * Versioned binary file format for built bloom filters. A snapshot holds everything needed to answer lookups:
+ * the bitmap, k, probe mode, collision probability, and id and seed of every hash function.
+ * Loading a snapshot memory maps the file, so start up costs O(1) instead of re-hashing the whole key set.
+ * </p>
+ *
+ * <p>Layout, all values little-endian:</p>
+ * <pre>
+ * int    magic "MBLM"
+ * short  format version
+ * byte   probe mode, 0 = one position per hash function, 1 = double hashing
+ * byte   number of hash functions h
+ * int    k, number of bit positions per key
+ * int    seed from {@link BloomProperties}
+ * double collision probability
+ * long   m, number of bits in bitmap
+ * long   number of 64bit words in bitmap
+ * h * (int hash function id, int hash function seed)
+ * long[] bitmap words
+ * </pre>
+ *
+ * <p>Key encoder is not persisted, snapshot has to be loaded with the same encoder it was built with.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class BloomSnapshot {
+    static final int MAGIC = 0x4D424C4D;
+    static final short VERSION = 1;
+    static final byte PROBE_PER_HASH_FUNCTION = 0;
+    static final byte PROBE_DOUBLE_HASHING = 1;
+    private static final int FIXED_HEADER_BYTES = 40;
+    private static final int CHUNK_WORDS = 8192;
+
+    private BloomSnapshot() {
+    }
+
+    /**
+     * Write bloom filter into snapshot file.
+     *
+     * The file is written next to <i>path</i> first and moved in place when complete,
+     * so readers never see a partially written snapshot.
+     *
+     * @param filter the filter
+     * @param path   the path of snapshot file, replaced if exists
+     * @throws IllegalStateException if filter has not been created yet
+     * @throws IllegalArgumentException if filter uses a hash function which is not built-in
+     * @throws UnexpectedIOException if writing fails
+     */
+    public static void write(BloomFilter32<?> filter, Path path) {
+        final BitSet bitMap = filter.bitMap();
+        if (bitMap == null) {
+            throw new IllegalStateException("BloomFilter32 is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        final byte probeMode = filter.isDoubleHashing() ? PROBE_DOUBLE_HASHING : PROBE_PER_HASH_FUNCTION;
+        final long bitmapSize = filter.getProperties().getBitmapSize();
+        write(path, probeMode, filter.hashFunctions(), filter.getProperties(), (bitmapSize + 63) >>> 6, (start, words, chunk) -> {
+            // BitSet only hands out words by copying, toLongArray() also drops trailing zero words
+            final long[] copied = bitMap.get((int) (start << 6), (int) Math.min(bitmapSize, (start + words) << 6)).toLongArray();
+            for (int i = 0; i < words; i++) {
+                chunk.putLong(i < copied.length ? copied[i] : 0L);
+            }
+        });
+    }
+
+    /**
+     * Write bloom filter into snapshot file.
+     *
+     * @param filter the filter
+     * @param path   the path of snapshot file, replaced if exists
+     * @throws IllegalStateException if filter has not been created yet
+     * @throws IllegalArgumentException if filter uses a hash function which is not built-in
+     * @throws UnexpectedIOException if writing fails
+     * @see #write(BloomFilter32, Path)
+     */
+    public static void write(BloomFilter64<?> filter, Path path) {
+        if (filter.bitMap() == null) {
+            throw new IllegalStateException("BloomFilter64 is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        final IBitmap bitmap = filter.bitMap();
+        write(path, PROBE_DOUBLE_HASHING, List.of(filter.hashFunction()), filter.getProperties(), bitmap.wordCount(), (start, words, chunk) -> {
+            for (int i = 0; i < words; i++) {
+                chunk.putLong(bitmap.getWord(start + i));
+            }
+        });
+    }
+
+    /**
+     * Write mapped bloom filter, e.g. a union from {@link BloomMerge}, into snapshot file.
+     *
+     * @param filter the filter
+     * @param path   the path of snapshot file, replaced if exists
+     * @throws IllegalArgumentException if filter uses a hash function which is not built-in
+     * @throws UnexpectedIOException if writing fails
+     * @see #write(BloomFilter32, Path)
+     */
+    public static void write(MappedBloomFilter<?> filter, Path path) {
+        final IBitmap bitmap = filter.bitMap();
+        final byte probeMode = filter.isDoubleHashing() ? PROBE_DOUBLE_HASHING : PROBE_PER_HASH_FUNCTION;
+        write(path, probeMode, filter.hashFunctions(), filter.getProperties(), bitmap.wordCount(), (start, words, chunk) -> {
+            for (int i = 0; i < words; i++) {
+                chunk.putLong(bitmap.getWord(start + i));
+            }
+        });
+    }
+
+    /**
+     * Load snapshot by memory mapping it.
+     *
+     * @param path       the path of snapshot file
+     * @param keyEncoder encoder the filter was built with
+     * @param <T>        the type parameter for keys
+     * @return filter answering lookups from the mapped file
+     * @throws InvalidSnapshotException if file is not a valid snapshot
+     * @throws UnexpectedIOException if reading fails
+     */
+    public static <T> MappedBloomFilter<T> load(Path path, IKeyEncoder<? super T> keyEncoder) {
+        if (path == null || keyEncoder == null) {
+            throw new NullPointerException("load must be provided with non-null arguments as parameters");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = readFully(channel, 0, FIXED_HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new InvalidSnapshotException(path + " is not a bloom filter snapshot");
+            }
+            final short version = header.getShort();
+            if (version != VERSION) {
+                throw new InvalidSnapshotException("Unsupported snapshot version " + version);
+            }
+            final byte probeMode = header.get();
+            final int hashFunctionCount = header.get() & 0xFF;
+            final BloomProperties properties = new BloomProperties();
+            properties.setHashFunctionCount(header.getInt());
+            properties.setSeed(header.getInt());
+            properties.setCollisionProbability(header.getDouble());
+            properties.setBitmapSize(header.getLong());
+            final long wordCount = header.getLong();
+
+            final ByteBuffer functions = readFully(channel, FIXED_HEADER_BYTES, hashFunctionCount * 8);
+            final List<IHashFunction> hashFunctionList = new ArrayList<>(hashFunctionCount);
+            for (int i = 0; i < hashFunctionCount; i++) {
+                hashFunctionList.add(HashFunctions.create(functions.getInt(), functions.getInt()));
+            }
+
+            final long dataOffset = FIXED_HEADER_BYTES + hashFunctionCount * 8L;
+            validate(probeMode, hashFunctionList, properties, wordCount, channel.size() - dataOffset);
+            final IBitmap bitmap = new MappedBitmap(channel, dataOffset, properties.getBitmapSize());
+            return new MappedBloomFilter<>(bitmap, hashFunctionList, probeMode == PROBE_DOUBLE_HASHING, keyEncoder, properties);
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidSnapshotException(exception.getMessage());
+        }
+    }
+
+    private static void validate(byte probeMode, List<IHashFunction> hashFunctionList, BloomProperties properties,
+                                 long wordCount, long dataBytes) {
+        if (probeMode != PROBE_PER_HASH_FUNCTION && probeMode != PROBE_DOUBLE_HASHING) {
+            throw new InvalidSnapshotException("Unknown probe mode " + probeMode);
+        }
+        final int k = properties.getHashFunctionCount();
+        if (probeMode == PROBE_DOUBLE_HASHING
+                ? hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)
+                : hashFunctionList.size() != k) {
+            throw new InvalidSnapshotException("Snapshot hash functions do not match its probe mode");
+        }
+        if (k < 1 || k > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+            throw new InvalidSnapshotException("Invalid hash function count " + k);
+        }
+        final long bitmapSize = properties.getBitmapSize();
+        if (bitmapSize < 1 || wordCount != (bitmapSize + 63) >>> 6 || dataBytes != wordCount << 3) {
+            throw new InvalidSnapshotException("Snapshot bitmap is truncated or corrupted");
+        }
+    }
+
+    private static void write(Path path, byte probeMode, List<IHashFunction> hashFunctionList, BloomProperties properties,
+                              long wordCount, WordSource words) {
+        for (IHashFunction hashFunction : hashFunctionList) {
+            if (hashFunction.getId() == HashFunctions.CUSTOM) {
+                throw new IllegalArgumentException(hashFunction.getClass().getName() + " is not a built-in hash function and can not be persisted");
+            }
+        }
+        final Path temporary = createTemporary(path);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES + hashFunctionList.size() * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .put(probeMode)
+                    .put((byte) hashFunctionList.size())
+                    .putInt(properties.getHashFunctionCount())
+                    .putInt(properties.getSeed())
+                    .putDouble(properties.getCollisionProbability())
+                    .putLong(properties.getBitmapSize())
+                    .putLong(wordCount);
+            for (IHashFunction hashFunction : hashFunctionList) {
+                header.putInt(hashFunction.getId()).putInt(hashFunction.getHashSeed());
+            }
+            writeFully(channel, header.flip());
+            writeWords(channel, wordCount, words);
+            channel.force(false);
+        } catch (IOException exception) {
+            deleteTemporary(temporary);
+            throw new UnexpectedIOException(exception.getMessage());
+        } catch (RuntimeException exception) {
+            deleteTemporary(temporary);
+            throw exception;
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            deleteTemporary(temporary);
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Create file next to <i>path</i> to write into before moving it over <i>path</i>.
+     * Every writer gets a file of its own, so concurrent writes of the same path do not interleave.
+     */
+    static Path createTemporary(Path path) {
+        try {
+            return Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+    }
+
+    static void deleteTemporary(Path temporary) {
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException ignored) {
+            // the failure of the write is the one worth reporting
+        }
+    }
+
+    private static void writeWords(FileChannel channel, long wordCount, WordSource source) throws IOException {
+        final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long start = 0; start < wordCount; start += CHUNK_WORDS) {
+            final int words = (int) Math.min(CHUNK_WORDS, wordCount - start);
+            chunk.clear();
+            source.fill(start, words, chunk);
+            writeFully(channel, chunk.flip());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new InvalidSnapshotException("Snapshot header is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private interface WordSource {
+        void fill(long startWord, int words, ByteBuffer chunk);
+    }
+}
@@ -0,0 +1,604 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.HashFunctions;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.FilterArena;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.OffHeapBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.PagedBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidSnapshotException;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Bloom wire format.
+ * <p>
+ * Compressed stream format for shipping built bloom filters between nodes. A filter sized with headroom
+ * has far fewer bits set than its m, so instead of always sending m bits the encoder measures the fill
+ * and picks the smallest of three encodings of the bitmap, preferring raw words unless a gap encoding saves over 1/16:
+ * </p>
+ * <ul>
+ *     <li>{@link Encoding#RAW}, the 64bit words as they are, best for filters filled as sized</li>
+ *     <li>{@link Encoding#VARINT_GAPS}, gaps between set bits as variable length integers, best for very sparse or clustered bitmaps</li>
+ *     <li>{@link Encoding#GOLOMB_RICE}, gaps between set bits Golomb-Rice coded with a parameter derived from the fill,
+ *     close to the entropy of a randomly filled bitmap</li>
+ * </ul>
+ *
+ * <p>Decoding reads the stream once, straight into the target bitmap on the heap or in a {@link FilterArena},
+ * without buffering the encoded bitmap. It reads byte by byte and never past the end of the filter,
+ * so unbuffered streams are best wrapped into a {@link java.io.BufferedInputStream}.
+ * The stream carries the same parameters as a {@link BloomSnapshot}, little-endian, and is not closed by either side:</p>
+ * <pre>
+ * int    magic "MBLW"
+ * short  format version
+ * byte   probe mode, 0 = one position per hash function, 1 = double hashing
+ * byte   number of hash functions h
+ * int    k, number of bit positions per key
+ * int    seed from {@link BloomProperties}
+ * double collision probability
+ * long   m, number of bits in bitmap
+ * byte   encoding
+ * byte   Golomb-Rice parameter
+ * long   number of set bits n
+ * h * (int hash function id, int hash function seed)
+ * bitmap in the encoding
+ * </pre>
+ *
+ * @author Miko Nukka
+ */
+public final class BloomWire {
+    static final int MAGIC = 0x4D424C57;
+    static final short VERSION = 1;
+    private static final int FIXED_HEADER_BYTES = 42;
+    private static final int BUFFER_BYTES = 8192;
+
+    /**
+     * Encoding of the bitmap.
+     */
+    public enum Encoding {
+        RAW,
+        VARINT_GAPS,
+        GOLOMB_RICE
+    }
+
+    private BloomWire() {
+    }
+
+    /**
+     * Write bloom filter into stream in its smallest encoding.
+     *
+     * @param filter the filter
+     * @param output the stream, flushed but not closed
+     * @return the encoding picked
+     * @throws IllegalStateException if filter has not been created yet
+     * @throws IllegalArgumentException if filter uses a hash function which is not built-in
+     * @throws UnexpectedIOException if writing fails
+     */
+    public static Encoding write(BloomFilter32<?> filter, OutputStream output) {
+        return write(filter, output, null);
+    }
+
+    /**
+     * Write bloom filter into stream in its smallest encoding.
+     *
+     * @param filter the filter
+     * @param output the stream, flushed but not closed
+     * @return the encoding picked
+     * @throws IllegalStateException if filter has not been created yet
+     * @throws IllegalArgumentException if filter uses a hash function which is not built-in
+     * @throws UnexpectedIOException if writing fails
+     * @see #write(BloomFilter32, OutputStream)
+     */
+    public static Encoding write(BloomFilter64<?> filter, OutputStream output) {
+        return write(filter, output, null);
+    }
+
+    /**
+     * Write mapped bloom filter, e.g. a loaded snapshot, into stream in its smallest encoding.
+     *
+     * @param filter the filter
+     * @param output the stream, flushed but not closed
+     * @return the encoding picked
+     * @throws IllegalArgumentException if filter uses a hash function which is not built-in
+     * @throws UnexpectedIOException if writing fails
+     * @see #write(BloomFilter32, OutputStream)
+     */
+    public static Encoding write(MappedBloomFilter<?> filter, OutputStream output) {
+        return write(filter, output, null);
+    }
+
+    static Encoding write(BloomFilter32<?> filter, OutputStream output, Encoding encoding) {
+        final BitSet bitMap = filter.bitMap();
+        if (bitMap == null) {
+            throw new IllegalStateException("BloomFilter32 is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        final long[] words = bitMap.toLongArray();
+        return write(output, filter.isDoubleHashing(), filter.hashFunctions(), filter.getProperties(),
+                index -> index < words.length ? words[(int) index] : 0L, encoding);
+    }
+
+    static Encoding write(BloomFilter64<?> filter, OutputStream output, Encoding encoding) {
+        final IBitmap bitMap = filter.bitMap();
+        if (bitMap == null) {
+            throw new IllegalStateException("BloomFilter64 is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        return write(output, true, List.of(filter.hashFunction()), filter.getProperties(), bitMap::getWord, encoding);
+    }
+
+    static Encoding write(MappedBloomFilter<?> filter, OutputStream output, Encoding encoding) {
+        return write(output, filter.isDoubleHashing(), filter.hashFunctions(), filter.getProperties(), filter.bitMap()::getWord, encoding);
+    }
+
+    /**
+     * Read bloom filter from stream into a bitmap on the heap, which is allowed to take at most the maximum heap size.
+     *
+     * @param input      the stream, read up to the end of the filter but not closed
+     * @param keyEncoder encoder the filter was built with
+     * @param <T>        the type parameter for keys
+     * @return filter answering lookups like the one written
+     * @throws InvalidSnapshotException if stream does not hold a valid filter
+     * @throws UnexpectedIOException if reading fails
+     * @see #read(InputStream, IKeyEncoder, long)
+     */
+    public static <T> MappedBloomFilter<T> read(InputStream input, IKeyEncoder<? super T> keyEncoder) {
+        return read(input, keyEncoder, Math.min(Long.MAX_VALUE / Byte.SIZE, Runtime.getRuntime().maxMemory()) * Byte.SIZE);
+    }
+
+    /**
+     * Read bloom filter from stream into a bitmap on the heap.
+     *
+     * The bitmap is allocated before its payload is read, so the size claimed by the stream is checked
+     * against <i>maxBitmapSize</i> first, a corrupt header must not get to allocate whatever it claims.
+     *
+     * @param input         the stream, read up to the end of the filter but not closed
+     * @param keyEncoder    encoder the filter was built with
+     * @param maxBitmapSize largest bitmap in bits the stream may hold
+     * @param <T>           the type parameter for keys
+     * @return filter answering lookups like the one written
+     * @throws IllegalArgumentException if <i>maxBitmapSize</i> is not positive
+     * @throws InvalidSnapshotException if stream does not hold a valid filter or its bitmap is larger than <i>maxBitmapSize</i>
+     * @throws UnexpectedIOException if reading fails
+     */
+    public static <T> MappedBloomFilter<T> read(InputStream input, IKeyEncoder<? super T> keyEncoder, long maxBitmapSize) {
+        if (input == null || keyEncoder == null) {
+            throw new NullPointerException("read must be provided with non-null arguments as parameters");
+        }
+        if (maxBitmapSize < 1) {
+            throw new IllegalArgumentException("Maximum bitmap size must be positive");
+        }
+        final Reader reader = new Reader(input);
+        final Header header = readHeader(reader);
+        if (header.properties.getBitmapSize() > maxBitmapSize) {
+            throw new InvalidSnapshotException("Stream bitmap of " + header.properties.getBitmapSize()
+                    + " bits is larger than the maximum of " + maxBitmapSize + " bits");
+        }
+        final PagedBitmap bitmap = new PagedBitmap(header.properties.getBitmapSize());
+        readBitmap(reader, header, bitmap::setWord);
+        return new MappedBloomFilter<>(bitmap, header.hashFunctions, header.doubleHashing, keyEncoder, header.properties);
+    }
+
+    /**
+     * Read bloom filter from stream into direct memory of the arena.
+     *
+     * The bitmap stays reserved in the arena until it is given back with {@link FilterArena#release(OffHeapBitmap)},
+     * see {@link MappedBloomFilter#bitMap()}. The arena budget bounds the size a stream can claim.
+     *
+     * @param input      the stream, read up to the end of the filter but not closed
+     * @param keyEncoder encoder the filter was built with
+     * @param arena      arena to allocate the bitmap in
+     * @param <T>        the type parameter for keys
+     * @return filter answering lookups like the one written
+     * @throws IllegalStateException if the arena has no room for the bitmap
+     * @throws InvalidSnapshotException if stream does not hold a valid filter
+     * @throws UnexpectedIOException if reading fails
+     */
+    public static <T> MappedBloomFilter<T> read(InputStream input, IKeyEncoder<? super T> keyEncoder, FilterArena arena) {
+        if (input == null || keyEncoder == null || arena == null) {
+            throw new NullPointerException("read must be provided with non-null arguments as parameters");
+        }
+        final Reader reader = new Reader(input);
+        final Header header = readHeader(reader);
+        final OffHeapBitmap bitmap = arena.allocate(header.properties.getBitmapSize());
+        if (bitmap == null) {
+            throw new IllegalStateException("Arena has no room for a bitmap of " + header.properties.getBitmapSize() + " bits");
+        }
+        try {
+            readBitmap(reader, header, bitmap::setWord);
+        } catch (RuntimeException e) {
+            arena.release(bitmap);
+            throw e;
+        }
+        return new MappedBloomFilter<>(bitmap, header.hashFunctions, header.doubleHashing, keyEncoder, header.properties);
+    }
+
+    private static Encoding write(OutputStream output, boolean doubleHashing, List<IHashFunction> hashFunctionList,
+                                  BloomProperties properties, LongUnaryOperator words, Encoding forced) {
+        if (output == null) {
+            throw new NullPointerException("write must be provided with non-null arguments as parameters");
+        }
+        for (IHashFunction hashFunction : hashFunctionList) {
+            if (hashFunction.getId() == HashFunctions.CUSTOM) {
+                throw new IllegalArgumentException(hashFunction.getClass().getName() + " is not a built-in hash function and can not be sent");
+            }
+        }
+
+        final long bitmapSize = properties.getBitmapSize();
+        final long wordCount = (bitmapSize + 63) >>> 6;
+        long setBits = 0;
+        for (long i = 0; i < wordCount; i++) {
+            setBits += Long.bitCount(words.applyAsLong(i));
+        }
+        final int riceParameter = riceParameter(setBits, bitmapSize);
+
+        Encoding encoding = forced;
+        if (encoding == null) {
+            // Exact payload sizes, measured over the set bits before writing anything
+            long varintBytes = 0;
+            long riceBits = 0;
+            long previous = -1;
+            for (long i = 0; i < wordCount; i++) {
+                long word = words.applyAsLong(i);
+                while (word != 0) {
+                    final long position = (i << 6) + Long.numberOfTrailingZeros(word);
+                    final long gap = position - previous - 1;
+                    varintBytes += varLongSize(gap);
+                    riceBits += (gap >>> riceParameter) + 1 + riceParameter;
+                    previous = position;
+                    word &= word - 1;
+                }
+            }
+            // Gap encodings of a bitmap filled as sized or fuller come out about as large as the raw words,
+            // they are only picked when they save enough to pay for their slower decoding
+            final long rawBytes = wordCount << 3;
+            final long riceBytes = (riceBits + 7) >>> 3;
+            final long threshold = rawBytes - (rawBytes >>> 4);
+            encoding = Math.min(varintBytes, riceBytes) >= threshold ? Encoding.RAW
+                    : varintBytes <= riceBytes ? Encoding.VARINT_GAPS : Encoding.GOLOMB_RICE;
+        }
+
+        final Writer writer = new Writer(output);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES + hashFunctionList.size() * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .put(doubleHashing ? BloomSnapshot.PROBE_DOUBLE_HASHING : BloomSnapshot.PROBE_PER_HASH_FUNCTION)
+                    .put((byte) hashFunctionList.size())
+                    .putInt(properties.getHashFunctionCount())
+                    .putInt(properties.getSeed())
+                    .putDouble(properties.getCollisionProbability())
+                    .putLong(bitmapSize)
+                    .put((byte) encoding.ordinal())
+                    .put((byte) riceParameter)
+                    .putLong(setBits);
+            for (IHashFunction hashFunction : hashFunctionList) {
+                header.putInt(hashFunction.getId()).putInt(hashFunction.getHashSeed());
+            }
+            writer.writeBytes(header.array());
+
+            if (encoding == Encoding.RAW) {
+                for (long i = 0; i < wordCount; i++) {
+                    writer.writeLong(words.applyAsLong(i));
+                }
+            } else {
+                long previous = -1;
+                for (long i = 0; i < wordCount; i++) {
+                    long word = words.applyAsLong(i);
+                    while (word != 0) {
+                        final long position = (i << 6) + Long.numberOfTrailingZeros(word);
+                        final long gap = position - previous - 1;
+                        if (encoding == Encoding.VARINT_GAPS) {
+                            writer.writeVarLong(gap);
+                        } else {
+                            writer.writeRice(gap, riceParameter);
+                        }
+                        previous = position;
+                        word &= word - 1;
+                    }
+                }
+            }
+            writer.flush();
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+        return encoding;
+    }
+
+    private static Header readHeader(Reader reader) {
+        try {
+            final ByteBuffer fixed = ByteBuffer.wrap(reader.readBytes(FIXED_HEADER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            if (fixed.getInt() != MAGIC) {
+                throw new InvalidSnapshotException("Stream does not hold a bloom filter");
+            }
+            final short version = fixed.getShort();
+            if (version != VERSION) {
+                throw new InvalidSnapshotException("Unsupported wire format version " + version);
+            }
+            final byte probeMode = fixed.get();
+            final int hashFunctionCount = fixed.get() & 0xFF;
+            final BloomProperties properties = new BloomProperties();
+            properties.setHashFunctionCount(fixed.getInt());
+            properties.setSeed(fixed.getInt());
+            properties.setCollisionProbability(fixed.getDouble());
+            properties.setBitmapSize(fixed.getLong());
+            final int encoding = fixed.get();
+            final int riceParameter = fixed.get();
+            final long setBits = fixed.getLong();
+
+            final ByteBuffer functions = ByteBuffer.wrap(reader.readBytes(hashFunctionCount * 8)).order(ByteOrder.LITTLE_ENDIAN);
+            final List<IHashFunction> hashFunctionList = new ArrayList<>(hashFunctionCount);
+            for (int i = 0; i < hashFunctionCount; i++) {
+                hashFunctionList.add(HashFunctions.create(functions.getInt(), functions.getInt()));
+            }
+
+            if (probeMode != BloomSnapshot.PROBE_PER_HASH_FUNCTION && probeMode != BloomSnapshot.PROBE_DOUBLE_HASHING) {
+                throw new InvalidSnapshotException("Unknown probe mode " + probeMode);
+            }
+            final int k = properties.getHashFunctionCount();
+            if (probeMode == BloomSnapshot.PROBE_DOUBLE_HASHING
+                    ? hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)
+                    : hashFunctionList.size() != k) {
+                throw new InvalidSnapshotException("Stream hash functions do not match its probe mode");
+            }
+            if (k < 1 || k > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+                throw new InvalidSnapshotException("Invalid hash function count " + k);
+            }
+            if (encoding < 0 || encoding >= Encoding.values().length || riceParameter < 0 || riceParameter > 62) {
+                throw new InvalidSnapshotException("Unknown encoding " + encoding + " with parameter " + riceParameter);
+            }
+            if (properties.getBitmapSize() < 1 || setBits < 0 || setBits > properties.getBitmapSize()) {
+                throw new InvalidSnapshotException("Invalid bitmap of " + properties.getBitmapSize() + " bits with " + setBits + " set");
+            }
+            return new Header(probeMode == BloomSnapshot.PROBE_DOUBLE_HASHING, hashFunctionList, properties,
+                    Encoding.values()[encoding], riceParameter, setBits);
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidSnapshotException(exception.getMessage());
+        }
+    }
+
+    private static void readBitmap(Reader reader, Header header, WordSink sink) {
+        final long bitmapSize = header.properties.getBitmapSize();
+        final long wordCount = (bitmapSize + 63) >>> 6;
+        try {
+            if (header.encoding == Encoding.RAW) {
+                long setBits = 0;
+                for (long i = 0; i < wordCount; i++) {
+                    final long word = reader.readLong();
+                    setBits += Long.bitCount(word);
+                    sink.setWord(i, word);
+                }
+                final int tailBits = (int) (bitmapSize & 63);
+                if (setBits != header.setBits || (tailBits != 0 && (reader.lastLong >>> tailBits) != 0)) {
+                    throw new InvalidSnapshotException("Stream bitmap is corrupted");
+                }
+                return;
+            }
+
+            long previous = -1;
+            long wordIndex = -1;
+            long word = 0;
+            for (long n = 0; n < header.setBits; n++) {
+                final long gap = header.encoding == Encoding.VARINT_GAPS
+                        ? reader.readVarLong()
+                        : reader.readRice(header.riceParameter, bitmapSize);
+                final long position = previous + 1 + gap;
+                if (gap < 0 || position < 0 || position >= bitmapSize) {
+                    throw new InvalidSnapshotException("Stream bitmap is corrupted");
+                }
+                if (position >>> 6 != wordIndex) {
+                    if (wordIndex >= 0) {
+                        sink.setWord(wordIndex, word);
+                    }
+                    wordIndex = position >>> 6;
+                    word = 0;
+                }
+                word |= 1L << position;
+                previous = position;
+            }
+            if (wordIndex >= 0) {
+                sink.setWord(wordIndex, word);
+            }
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Golomb-Rice parameter for gaps between <i>setBits</i> bits spread over <i>bitmapSize</i> bits.
+     * Gaps of a randomly filled bitmap are geometric, their optimal parameter is about log2(mean gap * ln 2).
+     */
+    static int riceParameter(long setBits, long bitmapSize) {
+        if (setBits == 0) {
+            return 0;
+        }
+        final double scaledGap = (double) (bitmapSize - setBits) / setBits * Math.log(2);
+        return scaledGap < 1 ? 0 : Math.min(62, 63 - Long.numberOfLeadingZeros((long) scaledGap));
+    }
+
+    private static int varLongSize(long value) {
+        return Math.max(1, (70 - Long.numberOfLeadingZeros(value)) / 7);
+    }
+
+    private interface WordSink {
+        void setWord(long wordIndex, long word);
+    }
+
+    private static final class Header {
+        private final boolean doubleHashing;
+        private final List<IHashFunction> hashFunctions;
+        private final BloomProperties properties;
+        private final Encoding encoding;
+        private final int riceParameter;
+        private final long setBits;
+
+        private Header(boolean doubleHashing, List<IHashFunction> hashFunctions, BloomProperties properties,
+                       Encoding encoding, int riceParameter, long setBits) {
+            this.doubleHashing = doubleHashing;
+            this.hashFunctions = hashFunctions;
+            this.properties = properties;
+            this.encoding = encoding;
+            this.riceParameter = riceParameter;
+            this.setBits = setBits;
+        }
+    }
+
+    /**
+     * Buffered byte and bit writer, bits are packed starting from the highest bit of a byte.
+     */
+    private static final class Writer {
+        private final OutputStream output;
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+        private int length;
+        private int bitBuffer;
+        private int bitCount;
+
+        private Writer(OutputStream output) {
+            this.output = output;
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (length == buffer.length) {
+                output.write(buffer, 0, length);
+                length = 0;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            for (byte value : bytes) {
+                writeByte(value);
+            }
+        }
+
+        private void writeLong(long value) throws IOException {
+            for (int i = 0; i < Long.BYTES; i++) {
+                writeByte((int) (value >>> (i << 3)));
+            }
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeRice(long value, int parameter) throws IOException {
+            for (long quotient = value >>> parameter; quotient > 0; quotient--) {
+                writeBit(1);
+            }
+            writeBit(0);
+            for (int i = parameter - 1; i >= 0; i--) {
+                writeBit((int) (value >>> i) & 1);
+            }
+        }
+
+        private void writeBit(int bit) throws IOException {
+            bitBuffer = (bitBuffer << 1) | bit;
+            if (++bitCount == 8) {
+                writeByte(bitBuffer);
+                bitBuffer = 0;
+                bitCount = 0;
+            }
+        }
+
+        private void flush() throws IOException {
+            if (bitCount > 0) {
+                writeByte(bitBuffer << (8 - bitCount));
+                bitBuffer = 0;
+                bitCount = 0;
+            }
+            output.write(buffer, 0, length);
+            length = 0;
+            output.flush();
+        }
+    }
+
+    /**
+     * Byte and bit reader, counterpart of {@link Writer}.
+     * Never reads past the end of the filter, so a stream can hold more than one.
+     */
+    private static final class Reader {
+        private final InputStream input;
+        private int bitBuffer;
+        private int bitCount;
+        private long lastLong;
+
+        private Reader(InputStream input) {
+            this.input = input;
+        }
+
+        private int readByte() throws IOException {
+            final int value = input.read();
+            if (value < 0) {
+                throw new InvalidSnapshotException("Stream ends before the end of the filter");
+            }
+            return value;
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            final byte[] bytes = input.readNBytes(length);
+            if (bytes.length != length) {
+                throw new InvalidSnapshotException("Stream ends before the end of the filter");
+            }
+            return bytes;
+        }
+
+        private long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value |= (long) readByte() << (i << 3);
+            }
+            lastLong = value;
+            return value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int next = readByte();
+                value |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new InvalidSnapshotException("Stream bitmap is corrupted");
+        }
+
+        private long readRice(int parameter, long bitmapSize) throws IOException {
+            long quotient = 0;
+            while (readBit() == 1) {
+                if (++quotient > (bitmapSize >>> parameter)) {
+                    throw new InvalidSnapshotException("Stream bitmap is corrupted");
+                }
+            }
+            long value = quotient << parameter;
+            for (int i = parameter - 1; i >= 0; i--) {
+                value |= (long) readBit() << i;
+            }
+            return value;
+        }
+
+        private int readBit() throws IOException {
+            if (bitCount == 0) {
+                bitBuffer = readByte();
+                bitCount = 8;
+            }
+            return (bitBuffer >>> --bitCount) & 1;
+        }
+    }
+}
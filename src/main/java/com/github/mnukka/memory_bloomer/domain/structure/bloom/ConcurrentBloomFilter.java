@@ -0,0 +1,343 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.api.IMutableMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashBatch;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.AtomicBitmap;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Concurrent bloom filter.
+ * <p>
+ * Mutable bloom filter which keeps accepting keys after it has been created.
+ * Any number of threads can call {@link #add(Object)} and {@link #isKeyPresent(Object)} at the same time without locking,
+ * bits are set with an atomic OR in {@link AtomicBitmap}.
+ * A key is visible to lookups once its {@link #add(Object)} call has returned.
+ * </p>
+ *
+ * <p>Bitmap is sized once for the expected number of insertions. Adding more keys than that keeps working,
+ * but the collision probability grows past the configured one,
+ * see {@link #getEstimatedCollisionProbability()} to keep an eye on it.</p>
+ *
+ * @param <T> the type parameter for elements which are to be hashed within bitmap of bloom filter
+ *
+ * @author Miko Nukka
+ */
+public final class ConcurrentBloomFilter<T> implements IDataStructure<T>, IMutableMemoryCache<T>, IFilterStatistics {
+    private static final double COLLISION_PROBABILITY = 0.005;
+
+    private volatile AtomicBitmap bitMap;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private long bitmapSize;
+    private int hashFunctionCount;
+    private final LongAdder bitCount = new LongAdder();
+    private final BloomProperties properties = new BloomProperties();
+    private final long expectedInsertions;
+    private final double collisionProbability;
+    private final int configuredHashFunctionCount;
+
+    /**
+     * Create concurrent bloom filter with collision probability of p=0.005.
+     *
+     * @param expectedInsertions number of elements the bitmap is sized for
+     */
+    public ConcurrentBloomFilter(long expectedInsertions) {
+        this(expectedInsertions, COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create concurrent bloom filter with given collision probability.
+     *
+     * @param expectedInsertions   number of elements the bitmap is sized for
+     * @param collisionProbability the collision probability, in range (0, 1)
+     */
+    public ConcurrentBloomFilter(long expectedInsertions, double collisionProbability) {
+        this(expectedInsertions, collisionProbability, 0);
+    }
+
+    /**
+     * Create concurrent bloom filter with given collision probability and number of probes per key.
+     *
+     * @param expectedInsertions   number of elements the bitmap is sized for
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @param hashFunctionCount    number of bit positions derived per key, 0 picks the optimal count for collision probability
+     * @throws IllegalArgumentException if any of the arguments is out of range
+     */
+    public ConcurrentBloomFilter(long expectedInsertions, double collisionProbability, int hashFunctionCount) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Bloom filter must expect at least one item to be stored in the cache");
+        }
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        if (hashFunctionCount < 0 || hashFunctionCount > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+            throw new IllegalArgumentException("Hash function count must be in range [0, " + BloomMath.MAX_HASH_FUNCTION_COUNT + "]");
+        }
+        this.expectedInsertions = expectedInsertions;
+        this.collisionProbability = collisionProbability;
+        this.configuredHashFunctionCount = hashFunctionCount;
+    }
+
+    /**
+     * Create concurrent bloom filter cache
+     *
+     * Bitmap is sized for the larger of expected insertions and <i>input</i> size. <i>input</i> may be empty.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @return instance of ConcurrentBloomFilter
+     * @throws NullPointerException if <i>hashFunctionList</i>, <i>keyEncoder</i> or <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null || input.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        addAll(input);
+        return this;
+    }
+
+    /**
+     * Create concurrent bloom filter cache by adding initial data on the workers of given pool.
+     *
+     * @param hashFunctionList single thread-safe 128bit hash function
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @param pool             the pool to build on
+     * @return instance of ConcurrentBloomFilter
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final List<T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        ParallelBuild.forEach(pool, input, this::add);
+        return this;
+    }
+
+    /**
+     * Create concurrent bloom filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @return instance of ConcurrentBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        input.forEach(this::add);
+        return this;
+    }
+
+    /**
+     * Create concurrent bloom filter cache from keys which are not held in a list, adding them on the workers of given pool.
+     *
+     * @param hashFunctionList single thread-safe 128bit hash function
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @param pool             the pool to build on
+     * @return instance of ConcurrentBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        input.forEach(pool, this::add);
+        return this;
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final long inputSize) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("ConcurrentBloomFilter must be provided a single IHashFunction128");
+        }
+
+        synchronized (this) {
+            if (bitMap != null) {
+                throw new IllegalStateException("ConcurrentBloomFilter has already been created");
+            }
+            this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+            this.keyEncoder = keyEncoder;
+            this.hashFunctionCount = configuredHashFunctionCount != 0
+                    ? configuredHashFunctionCount
+                    : BloomMath.optimalHashFunctionCount(collisionProbability);
+            createBitmap(Math.max(expectedInsertions, inputSize));
+        }
+    }
+
+    /**
+     * Add key to the bitmap.
+     *
+     * @param input the key
+     * @return true if any bit changed, meaning the key was definitely not present before
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean add(T input) {
+        final AtomicBitmap bitMap = initializedBitmap(input);
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, input);
+        boolean changed = false;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (bitMap.trySet(probe.position(i, bitmapSize))) {
+                bitCount.increment();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Check if value is present in the bitmap for bloom filter
+     *
+     * @param input key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        final AtomicBitmap bitMap = initializedBitmap(input);
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, input);
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (!bitMap.get(probe.position(i, bitmapSize))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check many keys at once.
+     *
+     * Keys are hashed {@link DoubleHashBatch#SIZE} at a time, then the bitmap is probed for the first bit of every key in the batch,
+     * then for the second one and so on, so memory loads of independent keys overlap.
+     *
+     * @param keys   the keys
+     * @param result array receiving result of {@link #isKeyPresent(Object)} for each key at the index of the key
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException if <i>keys</i>, <i>result</i> or any of the keys is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    @Override
+    public void isKeysPresent(final List<? extends T> keys, final boolean[] result) {
+        final AtomicBitmap bitMap = this.bitMap;
+        if (bitMap == null) {
+            throw new IllegalStateException("ConcurrentBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        BloomLookup.isKeysPresent(keys, result, hashFunction, keyEncoder, hashFunctionCount,
+                (batch, slot, i) -> bitMap.get(batch.position(slot, i, bitmapSize)));
+    }
+
+    /**
+     * Number of bits currently set in the bitmap.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        return bitCount.sum();
+    }
+
+    /**
+     * Collision probability at the current fill of the bitmap.
+     *
+     * Starts at zero and grows as keys are added, reaching the configured one around expected insertions.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        return bitMap == null ? 0 : BloomMath.estimateCollisionProbability(hashFunctionCount, getBitCount(), bitmapSize);
+    }
+
+    /**
+     * Number of distinct keys in the filter, estimated from the fill of the bitmap.
+     *
+     * @return the estimated element count
+     */
+    public long getEstimatedElementCount() {
+        return bitMap == null ? 0 : Math.round(BloomMath.estimateElementCount(hashFunctionCount, getBitCount(), bitmapSize));
+    }
+
+    /**
+     * Gets properties for currently built bloom filter.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    AtomicBitmap bitMap() {
+        return bitMap;
+    }
+
+    IHashFunction128 hashFunction() {
+        return hashFunction;
+    }
+
+    private void createBitmap(final long insertions) {
+        bitmapSize = Math.max(1L, (long) BloomMath.optimalBits(hashFunctionCount, insertions, collisionProbability));
+
+        properties.setCollisionProbability(collisionProbability);
+        properties.setBitmapSize(bitmapSize);
+        properties.setHashFunctionCount(hashFunctionCount);
+        properties.setSeed(hashFunction.getHashSeed());
+        bitMap = new AtomicBitmap(bitmapSize);
+    }
+
+    private AtomicBitmap initializedBitmap(final T input) {
+        final AtomicBitmap bitMap = this.bitMap;
+        if (bitMap == null) {
+            throw new IllegalStateException("ConcurrentBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        if (input == null) {
+            throw new NullPointerException("ConcurrentBloomFilter does not expect null as an argument");
+        }
+        return bitMap;
+    }
+}
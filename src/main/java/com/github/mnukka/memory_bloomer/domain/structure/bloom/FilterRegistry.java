@@ -0,0 +1,358 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.FilterArena;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.OffHeapBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Filter registry.
+ * <p>
+ * Named bloom filters, e.g. one per customer, sharing a {@link FilterArena}. Bitmaps live in direct memory,
+ * so their size does not add to garbage collection pauses however many filters the JVM holds.
+ * </p>
+ *
+ * <p>When a filter does not fit into the budget of the arena, cold filters are evicted: their bitmap is written
+ * to a {@link BloomSnapshot} in the spill directory, once, and its memory is given back to the arena.
+ * The registry is a {@link FilterArena.Evictor} of its arena, so registries sharing an arena evict each other's filters too.
+ * The {@link IMemoryCache} handed out for a name stays valid, a lookup of an evicted filter loads it back first.
+ * Filters are picked for eviction with the clock algorithm: a lookup marks its filter as recently used,
+ * the clock hand passes over marked filters once, clearing the mark, and evicts the first unmarked one.
+ * Marking is a single volatile write, and only when the mark is not set yet, so lookups do not contend.</p>
+ *
+ * <p>Filters are read-only once created. Every filter uses the double hashing of the registry's hash function.</p>
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public final class FilterRegistry<T> {
+    private static final double COLLISION_PROBABILITY = 0.005;
+
+    private final FilterArena arena;
+    private final Path spillDirectory;
+    private final IHashFunction128 hashFunction;
+    private final IKeyEncoder<? super T> keyEncoder;
+    private final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final List<Tenant> clock = new ArrayList<>();
+    private final AtomicLong spillSequence = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private int hand;
+
+    /**
+     * Create registry.
+     *
+     * @param arena          arena holding bitmaps of resident filters
+     * @param spillDirectory existing directory evicted filters are written to
+     * @param hashFunction   hash function of every filter
+     * @param keyEncoder     encoder which turns keys into bytes for hash function
+     * @throws NullPointerException if any of the arguments is not defined
+     */
+    public FilterRegistry(FilterArena arena, Path spillDirectory, IHashFunction128 hashFunction, IKeyEncoder<? super T> keyEncoder) {
+        if (arena == null || spillDirectory == null || hashFunction == null || keyEncoder == null) {
+            throw new NullPointerException("FilterRegistry must be provided with non-null arguments as parameters");
+        }
+        this.arena = arena;
+        this.spillDirectory = spillDirectory;
+        this.hashFunction = hashFunction;
+        this.keyEncoder = keyEncoder;
+        arena.register(this::evictOne);
+    }
+
+    /**
+     * Create filter with collision probability of p=0.005.
+     *
+     * @param name name of the filter
+     * @param keys keys of the filter
+     * @return cache answering lookups from the filter whether it is resident or not
+     * @see #create(String, List, double)
+     */
+    public IMemoryCache<T> create(String name, List<T> keys) {
+        return create(name, keys, COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create filter, evicting cold filters if the arena has no room for it.
+     *
+     * @param name                 name of the filter
+     * @param keys                 keys of the filter
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @return cache answering lookups from the filter whether it is resident or not
+     * @throws NullPointerException if any of the arguments or keys is not defined
+     * @throws IllegalArgumentException if the filter is larger than the whole budget of the arena
+     * @throws IllegalStateException if a filter of the name already exists or the arena is full of filters which can not be evicted
+     */
+    public IMemoryCache<T> create(String name, List<T> keys, double collisionProbability) {
+        if (name == null || keys == null || keys.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("create must be provided with non-null arguments as parameters");
+        }
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+
+        final int hashFunctionCount = BloomMath.optimalHashFunctionCount(collisionProbability);
+        final long bitmapSize = Math.max(1L, (long) BloomMath.optimalBits(hashFunctionCount, Math.max(1, keys.size()), collisionProbability));
+        if (!arena.fits(bitmapSize)) {
+            throw new IllegalArgumentException("Filter " + name + " of " + OffHeapBitmap.byteSize(bitmapSize)
+                    + " bytes is larger than the arena budget of " + arena.getBudgetBytes() + " bytes");
+        }
+        final BloomProperties properties = new BloomProperties();
+        properties.setCollisionProbability(collisionProbability);
+        properties.setBitmapSize(bitmapSize);
+        properties.setHashFunctionCount(hashFunctionCount);
+        properties.setSeed(hashFunction.getHashSeed());
+
+        final Tenant tenant = new Tenant(name, bitmapSize);
+        if (tenants.putIfAbsent(name, tenant) != null) {
+            throw new IllegalStateException("Filter " + name + " already exists");
+        }
+        tenant.lock.lock();
+        try {
+            final OffHeapBitmap bitmap = allocate(tenant);
+            tenant.bitmap = bitmap;
+            final DoubleHashProbe probe = DoubleHashProbe.forCurrentThread();
+            for (T key : keys) {
+                final KeyBuffer buffer = KeyBuffer.forCurrentThread();
+                keyEncoder.encode(key, buffer);
+                probe.hash(hashFunction, buffer.array(), 0, buffer.length());
+                for (int i = 0; i < hashFunctionCount; i++) {
+                    bitmap.set(probe.position(i, bitmapSize));
+                }
+            }
+            tenant.filter = new MappedBloomFilter<>(bitmap, List.of(hashFunction), true, keyEncoder, properties);
+        } catch (RuntimeException | Error e) {
+            tenant.lock.unlock();
+            remove(name);
+            throw e;
+        }
+        tenant.lock.unlock();
+        return tenant;
+    }
+
+    /**
+     * Get filter by name.
+     *
+     * @param name name of the filter
+     * @return cache answering lookups from the filter or null if there is no filter of the name
+     */
+    public IMemoryCache<T> get(String name) {
+        return tenants.get(name);
+    }
+
+    /**
+     * Remove filter, giving its memory back to the arena and deleting its snapshot.
+     * Caches handed out for it throw {@link IllegalStateException} afterwards.
+     *
+     * @param name name of the filter
+     * @return true if there was a filter of the name
+     */
+    public boolean remove(String name) {
+        final Tenant tenant = tenants.remove(name);
+        if (tenant == null) {
+            return false;
+        }
+        synchronized (this) {
+            final int index = clock.indexOf(tenant);
+            if (index >= 0) {
+                clock.remove(index);
+                if (hand > index) {
+                    hand--;
+                }
+            }
+        }
+        tenant.lock.lock();
+        try {
+            tenant.removed = true;
+            if (tenant.bitmap != null) {
+                arena.release(tenant.bitmap);
+                tenant.bitmap = null;
+                tenant.filter = null;
+            }
+            try {
+                if (tenant.snapshot != null) {
+                    Files.deleteIfExists(tenant.snapshot);
+                }
+            } catch (IOException exception) {
+                throw new UnexpectedIOException(exception.getMessage());
+            }
+        } finally {
+            tenant.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * @return number of filters whether resident or evicted
+     */
+    public int size() {
+        return tenants.size();
+    }
+
+    public synchronized int getResidentCount() {
+        return clock.size();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return filters loaded back from their snapshot
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public FilterArena getArena() {
+        return arena;
+    }
+
+    /**
+     * Resident filter of the tenant, loading it back from its snapshot if it has been evicted.
+     */
+    private MappedBloomFilter<T> resident(Tenant tenant) {
+        final MappedBloomFilter<T> filter = tenant.filter;
+        if (filter != null) {
+            if (!tenant.referenced) {
+                tenant.referenced = true;
+            }
+            return filter;
+        }
+        tenant.lock.lock();
+        try {
+            if (tenant.removed) {
+                throw new IllegalStateException("Filter " + tenant.name + " has been removed");
+            }
+            if (tenant.filter == null) {
+                final MappedBloomFilter<T> snapshot = BloomSnapshot.load(tenant.snapshot, keyEncoder);
+                final IBitmap mapped = snapshot.bitMap();
+                final OffHeapBitmap bitmap = allocate(tenant);
+                for (long i = 0; i < mapped.wordCount(); i++) {
+                    bitmap.setWord(i, mapped.getWord(i));
+                }
+                tenant.bitmap = bitmap;
+                tenant.filter = new MappedBloomFilter<>(bitmap, snapshot.hashFunctions(), true, keyEncoder, snapshot.getProperties());
+                loads.increment();
+            }
+            tenant.referenced = true;
+            return tenant.filter;
+        } finally {
+            tenant.lock.unlock();
+        }
+    }
+
+    /**
+     * Allocate bitmap of the tenant, evicting filters of this or other registries until the arena has room for it.
+     * Called holding the lock of the tenant, which is not on the clock then.
+     */
+    private OffHeapBitmap allocate(Tenant tenant) {
+        final OffHeapBitmap bitmap = arena.allocateEvicting(tenant.bitmapSize);
+        synchronized (this) {
+            clock.add(tenant);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Evict the next cold filter, called by the arena when it has no room for a new bitmap.
+     */
+    private boolean evictOne() {
+        final Tenant victim = nextVictim();
+        return victim != null && evict(victim);
+    }
+
+    private synchronized Tenant nextVictim() {
+        for (int step = 0; step < 2 * clock.size(); step++) {
+            if (hand >= clock.size()) {
+                hand = 0;
+            }
+            final Tenant candidate = clock.get(hand);
+            if (!candidate.referenced) {
+                clock.remove(hand);
+                return candidate;
+            }
+            candidate.referenced = false;
+            hand++;
+        }
+        return null;
+    }
+
+    /**
+     * Evict filter taken off the clock. A filter locked by another thread is put back instead,
+     * waiting for it could deadlock with that thread evicting the filter of this one.
+     */
+    private boolean evict(Tenant victim) {
+        if (!victim.lock.tryLock()) {
+            synchronized (this) {
+                if (!victim.removed) {
+                    clock.add(victim);
+                }
+            }
+            return false;
+        }
+        try {
+            if (victim.filter == null) {
+                return true;
+            }
+            if (victim.snapshot == null) {
+                final Path path = spillDirectory.resolve("filter-" + spillSequence.incrementAndGet() + ".mblm");
+                BloomSnapshot.write(victim.filter, path);
+                victim.snapshot = path;
+            }
+            final OffHeapBitmap bitmap = victim.bitmap;
+            victim.filter = null;
+            victim.bitmap = null;
+            arena.release(bitmap);
+            evictions.increment();
+            return true;
+        } finally {
+            victim.lock.unlock();
+        }
+    }
+
+    /**
+     * Handle of a named filter, stays valid while the filter is evicted and loaded back.
+     */
+    private final class Tenant implements IMemoryCache<T> {
+        private final String name;
+        private final long bitmapSize;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile MappedBloomFilter<T> filter;
+        private volatile boolean referenced = true;
+        private OffHeapBitmap bitmap;
+        private Path snapshot;
+        private volatile boolean removed;
+
+        private Tenant(String name, long bitmapSize) {
+            this.name = name;
+            this.bitmapSize = bitmapSize;
+        }
+
+        @Override
+        public boolean isKeyPresent(T key) {
+            return resident(this).isKeyPresent(key);
+        }
+
+        @Override
+        public void isKeysPresent(List<? extends T> keys, boolean[] result) {
+            resident(this).isKeysPresent(keys, result);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMutableMemoryCache;
+
+/**
+ * Long bloom filter.
+ * <p>
+ * Bloom filter specialised for numeric ids. {@code BloomFilter32<Long>} boxes every key and turns it into bytes before hashing,
+ * this filter mixes the primitive directly, so neither {@link #add(long)} nor {@link #isKeyPresent(long)} allocates.
+ * Keys can be added from many threads after the filter has been created.
+ * </p>
+ *
+ * <p>The boxed {@link IMutableMemoryCache} methods are there to plug the filter into the rest of the library,
+ * they unbox and delegate to the primitive ones.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class LongBloomFilter extends PrimitiveBloomFilter implements IMutableMemoryCache<Long> {
+
+    /**
+     * Create long bloom filter sized by the keys given to {@link #createCache(long[])}, with collision probability of p=0.005.
+     */
+    public LongBloomFilter() {
+        super(0);
+    }
+
+    /**
+     * Create long bloom filter with collision probability of p=0.005.
+     *
+     * @param expectedInsertions number of keys the bitmap is sized for, if the initial keys are fewer
+     */
+    public LongBloomFilter(long expectedInsertions) {
+        super(expectedInsertions);
+    }
+
+    /**
+     * Create long bloom filter.
+     *
+     * @param expectedInsertions   number of keys the bitmap is sized for, if the initial keys are fewer
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @param hashFunctionCount    number of bit positions per key, 0 picks the optimal count for collision probability
+     * @param seed                 the seed, filters with the same seed set the same bits for a key
+     * @throws IllegalArgumentException if any of the arguments is out of range
+     */
+    public LongBloomFilter(long expectedInsertions, double collisionProbability, int hashFunctionCount, int seed) {
+        super(expectedInsertions, collisionProbability, hashFunctionCount, seed);
+    }
+
+    /**
+     * Create cache from the initial keys.
+     *
+     * @param input the keys, may be empty
+     * @return instance of LongBloomFilter
+     * @throws NullPointerException if <i>input</i> is not defined
+     * @throws IllegalStateException if cache has already been created
+     */
+    public LongBloomFilter createCache(final long[] input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(input.length);
+        for (long key : input) {
+            addHashed(key);
+        }
+        return this;
+    }
+
+    /**
+     * Add key to the bitmap.
+     *
+     * @param key the key
+     * @return true if any bit changed, meaning the key was definitely not present before
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     */
+    public boolean add(final long key) {
+        return addHashed(key);
+    }
+
+    /**
+     * Check if key is present in the bitmap.
+     *
+     * @param key key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     */
+    public boolean isKeyPresent(final long key) {
+        return containsHashed(key);
+    }
+
+    /**
+     * Check many keys at once.
+     *
+     * @param keys the keys
+     * @return result of {@link #isKeyPresent(long)} for each key, in the order of <i>keys</i>
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException if <i>keys</i> is not defined
+     * @see #isKeysPresent(long[], boolean[])
+     */
+    public boolean[] isKeysPresent(final long[] keys) {
+        if (keys == null) {
+            throw new NullPointerException("isKeysPresent does not expect null as an argument");
+        }
+        final boolean[] result = new boolean[keys.length];
+        containsHashed(keys, result);
+        return result;
+    }
+
+    /**
+     * Check many keys at once, writing results into caller supplied array.
+     *
+     * Keys are hashed a batch at a time, with the Vector API where the runtime has it, before the bitmap is probed.
+     *
+     * @param keys   the keys
+     * @param result array receiving result of {@link #isKeyPresent(long)} for each key at the index of the key
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException if <i>keys</i> or <i>result</i> is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    public void isKeysPresent(final long[] keys, final boolean[] result) {
+        containsHashed(keys, result);
+    }
+
+    @Override
+    public boolean add(final Long key) {
+        if (key == null) {
+            throw new NullPointerException("LongBloomFilter does not expect null as an argument");
+        }
+        return addHashed(key);
+    }
+
+    @Override
+    public boolean isKeyPresent(final Long key) {
+        if (key == null) {
+            throw new NullPointerException("LongBloomFilter does not expect null as an argument");
+        }
+        return containsHashed(key);
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMutableMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+
+/**
+ * Long range bloom filter.
+ * <p>
+ * Like {@link LongBloomFilter}, but also answers whether any key within a range may exist.
+ * Besides the key itself every dyadic bucket containing it is inserted, i.e. the key with its lowest
+ * 1, 2, ... up to <i>maxLevel</i> bits cleared, each tagged with its level.
+ * A range query covers the range with the fewest such buckets and probes each of them,
+ * ranges up to 2<sup>maxLevel</sup> keys wide take at most 2 * maxLevel probes.
+ * </p>
+ *
+ * <p>A range which needs more than 2 * (maxLevel + 1) buckets is not probed and answered with true,
+ * so a wide range never gives a false negative but may give a false positive.
+ * Each probed bucket can be a false positive, so the collision probability of a range query
+ * is up to the number of probes times that of a single key. Every key costs maxLevel + 1 insertions.</p>
+ *
+ * @author Miko Nukka
+ */
+public final class LongRangeBloomFilter extends PrimitiveBloomFilter implements IMutableMemoryCache<Long> {
+    private static final double COLLISION_PROBABILITY = 0.005;
+
+    private final int maxLevel;
+    private final int maxRangeProbes;
+
+    /**
+     * Create long range bloom filter with collision probability of p=0.005.
+     *
+     * @param expectedInsertions number of keys the bitmap is sized for, if the initial keys are fewer
+     * @param maxLevel           ranges up to 2<sup>maxLevel</sup> keys wide are answered by probing, in range [0, 62]
+     */
+    public LongRangeBloomFilter(long expectedInsertions, int maxLevel) {
+        this(expectedInsertions, maxLevel, COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create long range bloom filter.
+     *
+     * @param expectedInsertions   number of keys the bitmap is sized for, if the initial keys are fewer
+     * @param maxLevel             ranges up to 2<sup>maxLevel</sup> keys wide are answered by probing, in range [0, 62]
+     * @param collisionProbability the collision probability of a single bucket, in range (0, 1)
+     * @throws IllegalArgumentException if any of the arguments is out of range
+     */
+    public LongRangeBloomFilter(long expectedInsertions, int maxLevel, double collisionProbability) {
+        super(bucketCount(expectedInsertions, maxLevel), collisionProbability, 0, IHashFunction.getSeed());
+        this.maxLevel = maxLevel;
+        this.maxRangeProbes = 2 * (maxLevel + 1);
+    }
+
+    /**
+     * Create cache from the initial keys.
+     *
+     * @param input the keys, may be empty
+     * @return instance of LongRangeBloomFilter
+     * @throws NullPointerException if <i>input</i> is not defined
+     * @throws IllegalStateException if cache has already been created
+     */
+    public LongRangeBloomFilter createCache(final long[] input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(bucketCount(input.length, maxLevel));
+        for (long key : input) {
+            add(key);
+        }
+        return this;
+    }
+
+    /**
+     * Add key and its buckets to the bitmap.
+     *
+     * @param key the key
+     * @return true if any bit changed, meaning the key was definitely not present before
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     */
+    public boolean add(final long key) {
+        final long position = key ^ Long.MIN_VALUE;
+        boolean changed = false;
+        for (int level = 0; level <= maxLevel; level++) {
+            changed |= addHashed(bucket(level, position));
+        }
+        return changed;
+    }
+
+    /**
+     * Check if key is present in the bitmap.
+     *
+     * @param key key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     */
+    public boolean isKeyPresent(final long key) {
+        return containsHashed(bucket(0, key ^ Long.MIN_VALUE));
+    }
+
+    /**
+     * Check if any key in the range is present in the bitmap.
+     *
+     * @param from lowest key of the range, inclusive
+     * @param to   highest key of the range, inclusive
+     * @return boolean value which indicates whether a key of the range is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws IllegalArgumentException if <i>from</i> is greater than <i>to</i>
+     */
+    public boolean mayContainRange(final long from, final long to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Range start " + from + " is greater than its end " + to);
+        }
+        // Flipping the sign bit turns signed order into unsigned order, so buckets of negative keys line up too
+        long low = from ^ Long.MIN_VALUE;
+        final long high = to ^ Long.MIN_VALUE;
+        for (int probes = 0; probes < maxRangeProbes; probes++) {
+            int level = Math.min(maxLevel, Long.numberOfTrailingZeros(low));
+            while (level > 0 && Long.compareUnsigned(high - low, (1L << level) - 1) < 0) {
+                level--;
+            }
+            if (containsHashed(bucket(level, low))) {
+                return true;
+            }
+            final long last = low + ((1L << level) - 1);
+            if (Long.compareUnsigned(last, high) >= 0) {
+                return false;
+            }
+            low = last + 1;
+        }
+        return true;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public boolean add(final Long key) {
+        if (key == null) {
+            throw new NullPointerException("LongRangeBloomFilter does not expect null as an argument");
+        }
+        return add(key.longValue());
+    }
+
+    @Override
+    public boolean isKeyPresent(final Long key) {
+        if (key == null) {
+            throw new NullPointerException("LongRangeBloomFilter does not expect null as an argument");
+        }
+        return isKeyPresent(key.longValue());
+    }
+
+    /**
+     * Key of the bucket at given level holding the position, the start of the bucket mixed with its level.
+     * Level is added after the seeded start is mixed, a linear combination would let every key alias
+     * a fixed key on each other level.
+     */
+    private long bucket(final int level, final long position) {
+        final long start = (position >>> level) << level;
+        return Murmur3Hash128.fmix64(Murmur3Hash128.fmix64(start ^ seedMix()) + level);
+    }
+
+    private static long bucketCount(final long keys, final int maxLevel) {
+        if (maxLevel < 0 || maxLevel > 62) {
+            throw new IllegalArgumentException("Maximum level must be in range [0, 62]");
+        }
+        if (keys < 0) {
+            throw new IllegalArgumentException("Expected insertions must not be negative");
+        }
+        return keys > Long.MAX_VALUE / (maxLevel + 1) ? Long.MAX_VALUE : keys * (maxLevel + 1);
+    }
+}
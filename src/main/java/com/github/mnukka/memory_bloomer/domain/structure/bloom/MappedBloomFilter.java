@@ -0,0 +1,166 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashBatch;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+
+import java.util.List;
+
+/**
+ * Mapped bloom filter.
+ *
+ * Read-only bloom filter loaded with {@link BloomSnapshot#load(java.nio.file.Path, IKeyEncoder)}.
+ * Lookups probe the memory mapped snapshot directly and give the same answers as the filter the snapshot was written from.
+ * Filters combined by {@link BloomMerge} are of this type too, backed by a bitmap on the heap.
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public final class MappedBloomFilter<T> implements IMemoryCache<T>, IFilterStatistics {
+    private final IBitmap bitMap;
+    private final List<IHashFunction> hashFunctionList;
+    private final IHashFunction128 probeHashFunction;
+    private final IKeyEncoder<? super T> keyEncoder;
+    private final BloomProperties properties;
+    private final long bitmapSize;
+    private final int hashFunctionCount;
+    private volatile long bitCount = -1;
+
+    MappedBloomFilter(IBitmap bitMap, List<IHashFunction> hashFunctionList, boolean doubleHashing,
+                      IKeyEncoder<? super T> keyEncoder, BloomProperties properties) {
+        this.bitMap = bitMap;
+        this.hashFunctionList = hashFunctionList;
+        this.probeHashFunction = doubleHashing ? (IHashFunction128) hashFunctionList.get(0) : null;
+        this.keyEncoder = keyEncoder;
+        this.properties = properties;
+        this.bitmapSize = properties.getBitmapSize();
+        this.hashFunctionCount = properties.getHashFunctionCount();
+    }
+
+    /**
+     * Check if value is present in the mapped bitmap
+     *
+     * @param input key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        if (input == null) {
+            throw new NullPointerException("isKeyPresent does not expect null as an argument");
+        }
+
+        final KeyBuffer key = KeyBuffer.forCurrentThread();
+        keyEncoder.encode(input, key);
+        if (probeHashFunction != null) {
+            final DoubleHashProbe probe = DoubleHashProbe.forCurrentThread().hash(probeHashFunction, key.array(), 0, key.length());
+            for (int i = 0; i < hashFunctionCount; i++) {
+                if (!bitMap.get(probe.position(i, bitmapSize))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        for (IHashFunction hashFunction : hashFunctionList) {
+            if (!bitMap.get(hashFunction.hash32(key.array(), 0, key.length(), (int) bitmapSize))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check many keys at once.
+     *
+     * With a single {@link IHashFunction128} keys are hashed {@link DoubleHashBatch#SIZE} at a time,
+     * then the bitmap is probed for the first bit of every key in the batch, then for the second one and so on,
+     * so memory loads of independent keys overlap. Other hash functions check keys one by one.
+     *
+     * @param keys   the keys
+     * @param result array receiving result of {@link #isKeyPresent(Object)} for each key at the index of the key
+     * @throws NullPointerException if <i>keys</i>, <i>result</i> or any of the keys is not defined
+     * @throws IllegalArgumentException if <i>result</i> is shorter than <i>keys</i>
+     */
+    @Override
+    public void isKeysPresent(final List<? extends T> keys, final boolean[] result) {
+        if (probeHashFunction == null) {
+            IMemoryCache.super.isKeysPresent(keys, result);
+            return;
+        }
+
+        BloomLookup.isKeysPresent(keys, result, probeHashFunction, keyEncoder, hashFunctionCount,
+                (batch, slot, i) -> bitMap.get(batch.position(slot, i, bitmapSize)));
+    }
+
+    /**
+     * Gets properties read from the snapshot.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Number of bits set in the mapped bitmap, counted on first call.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        long count = bitCount;
+        if (count < 0) {
+            count = bitMap.cardinality();
+            bitCount = count;
+        }
+        return count;
+    }
+
+    /**
+     * Collision probability at the fill of the mapped bitmap.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        return BloomMath.estimateCollisionProbability(hashFunctionCount, getBitCount(), bitmapSize);
+    }
+
+    /**
+     * Number of distinct keys in the filter, estimated from the fill of the bitmap.
+     *
+     * For a union of filters this counts keys of all of them once, see {@link BloomMerge}.
+     *
+     * @return the estimated element count
+     */
+    public long getEstimatedElementCount() {
+        return Math.round(BloomMath.estimateElementCount(hashFunctionCount, getBitCount(), bitmapSize));
+    }
+
+    /**
+     * Bitmap the filter answers from, e.g. to give an {@code OffHeapBitmap} back to its arena once the filter is no longer used.
+     *
+     * @return the bitmap
+     */
+    public IBitmap bitMap() {
+        return bitMap;
+    }
+
+    List<IHashFunction> hashFunctions() {
+        return hashFunctionList;
+    }
+
+    boolean isDoubleHashing() {
+        return probeHashFunction != null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Parallel build.
+ * <p>
+ * Splits input list into ranges and hands every element to an action on the workers of a {@link ForkJoinPool}.
+ * Action has to be thread-safe, filters pass one which hashes the key and sets its bits with an atomic OR.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+final class ParallelBuild {
+    private static final int MIN_LEAF_SIZE = 1024;
+    private static final int LEAVES_PER_WORKER = 8;
+
+    private ParallelBuild() {
+    }
+
+    /**
+     * Run action for every element of input on given pool and wait for it to finish.
+     *
+     * @param pool   the pool to run on
+     * @param input  the input
+     * @param action action called once per element, from any of the workers
+     * @param <T>    the type parameter for elements
+     * @throws NullPointerException if any element of <i>input</i> is not defined
+     */
+    static <T> void forEach(final ForkJoinPool pool, final List<T> input, final Consumer<? super T> action) {
+        final List<T> elements = input instanceof RandomAccess ? input : new ArrayList<>(input);
+        // A few leaves per worker keeps them busy when some ranges hash slower than others
+        final int leafSize = Math.max(MIN_LEAF_SIZE, elements.size() / (pool.getParallelism() * LEAVES_PER_WORKER));
+        pool.invoke(new RangeAction<>(elements, 0, elements.size(), leafSize, action));
+    }
+
+    private static final class RangeAction<T> extends RecursiveAction {
+        private final List<T> input;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final Consumer<? super T> action;
+
+        private RangeAction(List<T> input, int from, int to, int leafSize, Consumer<? super T> action) {
+            this.input = input;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    final T element = input.get(i);
+                    if (element == null) {
+                        throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+                    }
+                    action.accept(element);
+                }
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction<>(input, from, middle, leafSize, action),
+                    new RangeAction<>(input, middle, to, leafSize, action));
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.HashFunctions;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.PagedBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidSnapshotException;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Partitioned bloom filter.
+ * <p>
+ * Bloom filter for key sets whose bitmap does not fit into memory. Every key is routed by its hash to one of
+ * P partitions, each partition is a bloom filter of its own, sized by the number of keys routed to it
+ * and stored as a page aligned run of words in a single file. Only the index of the partitions is kept in memory,
+ * together with an LRU cache of recently used partitions. A partition which is not cached is read with one
+ * positional read, so a lookup costs at most one page read and memory is bounded by the cache, not by the key count.
+ * </p>
+ *
+ * <p>Layout, all values little-endian:</p>
+ * <pre>
+ * int    magic "MBLP"
+ * short  format version
+ * short  reserved, 0
+ * int    hash function id
+ * int    hash function seed
+ * int    k, number of bit positions per key
+ * int    P, number of partitions
+ * double collision probability
+ * P * (long offset of page, long m, number of bits in partition, long number of bits set)
+ * pages, each starting at a multiple of 4096 bytes and holding (m + 63) / 64 words
+ * </pre>
+ *
+ * <p>The file is built by {@link #write(Path, IHashFunction128, IKeyEncoder, IKeySource, int)}, which visits the keys once
+ * to count them per partition and then once for every group of partitions which fits the build memory.
+ * Key encoder is not persisted, the file has to be opened with the same encoder it was built with.</p>
+ *
+ * <p>Lookups are thread safe. Two threads missing the same partition at once may both read it.
+ * Interrupting a thread during a read closes the file, like for any {@link FileChannel}.</p>
+ *
+ * @param <T> the type parameter for keys
+ *
+ * @author Miko Nukka
+ */
+public final class PartitionedBloomFilter<T> implements IMemoryCache<T>, IFilterStatistics, AutoCloseable {
+    static final int MAGIC = 0x4D424C50;
+    static final short VERSION = 1;
+    static final int PAGE_BYTES = 4096;
+    private static final int HEADER_BYTES = 32;
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final double COLLISION_PROBABILITY = 0.005;
+    private static final long BUILD_MEMORY_BYTES = 256L << 20;
+    // Largest page a heap ByteBuffer can hold, in whole words
+    private static final long MAX_PARTITION_BITS = ((Integer.MAX_VALUE - 8) & ~7L) * Byte.SIZE;
+    private static final int MAX_PARTITION_COUNT = (Integer.MAX_VALUE - HEADER_BYTES) / INDEX_ENTRY_BYTES;
+
+    private final FileChannel channel;
+    private final IHashFunction128 hashFunction;
+    private final IKeyEncoder<? super T> keyEncoder;
+    private final int hashFunctionCount;
+    private final long[] offsets;
+    private final long[] bitmapSizes;
+    private final long[] bitCounts;
+    private final BloomProperties properties;
+    private final Map<Integer, IBitmap> cache;
+    private final LongAdder pageReads = new LongAdder();
+
+    private PartitionedBloomFilter(FileChannel channel, IHashFunction128 hashFunction, IKeyEncoder<? super T> keyEncoder,
+                                   int hashFunctionCount, long[] offsets, long[] bitmapSizes, long[] bitCounts,
+                                   BloomProperties properties, int cachedPartitions) {
+        this.channel = channel;
+        this.hashFunction = hashFunction;
+        this.keyEncoder = keyEncoder;
+        this.hashFunctionCount = hashFunctionCount;
+        this.offsets = offsets;
+        this.bitmapSizes = bitmapSizes;
+        this.bitCounts = bitCounts;
+        this.properties = properties;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, IBitmap> eldest) {
+                return size() > cachedPartitions;
+            }
+        };
+    }
+
+    /**
+     * Build partitioned filter file with collision probability of p=0.005, holding at most 256MB of partitions in memory at once.
+     *
+     * @param path           the path of the file, replaced if exists
+     * @param hashFunction   128bit built-in hash function
+     * @param keyEncoder     encoder which turns keys into bytes for hash function
+     * @param keys           the keys, visited more than once
+     * @param partitionCount number of partitions
+     * @param <T>            the type parameter for keys
+     * @see #write(Path, IHashFunction128, IKeyEncoder, IKeySource, int, double, long)
+     */
+    public static <T> void write(Path path, IHashFunction128 hashFunction, IKeyEncoder<? super T> keyEncoder,
+                                 IKeySource<? extends T> keys, int partitionCount) {
+        write(path, hashFunction, keyEncoder, keys, partitionCount, COLLISION_PROBABILITY, BUILD_MEMORY_BYTES);
+    }
+
+    /**
+     * Build partitioned filter file.
+     *
+     * Keys are visited once to count them per partition, then partitions are built in groups which fit <i>buildMemoryBytes</i>,
+     * visiting the keys once per group. The file is written next to <i>path</i> first and moved in place when complete.
+     *
+     * @param path                 the path of the file, replaced if exists
+     * @param hashFunction         128bit built-in hash function
+     * @param keyEncoder           encoder which turns keys into bytes for hash function
+     * @param keys                 the keys, visited more than once
+     * @param partitionCount       number of partitions
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @param buildMemoryBytes     memory for partitions being built, a partition larger than this is built on its own
+     * @param <T>                  the type parameter for keys
+     * @throws NullPointerException if any of the arguments or any of the keys is not defined
+     * @throws IllegalArgumentException if any of the arguments is out of range, if <i>hashFunction</i> is not built-in
+     * or if a partition would be larger than 2GB
+     * @throws UnexpectedIOException if writing fails
+     */
+    public static <T> void write(Path path, IHashFunction128 hashFunction, IKeyEncoder<? super T> keyEncoder,
+                                 IKeySource<? extends T> keys, int partitionCount, double collisionProbability,
+                                 long buildMemoryBytes) {
+        if (path == null || hashFunction == null || keyEncoder == null || keys == null) {
+            throw new NullPointerException("write must be provided with non-null arguments as parameters");
+        }
+        if (hashFunction.getId() == HashFunctions.CUSTOM) {
+            throw new IllegalArgumentException(hashFunction.getClass().getName() + " is not a built-in hash function and can not be persisted");
+        }
+        if (partitionCount < 1 || partitionCount > MAX_PARTITION_COUNT) {
+            throw new IllegalArgumentException("Partition count must be in range [1, " + MAX_PARTITION_COUNT + "]");
+        }
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        if (buildMemoryBytes < 1) {
+            throw new IllegalArgumentException("Build memory must be positive");
+        }
+
+        final long[] keyCounts = new long[partitionCount];
+        keys.forEach(key -> keyCounts[partition(BloomLookup.hash(hashFunction, keyEncoder, key), partitionCount)]++);
+
+        final int hashFunctionCount = BloomMath.optimalHashFunctionCount(collisionProbability);
+        final long[] offsets = new long[partitionCount];
+        final long[] bitmapSizes = new long[partitionCount];
+        final long[] bitCounts = new long[partitionCount];
+        long offset = alignToPage(HEADER_BYTES + (long) partitionCount * INDEX_ENTRY_BYTES);
+        for (int i = 0; i < partitionCount; i++) {
+            bitmapSizes[i] = Math.max(64L, (long) BloomMath.optimalBits(hashFunctionCount, Math.max(1L, keyCounts[i]), collisionProbability));
+            if (bitmapSizes[i] > MAX_PARTITION_BITS) {
+                throw new IllegalArgumentException("Partition " + i + " would be larger than 2GB, use more partitions");
+            }
+            offsets[i] = offset;
+            offset = alignToPage(offset + pageBytes(bitmapSizes[i]));
+        }
+
+        final Path temporary = BloomSnapshot.createTemporary(path);
+        try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            int first = 0;
+            while (first < partitionCount) {
+                int last = first + 1;
+                long groupBytes = pageBytes(bitmapSizes[first]);
+                while (last < partitionCount && groupBytes + pageBytes(bitmapSizes[last]) <= buildMemoryBytes) {
+                    groupBytes += pageBytes(bitmapSizes[last++]);
+                }
+                buildGroup(output, hashFunction, keyEncoder, keys, hashFunctionCount, first, last, offsets, bitmapSizes, bitCounts);
+                first = last;
+            }
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + partitionCount * INDEX_ENTRY_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort((short) 0)
+                    .putInt(hashFunction.getId())
+                    .putInt(hashFunction.getHashSeed())
+                    .putInt(hashFunctionCount)
+                    .putInt(partitionCount)
+                    .putDouble(collisionProbability);
+            for (int i = 0; i < partitionCount; i++) {
+                header.putLong(offsets[i]).putLong(bitmapSizes[i]).putLong(bitCounts[i]);
+            }
+            writeFully(output, header.flip(), 0);
+            output.force(false);
+        } catch (IOException exception) {
+            BloomSnapshot.deleteTemporary(temporary);
+            throw new UnexpectedIOException(exception.getMessage());
+        } catch (RuntimeException exception) {
+            BloomSnapshot.deleteTemporary(temporary);
+            throw exception;
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            BloomSnapshot.deleteTemporary(temporary);
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Open partitioned filter file, reading only its index.
+     *
+     * @param path             the path of the file
+     * @param keyEncoder       encoder the filter was built with
+     * @param cachedPartitions number of partitions kept in memory
+     * @param <T>              the type parameter for keys
+     * @return filter answering lookups from the file, to be closed when no longer used
+     * @throws InvalidSnapshotException if file is not a valid partitioned filter
+     * @throws IllegalArgumentException if <i>cachedPartitions</i> is not positive
+     * @throws UnexpectedIOException if reading fails
+     */
+    public static <T> PartitionedBloomFilter<T> open(Path path, IKeyEncoder<? super T> keyEncoder, int cachedPartitions) {
+        if (path == null || keyEncoder == null) {
+            throw new NullPointerException("open must be provided with non-null arguments as parameters");
+        }
+        if (cachedPartitions < 1) {
+            throw new IllegalArgumentException("Cached partition count must be positive");
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            final ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new InvalidSnapshotException(path + " is not a partitioned bloom filter");
+            }
+            final short version = header.getShort();
+            if (version != VERSION) {
+                throw new InvalidSnapshotException("Unsupported partitioned filter version " + version);
+            }
+            header.getShort();
+            final IHashFunction hashFunction = HashFunctions.create(header.getInt(), header.getInt());
+            final int hashFunctionCount = header.getInt();
+            final int partitionCount = header.getInt();
+            final double collisionProbability = header.getDouble();
+            if (!(hashFunction instanceof IHashFunction128)) {
+                throw new InvalidSnapshotException("Partitioned filter hash function is not a 128bit hash function");
+            }
+            if (hashFunctionCount < 1 || hashFunctionCount > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+                throw new InvalidSnapshotException("Invalid hash function count " + hashFunctionCount);
+            }
+            if (partitionCount < 1 || partitionCount > MAX_PARTITION_COUNT
+                    || partitionCount > (channel.size() - HEADER_BYTES) / INDEX_ENTRY_BYTES) {
+                throw new InvalidSnapshotException("Partitioned filter index is truncated or corrupted");
+            }
+
+            final ByteBuffer index = readFully(channel, HEADER_BYTES, partitionCount * INDEX_ENTRY_BYTES);
+            final long[] offsets = new long[partitionCount];
+            final long[] bitmapSizes = new long[partitionCount];
+            final long[] bitCounts = new long[partitionCount];
+            long bitmapSize = 0;
+            for (int i = 0; i < partitionCount; i++) {
+                offsets[i] = index.getLong();
+                bitmapSizes[i] = index.getLong();
+                bitCounts[i] = index.getLong();
+                if (bitmapSizes[i] < 1 || bitmapSizes[i] > MAX_PARTITION_BITS || bitCounts[i] < 0 || bitCounts[i] > bitmapSizes[i]
+                        || offsets[i] < HEADER_BYTES || offsets[i] > channel.size() - pageBytes(bitmapSizes[i])) {
+                    throw new InvalidSnapshotException("Partitioned filter page " + i + " is truncated or corrupted");
+                }
+                bitmapSize += bitmapSizes[i];
+            }
+
+            final BloomProperties properties = new BloomProperties();
+            properties.setCollisionProbability(collisionProbability);
+            properties.setBitmapSize(bitmapSize);
+            properties.setHashFunctionCount(hashFunctionCount);
+            properties.setSeed(hashFunction.getHashSeed());
+            return new PartitionedBloomFilter<>(channel, (IHashFunction128) hashFunction, keyEncoder, hashFunctionCount,
+                    offsets, bitmapSizes, bitCounts, properties, cachedPartitions);
+        } catch (IOException exception) {
+            close(channel);
+            throw new UnexpectedIOException(exception.getMessage());
+        } catch (IllegalArgumentException exception) {
+            close(channel);
+            throw new InvalidSnapshotException(exception.getMessage());
+        } catch (RuntimeException exception) {
+            close(channel);
+            throw exception;
+        }
+    }
+
+    /**
+     * Check if key is present in its partition, reading the partition if it is not cached.
+     *
+     * @param input key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws NullPointerException when provided null as an input argument
+     * @throws UnexpectedIOException if reading the partition fails or the filter has been closed
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        if (input == null) {
+            throw new NullPointerException("isKeyPresent does not expect null as an argument");
+        }
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, input);
+        final int partition = partition(probe, offsets.length);
+        final IBitmap bitMap = partitionBitmap(partition);
+        final long bitmapSize = bitmapSizes[partition];
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (!bitMap.get(probe.position(i, bitmapSize))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Close the file and drop cached partitions.
+     *
+     * @throws UnexpectedIOException if closing fails
+     */
+    @Override
+    public void close() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Gets properties of the filter, bitmap size being the sum of all partitions.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Number of bits set in all partitions, as counted when the file was built.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        long bitCount = 0;
+        for (long partitionBitCount : bitCounts) {
+            bitCount += partitionBitCount;
+        }
+        return bitCount;
+    }
+
+    /**
+     * Collision probability of a key which is not in the set, the mean of the partitions as keys are routed to them uniformly.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        double sum = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            sum += BloomMath.estimateCollisionProbability(hashFunctionCount, bitCounts[i], bitmapSizes[i]);
+        }
+        return sum / offsets.length;
+    }
+
+    public int getPartitionCount() {
+        return offsets.length;
+    }
+
+    public int getCachedPartitionCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return partitions read from the file since it was opened
+     */
+    public long getPageReadCount() {
+        return pageReads.sum();
+    }
+
+    private IBitmap partitionBitmap(final int partition) {
+        synchronized (cache) {
+            final IBitmap cached = cache.get(partition);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final IBitmap loaded = readPartition(partition);
+        synchronized (cache) {
+            final IBitmap raced = cache.putIfAbsent(partition, loaded);
+            return raced != null ? raced : loaded;
+        }
+    }
+
+    private IBitmap readPartition(final int partition) {
+        final long bitmapSize = bitmapSizes[partition];
+        final PagedBitmap bitMap = new PagedBitmap(bitmapSize);
+        try {
+            final ByteBuffer page = readFully(channel, offsets[partition], (int) pageBytes(bitmapSize));
+            for (long i = 0; i < bitMap.wordCount(); i++) {
+                bitMap.setWord(i, page.getLong());
+            }
+        } catch (IOException exception) {
+            throw new UnexpectedIOException(exception.getMessage());
+        }
+        pageReads.increment();
+        return bitMap;
+    }
+
+    private static <T> void buildGroup(FileChannel output, IHashFunction128 hashFunction, IKeyEncoder<? super T> keyEncoder,
+                                       IKeySource<? extends T> keys, int hashFunctionCount, int first, int last,
+                                       long[] offsets, long[] bitmapSizes, long[] bitCounts) throws IOException {
+        final int partitionCount = offsets.length;
+        final IBitmap[] group = new IBitmap[last - first];
+        for (int i = first; i < last; i++) {
+            group[i - first] = new PagedBitmap(bitmapSizes[i]);
+        }
+        keys.forEach(key -> {
+            final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, key);
+            final int partition = partition(probe, partitionCount);
+            if (partition >= first && partition < last) {
+                final IBitmap bitMap = group[partition - first];
+                for (int i = 0; i < hashFunctionCount; i++) {
+                    bitMap.set(probe.position(i, bitmapSizes[partition]));
+                }
+            }
+        });
+        for (int i = first; i < last; i++) {
+            final IBitmap bitMap = group[i - first];
+            final ByteBuffer page = ByteBuffer.allocate((int) pageBytes(bitmapSizes[i])).order(ByteOrder.LITTLE_ENDIAN);
+            for (long word = 0; word < bitMap.wordCount(); word++) {
+                page.putLong(bitMap.getWord(word));
+            }
+            writeFully(output, page.flip(), offsets[i]);
+            bitCounts[i] = bitMap.cardinality();
+            group[i - first] = null;
+        }
+    }
+
+
+    /**
+     * Partition of the key, taken from its second hash remixed, so keys of one partition still spread over all of its bits.
+     */
+    private static int partition(final DoubleHashProbe probe, final int partitionCount) {
+        return (int) DoubleHashProbe.reduce(Murmur3Hash128.fmix64(probe.h2()), partitionCount);
+    }
+
+    private static long pageBytes(final long bitmapSize) {
+        return ((bitmapSize + 63) >>> 6) << 3;
+    }
+
+    private static long alignToPage(final long position) {
+        return (position + PAGE_BYTES - 1) / PAGE_BYTES * PAGE_BYTES;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new InvalidSnapshotException("Partitioned filter is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void close(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the original failure is the one worth reporting
+            }
+        }
+    }
+}
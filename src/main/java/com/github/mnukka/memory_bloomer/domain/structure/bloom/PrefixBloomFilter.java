@@ -0,0 +1,256 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.IBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.PagedBitmap;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Prefix bloom filter.
+ * <p>
+ * Bloom filter over composite keys which, besides exact keys, answers whether any key with a given prefix exists,
+ * e.g. any key of a tenant or a partition. A prefix extractor maps every key to its prefix,
+ * both the key and its prefix are put into one bitmap. Prefix hashes are remixed before probing,
+ * so a prefix never answers for a key with the same bytes or the other way around.
+ * </p>
+ *
+ * <p>The bitmap is sized for a distinct prefix per key, fewer distinct prefixes leave it emptier
+ * and lower the collision probability. For ranges of numeric keys see {@link LongRangeBloomFilter}.</p>
+ *
+ * @param <T> the type parameter for keys
+ * @param <P> the type parameter for prefixes
+ *
+ * @author Miko Nukka
+ */
+public final class PrefixBloomFilter<T, P> implements IDataStructure<T>, IMemoryCache<T>, IFilterStatistics {
+    private static final double COLLISION_PROBABILITY = 0.005;
+    private static final long PREFIX_SALT = 0x9E3779B97F4A7C15L;
+
+    private volatile IBitmap bitMap;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private long bitmapSize;
+    private int hashFunctionCount;
+    private long bitCount;
+    private final BloomProperties properties = new BloomProperties();
+    private final Function<? super T, ? extends P> prefixExtractor;
+    private final IKeyEncoder<? super P> prefixEncoder;
+    private final double collisionProbability;
+
+    /**
+     * Create prefix bloom filter encoding prefixes with the {@link DefaultKeyEncoder}, with collision probability of p=0.005.
+     *
+     * @param prefixExtractor maps key to its prefix, null when the key has none
+     */
+    public PrefixBloomFilter(Function<? super T, ? extends P> prefixExtractor) {
+        this(prefixExtractor, new DefaultKeyEncoder(), COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create prefix bloom filter.
+     *
+     * @param prefixExtractor      maps key to its prefix, null when the key has none
+     * @param prefixEncoder        encoder which turns prefixes into bytes for hash function
+     * @param collisionProbability the collision probability, in range (0, 1)
+     * @throws IllegalArgumentException if <i>collisionProbability</i> is out of range
+     */
+    public PrefixBloomFilter(Function<? super T, ? extends P> prefixExtractor, IKeyEncoder<? super P> prefixEncoder,
+                             double collisionProbability) {
+        if (prefixExtractor == null || prefixEncoder == null) {
+            throw new NullPointerException("PrefixBloomFilter must be provided with non-null arguments as parameters");
+        }
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        this.prefixExtractor = prefixExtractor;
+        this.prefixEncoder = prefixEncoder;
+        this.collisionProbability = collisionProbability;
+    }
+
+    /**
+     * Create prefix bloom filter cache
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns keys into bytes for hash function
+     * @param input            input of data to be hashed and stored in bitmap
+     * @return instance of PrefixBloomFilter
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> list does not contain at least one item
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null || input.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        return build(hashFunctionList, keyEncoder, input.size(), input::forEach);
+    }
+
+    /**
+     * Create prefix bloom filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns keys into bytes for hash function
+     * @param input            the keys, bitmap is sized by their count
+     * @return instance of PrefixBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> does not contain at least one item
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        return build(hashFunctionList, keyEncoder, input.size(), input::forEach);
+    }
+
+    private IMemoryCache build(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                               final long size, final Consumer<Consumer<T>> input) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("PrefixBloomFilter must be provided a single IHashFunction128");
+        }
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Bloom filter must be provided at least one item to be stored in the cache");
+        }
+
+        synchronized (this) {
+            if (this.bitMap != null) {
+                throw new IllegalStateException("PrefixBloomFilter has already been created");
+            }
+            this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+            this.keyEncoder = keyEncoder;
+            this.hashFunctionCount = BloomMath.optimalHashFunctionCount(collisionProbability);
+            this.bitmapSize = Math.max(1L, (long) BloomMath.optimalBits(hashFunctionCount, 2L * size, collisionProbability));
+            final IBitmap bitMap = new PagedBitmap(bitmapSize);
+
+            input.accept(element -> {
+                setBits(bitMap, BloomLookup.hash(hashFunction, keyEncoder, element));
+                final P prefix = prefixExtractor.apply(element);
+                if (prefix != null) {
+                    setBits(bitMap, hashPrefix(prefix));
+                }
+            });
+
+            properties.setCollisionProbability(collisionProbability);
+            properties.setBitmapSize(bitmapSize);
+            properties.setHashFunctionCount(hashFunctionCount);
+            properties.setSeed(hashFunction.getHashSeed());
+            this.bitCount = bitMap.cardinality();
+            this.bitMap = bitMap;
+        }
+        return this;
+    }
+
+    /**
+     * Check if key is present in the bitmap
+     *
+     * @param input key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        checkInitialized(input);
+        return probe(BloomLookup.hash(hashFunction, keyEncoder, input));
+    }
+
+    /**
+     * Check if any key with given prefix is present in the bitmap
+     *
+     * @param prefix prefix to check, as returned by the prefix extractor
+     * @return boolean value which indicates whether a key with the prefix is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    public boolean isPrefixPresent(P prefix) {
+        checkInitialized(prefix);
+        return probe(hashPrefix(prefix));
+    }
+
+    /**
+     * Gets properties for currently built bloom filter.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Number of bits set in the bitmap by keys and prefixes, counted once the filter has been built.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Collision probability at the fill of the built bitmap, the same for keys and prefixes.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        return bitMap == null ? 0 : BloomMath.estimateCollisionProbability(hashFunctionCount, bitCount, bitmapSize);
+    }
+
+    private void checkInitialized(final Object input) {
+        if (hashFunction == null || bitMap == null) {
+            throw new IllegalStateException("PrefixBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        if (input == null) {
+            throw new NullPointerException("PrefixBloomFilter does not expect null as an argument");
+        }
+    }
+
+    private boolean probe(final DoubleHashProbe probe) {
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (!bitMap.get(probe.position(i, bitmapSize))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setBits(final IBitmap bitMap, final DoubleHashProbe probe) {
+        for (int i = 0; i < hashFunctionCount; i++) {
+            bitMap.set(probe.position(i, bitmapSize));
+        }
+    }
+
+
+    private DoubleHashProbe hashPrefix(final P prefix) {
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, prefixEncoder, prefix);
+        return probe.set(Murmur3Hash128.fmix64(probe.h1() ^ PREFIX_SALT), Murmur3Hash128.fmix64(probe.h2() + PREFIX_SALT));
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.LongHashBatch;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.AtomicBitmap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Primitive bloom filter.
+ * <p>
+ * Common part of {@link LongBloomFilter} and {@link IntBloomFilter}. Keys are mixed with {@link Murmur3Hash128#fmix64(long)}
+ * into two 64bit hashes which feed double hashing, so a key is never boxed, encoded or copied into a byte array.
+ * Like {@link ConcurrentBloomFilter} bits are set with an atomic OR and keys can be added after the filter has been created.
+ * </p>
+ *
+ * <p>Batch lookups hash keys with {@link LongHashBatch}, which uses the Vector API where the runtime has it.</p>
+ *
+ * @author Miko Nukka
+ */
+abstract class PrimitiveBloomFilter implements IFilterStatistics {
+    private static final double COLLISION_PROBABILITY = 0.005;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private volatile AtomicBitmap bitMap;
+    private long bitmapSize;
+    private int hashFunctionCount;
+    private final int seed;
+    private final long seedMix;
+    private final LongAdder bitCount = new LongAdder();
+    private final BloomProperties properties = new BloomProperties();
+    private final long expectedInsertions;
+    private final double collisionProbability;
+    private final int configuredHashFunctionCount;
+
+    PrimitiveBloomFilter(long expectedInsertions, double collisionProbability, int hashFunctionCount, int seed) {
+        if (expectedInsertions < 0) {
+            throw new IllegalArgumentException("Expected insertions must not be negative");
+        }
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        if (hashFunctionCount < 0 || hashFunctionCount > BloomMath.MAX_HASH_FUNCTION_COUNT) {
+            throw new IllegalArgumentException("Hash function count must be in range [0, " + BloomMath.MAX_HASH_FUNCTION_COUNT + "]");
+        }
+        this.expectedInsertions = expectedInsertions;
+        this.collisionProbability = collisionProbability;
+        this.configuredHashFunctionCount = hashFunctionCount;
+        this.seed = seed;
+        this.seedMix = Murmur3Hash128.fmix64(seed ^ GOLDEN_GAMMA);
+    }
+
+    PrimitiveBloomFilter(long expectedInsertions) {
+        this(expectedInsertions, COLLISION_PROBABILITY, 0, IHashFunction.getSeed());
+    }
+
+    final void initialize(final long inputSize) {
+        synchronized (this) {
+            if (bitMap != null) {
+                throw new IllegalStateException(getClass().getSimpleName() + " has already been created");
+            }
+            hashFunctionCount = configuredHashFunctionCount != 0
+                    ? configuredHashFunctionCount
+                    : BloomMath.optimalHashFunctionCount(collisionProbability);
+            final long insertions = Math.max(1, Math.max(expectedInsertions, inputSize));
+            bitmapSize = Math.max(1L, (long) BloomMath.optimalBits(hashFunctionCount, insertions, collisionProbability));
+
+            properties.setCollisionProbability(collisionProbability);
+            properties.setBitmapSize(bitmapSize);
+            properties.setHashFunctionCount(hashFunctionCount);
+            properties.setSeed(seed);
+            bitMap = new AtomicBitmap(bitmapSize);
+        }
+    }
+
+    /**
+     * Seed mixed into every key, for subclasses deriving keys which must not be predictable either.
+     */
+    final long seedMix() {
+        return seedMix;
+    }
+
+    final boolean addHashed(final long key) {
+        final AtomicBitmap bitMap = initializedBitmap();
+        final long h1 = Murmur3Hash128.fmix64(key ^ seedMix);
+        final long h2 = Murmur3Hash128.fmix64(h1 + GOLDEN_GAMMA);
+        boolean changed = false;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (bitMap.trySet(DoubleHashProbe.reduce(h1 + i * h2, bitmapSize))) {
+                bitCount.increment();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    final boolean containsHashed(final long key) {
+        final AtomicBitmap bitMap = initializedBitmap();
+        final long h1 = Murmur3Hash128.fmix64(key ^ seedMix);
+        final long h2 = Murmur3Hash128.fmix64(h1 + GOLDEN_GAMMA);
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (!bitMap.get(DoubleHashProbe.reduce(h1 + i * h2, bitmapSize))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    final void containsHashed(final long[] keys, final boolean[] result) {
+        final AtomicBitmap bitMap = initializedBitmap();
+        if (keys == null || result == null) {
+            throw new NullPointerException("isKeysPresent does not expect null as an argument");
+        }
+        BloomLookup.checkResultLength(keys.length, result);
+        final LongHashBatch batch = LongHashBatch.forCurrentThread();
+        final BloomLookup.SlotProbe probe = (slot, i) -> bitMap.get(batch.position(slot, i, bitmapSize));
+        for (int from = 0; from < keys.length; from += LongHashBatch.SIZE) {
+            final int count = Math.min(LongHashBatch.SIZE, keys.length - from);
+            batch.hash(keys, from, count, seedMix);
+            BloomLookup.probeBatch(count, result, from, hashFunctionCount, probe);
+        }
+    }
+
+    final void containsHashed(final int[] keys, final boolean[] result) {
+        final AtomicBitmap bitMap = initializedBitmap();
+        if (keys == null || result == null) {
+            throw new NullPointerException("isKeysPresent does not expect null as an argument");
+        }
+        BloomLookup.checkResultLength(keys.length, result);
+        final LongHashBatch batch = LongHashBatch.forCurrentThread();
+        final BloomLookup.SlotProbe probe = (slot, i) -> bitMap.get(batch.position(slot, i, bitmapSize));
+        for (int from = 0; from < keys.length; from += LongHashBatch.SIZE) {
+            final int count = Math.min(LongHashBatch.SIZE, keys.length - from);
+            batch.hash(keys, from, count, seedMix);
+            BloomLookup.probeBatch(count, result, from, hashFunctionCount, probe);
+        }
+    }
+
+    /**
+     * Number of bits currently set in the bitmap.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        return bitCount.sum();
+    }
+
+    /**
+     * Collision probability at the current fill of the bitmap.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        return bitMap == null ? 0 : BloomMath.estimateCollisionProbability(hashFunctionCount, getBitCount(), bitmapSize);
+    }
+
+    /**
+     * Number of distinct keys in the filter, estimated from the fill of the bitmap.
+     *
+     * @return the estimated element count
+     */
+    public long getEstimatedElementCount() {
+        return bitMap == null ? 0 : Math.round(BloomMath.estimateElementCount(hashFunctionCount, getBitCount(), bitmapSize));
+    }
+
+    /**
+     * Gets properties for currently built bloom filter.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    private AtomicBitmap initializedBitmap() {
+        final AtomicBitmap bitMap = this.bitMap;
+        if (bitMap == null) {
+            throw new IllegalStateException(getClass().getSimpleName() + " is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        return bitMap;
+    }
+}
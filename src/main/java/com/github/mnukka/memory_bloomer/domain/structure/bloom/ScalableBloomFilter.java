@@ -0,0 +1,406 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.api.IMutableMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.AtomicBitmap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Scalable bloom filter.
+ * <p>
+ * Bloom filter for key sets of unknown size. Keys go into the newest stage until it holds as many keys as it was sized for,
+ * then a stage {@code growthFactor} times larger is added. Each stage is sized for a collision probability
+ * {@code tighteningRatio} times lower than the previous one, so collision probability of the whole filter,
+ * which is at most the sum of the stages' ones, is bounded by the configured one in expectation however many stages there are.
+ * A measured rate fluctuates around that bound once every stage is full.
+ * </p>
+ *
+ * <p>A key is hashed once, every stage derives its bit positions from the same 128bit hash.
+ * A lookup checks the stages newest first, a key which is not in the set checks all of them,
+ * which is the price for not knowing the size up front. Like {@link ConcurrentBloomFilter}
+ * keys can be added from many threads, bits are set with an atomic OR.</p>
+ *
+ * @param <T> the type parameter for elements which are to be hashed within bitmap of bloom filter
+ * @see <a href="https://doi.org/10.1016/j.ipl.2006.10.007">Scalable Bloom Filters</a>
+ *
+ * @author Miko Nukka
+ */
+public final class ScalableBloomFilter<T> implements IDataStructure<T>, IMutableMemoryCache<T>, IFilterStatistics {
+    private static final long INITIAL_CAPACITY = 1024;
+    private static final double COLLISION_PROBABILITY = 0.005;
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private volatile Stage[] stages;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private final BloomProperties properties = new BloomProperties();
+    private final long initialCapacity;
+    private final double collisionProbability;
+    private final int growthFactor;
+    private final double tighteningRatio;
+
+    /**
+     * Create scalable bloom filter starting at 1024 keys, with collision probability of p=0.005.
+     */
+    public ScalableBloomFilter() {
+        this(INITIAL_CAPACITY, COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create scalable bloom filter which doubles its capacity with every stage.
+     *
+     * @param initialCapacity      number of keys the first stage is sized for
+     * @param collisionProbability the collision probability of the whole filter, in range (0, 1)
+     */
+    public ScalableBloomFilter(long initialCapacity, double collisionProbability) {
+        this(initialCapacity, collisionProbability, GROWTH_FACTOR, TIGHTENING_RATIO);
+    }
+
+    /**
+     * Create scalable bloom filter.
+     *
+     * @param initialCapacity      number of keys the first stage is sized for
+     * @param collisionProbability the collision probability of the whole filter, in range (0, 1)
+     * @param growthFactor         how many times larger each stage is than the previous one, at least 1
+     * @param tighteningRatio      how many times lower collision probability of each stage is than of the previous one, in range (0, 1)
+     * @throws IllegalArgumentException if any of the arguments is out of range
+     */
+    public ScalableBloomFilter(long initialCapacity, double collisionProbability, int growthFactor, double tighteningRatio) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Bloom filter must expect at least one item to be stored in the cache");
+        }
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        if (growthFactor < 1) {
+            throw new IllegalArgumentException("Growth factor must be at least 1");
+        }
+        if (!(tighteningRatio > 0 && tighteningRatio < 1)) {
+            throw new IllegalArgumentException("Tightening ratio must be in range (0, 1)");
+        }
+        this.initialCapacity = initialCapacity;
+        this.collisionProbability = collisionProbability;
+        this.growthFactor = growthFactor;
+        this.tighteningRatio = tighteningRatio;
+    }
+
+    /**
+     * Create scalable bloom filter cache
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap, may be empty
+     * @return instance of ScalableBloomFilter
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        return createCache(hashFunctionList, keyEncoder, input.iterator());
+    }
+
+    /**
+     * Create scalable bloom filter cache from a stream of unknown size.
+     *
+     * Keys are encoded with {@link DefaultKeyEncoder}.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @return instance of ScalableBloomFilter
+     * @see #createCache(List, IKeyEncoder, Iterator)
+     */
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final Stream<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        return createCache(hashFunctionList, new DefaultKeyEncoder(), input.iterator());
+    }
+
+    /**
+     * Create scalable bloom filter cache from an iterator of unknown size.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @return instance of ScalableBloomFilter
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final Iterator<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder);
+        while (input.hasNext()) {
+            add(input.next());
+        }
+        return this;
+    }
+
+    /**
+     * Create scalable bloom filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @return instance of ScalableBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder);
+        input.forEach(this::add);
+        return this;
+    }
+
+    /**
+     * Create scalable bloom filter cache from keys which are not held in a list, adding them on the workers of given pool.
+     *
+     * @param hashFunctionList single thread-safe 128bit hash function
+     * @param keyEncoder       thread-safe encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @param pool             the pool to build on
+     * @return instance of ScalableBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input, final ForkJoinPool pool) {
+        if (input == null || pool == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder);
+        input.forEach(pool, this::add);
+        return this;
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("ScalableBloomFilter must be provided a single IHashFunction128");
+        }
+
+        synchronized (this) {
+            if (stages != null) {
+                throw new IllegalStateException("ScalableBloomFilter has already been created");
+            }
+            this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+            this.keyEncoder = keyEncoder;
+            properties.setCollisionProbability(collisionProbability);
+            properties.setSeed(hashFunction.getHashSeed());
+            grow(new Stage[0]);
+        }
+    }
+
+    /**
+     * Add key to the filter, adding a new stage when the current one is full.
+     *
+     * @param input the key
+     * @return true if the key was definitely not present before
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean add(T input) {
+        final Stage[] stages = initializedStages(input);
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, input);
+        if (contains(stages, probe)) {
+            return false;
+        }
+        final Stage stage = stages[stages.length - 1];
+        if (!stage.add(probe)) {
+            return false;
+        }
+        if (stage.keyCount.incrementAndGet() == stage.capacity) {
+            synchronized (this) {
+                if (this.stages == stages) {
+                    grow(stages);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if value is present in any stage of the filter
+     *
+     * @param input key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        final Stage[] stages = initializedStages(input);
+        return contains(stages, BloomLookup.hash(hashFunction, keyEncoder, input));
+    }
+
+    /**
+     * Number of stages, starting at one.
+     *
+     * @return the stage count
+     */
+    public int getStageCount() {
+        final Stage[] stages = this.stages;
+        return stages == null ? 0 : stages.length;
+    }
+
+    /**
+     * Number of keys added to the filter. Keys which were false positives of an earlier add are not counted.
+     *
+     * @return the key count
+     */
+    public long getKeyCount() {
+        final Stage[] stages = this.stages;
+        return stages == null ? 0 : Arrays.stream(stages).mapToLong(stage -> stage.keyCount.get()).sum();
+    }
+
+    /**
+     * Number of bits currently set in all stages.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        final Stage[] stages = this.stages;
+        return stages == null ? 0 : Arrays.stream(stages).mapToLong(stage -> stage.bitCount.sum()).sum();
+    }
+
+    /**
+     * Collision probability at the current fill of the stages, a key is a false positive if it is one in any stage.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        final Stage[] stages = this.stages;
+        if (stages == null) {
+            return 0;
+        }
+        double negative = 1;
+        for (Stage stage : stages) {
+            negative *= 1 - BloomMath.estimateCollisionProbability(stage.hashFunctionCount, stage.bitCount.sum(), stage.bitmapSize);
+        }
+        return 1 - negative;
+    }
+
+    /**
+     * Gets properties for currently built bloom filter.
+     *
+     * Bitmap size is the sum of all stages, hash function count is the one of the newest stage.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    private void grow(final Stage[] current) {
+        final int index = current.length;
+        final double stageProbability = collisionProbability * (1 - tighteningRatio) * Math.pow(tighteningRatio, index);
+        final long capacity = index == 0
+                ? initialCapacity
+                : (long) Math.min(Long.MAX_VALUE / 64, current[index - 1].capacity * (double) growthFactor);
+        final Stage stage = new Stage(capacity, stageProbability);
+
+        final Stage[] grown = Arrays.copyOf(current, index + 1);
+        grown[index] = stage;
+        properties.setBitmapSize(properties.getBitmapSize() + stage.bitmapSize);
+        properties.setHashFunctionCount(stage.hashFunctionCount);
+        stages = grown;
+    }
+
+    private static boolean contains(final Stage[] stages, final DoubleHashProbe probe) {
+        for (int i = stages.length - 1; i >= 0; i--) {
+            if (stages[i].contains(probe)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Stage[] initializedStages(final T input) {
+        final Stage[] stages = this.stages;
+        if (stages == null) {
+            throw new IllegalStateException("ScalableBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        if (input == null) {
+            throw new NullPointerException("ScalableBloomFilter does not expect null as an argument");
+        }
+        return stages;
+    }
+
+
+    private static final class Stage {
+        private final AtomicBitmap bitMap;
+        private final long bitmapSize;
+        private final int hashFunctionCount;
+        private final long capacity;
+        private final AtomicLong keyCount = new AtomicLong();
+        private final LongAdder bitCount = new LongAdder();
+
+        private Stage(final long capacity, final double collisionProbability) {
+            this.capacity = capacity;
+            this.hashFunctionCount = BloomMath.optimalHashFunctionCount(collisionProbability);
+            this.bitmapSize = Math.max(1L, (long) BloomMath.optimalBits(hashFunctionCount, capacity, collisionProbability));
+            this.bitMap = new AtomicBitmap(bitmapSize);
+        }
+
+        private boolean add(final DoubleHashProbe probe) {
+            boolean changed = false;
+            for (int i = 0; i < hashFunctionCount; i++) {
+                if (bitMap.trySet(probe.position(i, bitmapSize))) {
+                    bitCount.increment();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private boolean contains(final DoubleHashProbe probe) {
+            for (int i = 0; i < hashFunctionCount; i++) {
+                if (!bitMap.get(probe.position(i, bitmapSize))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.api.IMutableMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.AtomicBitmap;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding window bloom filter.
+ * <p>
+ * Bloom filter which forgets keys, for deduplicating an unbounded stream within a time window.
+ * Keys go into the newest of a fixed number of generations, lookups check every live generation.
+ * Each {@link #rotate()} retires the oldest generation and starts a new, empty one,
+ * so a key is remembered for between {@code generations - 1} and {@code generations} rotation periods.
+ * Memory stays fixed and collision probability stays steady however long the stream runs.
+ * </p>
+ *
+ * <p>One more generation than the live ones is kept as a spare. Rotation publishes the spare as the newest generation
+ * before clearing the retired one in O(m/64), so lookups and inserts never wait for it.
+ * A lookup which answers false while a rotation happened under it is repeated,
+ * so a generation being cleared never hides a key that is still within the window.</p>
+ *
+ * @param <T> the type parameter for elements which are to be hashed within bitmap of bloom filter
+ *
+ * @author Miko Nukka
+ */
+public final class SlidingWindowBloomFilter<T> implements IDataStructure<T>, IMutableMemoryCache<T>, IFilterStatistics {
+    private static final double COLLISION_PROBABILITY = 0.005;
+
+    private volatile long epoch;
+    private volatile Generation[] ring;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private long bitmapSize;
+    private int hashFunctionCount;
+    private final BloomProperties properties = new BloomProperties();
+    private final long insertionsPerGeneration;
+    private final int generations;
+    private final double collisionProbability;
+
+    /**
+     * Create sliding window bloom filter with collision probability of p=0.005.
+     *
+     * @param insertionsPerGeneration number of keys each generation is sized for, i.e. keys arriving within one rotation period
+     * @param generations             number of live generations, at least 1
+     */
+    public SlidingWindowBloomFilter(long insertionsPerGeneration, int generations) {
+        this(insertionsPerGeneration, generations, COLLISION_PROBABILITY);
+    }
+
+    /**
+     * Create sliding window bloom filter.
+     *
+     * @param insertionsPerGeneration number of keys each generation is sized for, i.e. keys arriving within one rotation period
+     * @param generations             number of live generations, at least 1
+     * @param collisionProbability    the collision probability of a lookup across all live generations, in range (0, 1)
+     * @throws IllegalArgumentException if any of the arguments is out of range
+     */
+    public SlidingWindowBloomFilter(long insertionsPerGeneration, int generations, double collisionProbability) {
+        if (insertionsPerGeneration < 1) {
+            throw new IllegalArgumentException("Bloom filter must expect at least one item to be stored in the cache");
+        }
+        if (generations < 1) {
+            throw new IllegalArgumentException("Sliding window must have at least one generation");
+        }
+        if (!(collisionProbability > 0 && collisionProbability < 1)) {
+            throw new IllegalArgumentException("Collision probability must be in range (0, 1)");
+        }
+        this.insertionsPerGeneration = insertionsPerGeneration;
+        this.generations = generations;
+        this.collisionProbability = collisionProbability;
+    }
+
+    /**
+     * Create sliding window bloom filter cache, initial data goes into the newest generation.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap, may be empty
+     * @return instance of SlidingWindowBloomFilter
+     * @throws NullPointerException if any of the arguments or any element of <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null || input.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder);
+        addAll(input);
+        return this;
+    }
+
+    /**
+     * Create sliding window bloom filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     * Initial data goes into the newest generation, which is sized by the constructor regardless of the number of keys.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be hashed and stored in bitmap
+     * @return instance of SlidingWindowBloomFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder);
+        input.forEach(this::add);
+        return this;
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("SlidingWindowBloomFilter must be provided a single IHashFunction128");
+        }
+
+        synchronized (this) {
+            if (ring != null) {
+                throw new IllegalStateException("SlidingWindowBloomFilter has already been created");
+            }
+            this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+            this.keyEncoder = keyEncoder;
+            // A lookup is a false positive if it is one in any live generation: 1 - (1 - p_g)^g = p
+            final double generationProbability = 1 - Math.pow(1 - collisionProbability, 1.0 / generations);
+            this.hashFunctionCount = BloomMath.optimalHashFunctionCount(generationProbability);
+            this.bitmapSize = Math.max(1L, (long) BloomMath.optimalBits(hashFunctionCount, insertionsPerGeneration, generationProbability));
+
+            final Generation[] ring = new Generation[generations + 1];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = new Generation(bitmapSize);
+            }
+            properties.setCollisionProbability(collisionProbability);
+            properties.setBitmapSize(bitmapSize * generations);
+            properties.setHashFunctionCount(hashFunctionCount);
+            properties.setSeed(hashFunction.getHashSeed());
+            this.ring = ring;
+        }
+    }
+
+    /**
+     * Add key to the newest generation.
+     *
+     * A key which is already present is added again, so it stays in the window for another full period.
+     *
+     * @param input the key
+     * @return true if the key was definitely not in the window before, false for a possible duplicate
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean add(T input) {
+        final Generation[] ring = initializedRing(input);
+        final DoubleHashProbe probe = BloomLookup.hash(hashFunction, keyEncoder, input);
+        final boolean present = contains(ring, probe);
+        final long epoch = this.epoch;
+        final Generation newest = ring[slot(epoch, 0)];
+        for (int i = 0; i < hashFunctionCount; i++) {
+            if (newest.bitMap.trySet(probe.position(i, bitmapSize))) {
+                newest.bitCount.increment();
+            }
+        }
+        return !present;
+    }
+
+    /**
+     * Check if value is present in any live generation
+     *
+     * @param input key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in window</i> (true) or <i>definitely not in window</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        final Generation[] ring = initializedRing(input);
+        return contains(ring, BloomLookup.hash(hashFunction, keyEncoder, input));
+    }
+
+    /**
+     * Retire the oldest generation and start a new one.
+     *
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     */
+    public synchronized void rotate() {
+        final Generation[] ring = this.ring;
+        if (ring == null) {
+            throw new IllegalStateException("SlidingWindowBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        final long next = epoch + 1;
+        // The spare becomes the newest generation, the oldest one becomes the spare once readers stop seeing it
+        epoch = next;
+        final Generation retired = ring[slot(next, generations)];
+        retired.bitMap.clear();
+        retired.bitCount.reset();
+    }
+
+    /**
+     * Rotate on a fixed schedule, the window then spans {@code generations} periods.
+     *
+     * @param executor the executor
+     * @param period   time between rotations
+     * @param unit     unit of the period
+     * @return future to cancel the rotation with
+     */
+    public ScheduledFuture<?> scheduleRotation(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        if (executor == null || unit == null) {
+            throw new NullPointerException("scheduleRotation must be provided with non-null arguments as parameters");
+        }
+        return executor.scheduleAtFixedRate(this::rotate, period, period, unit);
+    }
+
+    public int getGenerationCount() {
+        return generations;
+    }
+
+    /**
+     * Number of bits currently set in the live generations.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        final Generation[] ring = this.ring;
+        if (ring == null) {
+            return 0;
+        }
+        final long epoch = this.epoch;
+        long count = 0;
+        for (int age = 0; age < generations; age++) {
+            count += ring[slot(epoch, age)].bitCount.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Collision probability at the current fill of the live generations.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        final Generation[] ring = this.ring;
+        if (ring == null) {
+            return 0;
+        }
+        final long epoch = this.epoch;
+        double negative = 1;
+        for (int age = 0; age < generations; age++) {
+            final long bits = ring[slot(epoch, age)].bitCount.sum();
+            negative *= 1 - BloomMath.estimateCollisionProbability(hashFunctionCount, bits, bitmapSize);
+        }
+        return 1 - negative;
+    }
+
+    /**
+     * Gets properties for currently built bloom filter.
+     *
+     * Bitmap size is the sum of the live generations.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    private boolean contains(final Generation[] ring, final DoubleHashProbe probe) {
+        long epoch = this.epoch;
+        while (true) {
+            for (int age = 0; age < generations; age++) {
+                if (ring[slot(epoch, age)].contains(probe, hashFunctionCount, bitmapSize)) {
+                    return true;
+                }
+            }
+            // A miss is only trusted if no generation was retired while reading
+            final long current = this.epoch;
+            if (current == epoch) {
+                return false;
+            }
+            epoch = current;
+        }
+    }
+
+    /**
+     * Index in the ring of the generation of given age, age 0 being the newest one.
+     */
+    private int slot(final long epoch, final int age) {
+        return (int) Math.floorMod(epoch - age, (long) (generations + 1));
+    }
+
+    private Generation[] initializedRing(final T input) {
+        final Generation[] ring = this.ring;
+        if (ring == null) {
+            throw new IllegalStateException("SlidingWindowBloomFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        if (input == null) {
+            throw new NullPointerException("SlidingWindowBloomFilter does not expect null as an argument");
+        }
+        return ring;
+    }
+
+
+    private static final class Generation {
+        private final AtomicBitmap bitMap;
+        private final LongAdder bitCount = new LongAdder();
+
+        private Generation(final long bitmapSize) {
+            this.bitMap = new AtomicBitmap(bitmapSize);
+        }
+
+        private boolean contains(final DoubleHashProbe probe, final int hashFunctionCount, final long bitmapSize) {
+            for (int i = 0; i < hashFunctionCount; i++) {
+                if (!bitMap.get(probe.position(i, bitmapSize))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.github.mnukka.memory_bloomer.domain.structure.cuckoo;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.api.IRemovableMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IFilterStatistics;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomProperties;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+
+/**
+ * Cuckoo filter.
+ * <p>
+ * Filter storing a 16bit fingerprint of every key in one of two candidate buckets.
+ * A bucket holds four fingerprints packed into a single long, so a lookup reads at most two words.
+ * Unlike bloom filters keys can also be removed.
+ * </p>
+ *
+ * <p>When both buckets of a new key are full, a random fingerprint is kicked out to its other bucket,
+ * which may kick out another one and so on, at most {@value #MAX_KICKS} times.
+ * The fingerprint left homeless after that is kept aside as a victim and every further {@link #add(Object)} fails
+ * until a {@link #remove(Object)} makes room, so no stored key is ever lost.
+ * Table is sized for the expected number of insertions at 95% load.</p>
+ *
+ * <p>Collision probability is about 8/65536 (p=0.00012). Removing a key which was never added may remove
+ * a different key sharing its fingerprint, and a key added twice has to be removed twice.</p>
+ *
+ * <p>Lookups are lock free and run concurrently with each other. Writers are serialized,
+ * a lookup overlapping a write is retried under the lock.</p>
+ *
+ * @param <T> the type parameter for elements which are to be stored in the filter
+ * @see <a href="https://www.cs.cmu.edu/~dga/papers/cuckoo-conext2014.pdf">Cuckoo Filter: Practically Better Than Bloom</a>
+ *
+ * @author Miko Nukka
+ */
+public final class CuckooFilter<T> implements IDataStructure<T>, IRemovableMemoryCache<T>, IFilterStatistics {
+    static final int MAX_KICKS = 500;
+    private static final int SLOTS_PER_BUCKET = 4;
+    private static final int FINGERPRINT_BITS = 16;
+    private static final long FINGERPRINT_MASK = (1L << FINGERPRINT_BITS) - 1;
+    private static final long LOW_BITS = 0x0001_0001_0001_0001L;
+    private static final long HIGH_BITS = 0x8000_8000_8000_8000L;
+    private static final double LOAD_FACTOR = 0.95;
+    private static final double COLLISION_PROBABILITY = 2D * SLOTS_PER_BUCKET / (1 << FINGERPRINT_BITS);
+
+    private volatile long[] buckets;
+    private int bucketMask;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private long victim;
+    private int victimBucket;
+    private long size;
+    private long random = 0x9E3779B97F4A7C15L;
+    private final StampedLock lock = new StampedLock();
+    private final BloomProperties properties = new BloomProperties();
+    private final long expectedInsertions;
+
+    /**
+     * Create cuckoo filter.
+     *
+     * @param expectedInsertions number of elements the table is sized for
+     * @throws IllegalArgumentException if <i>expectedInsertions</i> is not positive or too large
+     */
+    public CuckooFilter(long expectedInsertions) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Cuckoo filter must expect at least one item to be stored in the cache");
+        }
+        if (expectedInsertions / SLOTS_PER_BUCKET / LOAD_FACTOR > 1 << 30) {
+            throw new IllegalArgumentException("Cuckoo filter's table will exceed 32bit in its size");
+        }
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Create cuckoo filter cache
+     *
+     * Table is sized for the larger of expected insertions and <i>input</i> size. <i>input</i> may be empty.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be stored in the filter
+     * @return instance of CuckooFilter
+     * @throws NullPointerException if <i>hashFunctionList</i>, <i>keyEncoder</i> or <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalStateException if cache has already been created or <i>input</i> did not fit into the table
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null || input.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        input.forEach(this::addInitial);
+        return this;
+    }
+
+    /**
+     * Create cuckoo filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * Table is sized for the larger of expected insertions and number of keys in <i>input</i>.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            initial data to be stored in the filter
+     * @return instance of CuckooFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * or <i>input</i> contains more keys than the table can hold
+     * @throws IllegalStateException if cache has already been created or <i>input</i> did not fit into the table
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        input.forEach(this::addInitial);
+        return this;
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final long size) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("CuckooFilter must be provided a single IHashFunction128");
+        }
+
+        if (size / SLOTS_PER_BUCKET / LOAD_FACTOR > 1 << 30) {
+            throw new IllegalArgumentException("Cuckoo filter's table will exceed 32bit in its size");
+        }
+
+        final long stamp = lock.writeLock();
+        try {
+            if (buckets != null) {
+                throw new IllegalStateException("CuckooFilter has already been created");
+            }
+            this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+            this.keyEncoder = keyEncoder;
+            createTable(Math.max(expectedInsertions, size));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void addInitial(final T element) {
+        if (!add(element)) {
+            throw new IllegalStateException("CuckooFilter could not store all items, input contains too many equal keys");
+        }
+    }
+
+    /**
+     * Add key to the filter.
+     *
+     * @param input the key
+     * @return true if key was stored, false if the filter is full
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean add(T input) {
+        checkInitialized(input);
+        final DoubleHashProbe probe = hash(input);
+        final long fingerprint = fingerprint(probe.h2());
+        final int first = firstBucket(probe.h1());
+
+        final long stamp = lock.writeLock();
+        try {
+            if (victim != 0) {
+                return false;
+            }
+            final int second = alternateBucket(first, fingerprint);
+            if (insert(first, fingerprint) || insert(second, fingerprint)) {
+                size++;
+                return true;
+            }
+            kick(nextRandom() % 2 == 0 ? first : second, fingerprint);
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove one copy of key from the filter.
+     *
+     * @param input the key
+     * @return true if a fingerprint of the key was found and removed
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean remove(T input) {
+        checkInitialized(input);
+        final DoubleHashProbe probe = hash(input);
+        final long fingerprint = fingerprint(probe.h2());
+        final int first = firstBucket(probe.h1());
+        final int second = alternateBucket(first, fingerprint);
+
+        final long stamp = lock.writeLock();
+        try {
+            if (delete(first, fingerprint) || delete(second, fingerprint)) {
+                size--;
+                reinsertVictim();
+                return true;
+            }
+            if (victim == fingerprint && (victimBucket == first || victimBucket == second)) {
+                victim = 0;
+                size--;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Check if value is present in the filter
+     *
+     * @param input key to check
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        checkInitialized(input);
+        final DoubleHashProbe probe = hash(input);
+        final long fingerprint = fingerprint(probe.h2());
+        final int first = firstBucket(probe.h1());
+        final int second = alternateBucket(first, fingerprint);
+
+        final long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            final boolean present = contains(first, second, fingerprint);
+            if (lock.validate(stamp)) {
+                return present;
+            }
+        }
+        final long readStamp = lock.readLock();
+        try {
+            return contains(first, second, fingerprint);
+        } finally {
+            lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Number of fingerprints stored in the filter.
+     *
+     * @return the size
+     */
+    public long getSize() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets properties for currently built filter.
+     *
+     * Bitmap size is the size of the table in bits and hash function count is the number of candidate buckets per key.
+     *
+     * @return the properties
+     */
+    @Override
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Number of bits taken by stored fingerprints.
+     *
+     * @return the bit count
+     */
+    @Override
+    public long getBitCount() {
+        return getSize() * FINGERPRINT_BITS;
+    }
+
+    /**
+     * Collision probability at the current load of the table.
+     *
+     * A lookup compares against every occupied slot of its two buckets, which holds 2 * 4 * load fingerprints on average.
+     *
+     * @return the estimated collision probability
+     */
+    @Override
+    public double getEstimatedCollisionProbability() {
+        if (buckets == null) {
+            return 0;
+        }
+        final double load = getSize() / (double) ((long) buckets.length * SLOTS_PER_BUCKET);
+        return 1 - Math.pow(1 - 1D / (1 << FINGERPRINT_BITS), 2 * SLOTS_PER_BUCKET * load);
+    }
+
+    private void createTable(final long insertions) {
+        final long minimumBuckets = (long) Math.ceil(insertions / LOAD_FACTOR / SLOTS_PER_BUCKET);
+        final int bucketCount = Integer.highestOneBit((int) Math.max(1L, minimumBuckets - 1)) << 1;
+        bucketMask = bucketCount - 1;
+        buckets = new long[bucketCount];
+
+        properties.setCollisionProbability(COLLISION_PROBABILITY);
+        properties.setBitmapSize((long) bucketCount * Long.SIZE);
+        properties.setHashFunctionCount(2);
+        properties.setSeed(hashFunction.getHashSeed());
+    }
+
+    private void kick(int bucket, long fingerprint) {
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            final int shift = (int) (nextRandom() % SLOTS_PER_BUCKET) * FINGERPRINT_BITS;
+            final long evicted = (buckets[bucket] >>> shift) & FINGERPRINT_MASK;
+            buckets[bucket] = (buckets[bucket] & ~(FINGERPRINT_MASK << shift)) | (fingerprint << shift);
+            fingerprint = evicted;
+            bucket = alternateBucket(bucket, fingerprint);
+            if (insert(bucket, fingerprint)) {
+                return;
+            }
+        }
+        victim = fingerprint;
+        victimBucket = bucket;
+    }
+
+    // Removal may have freed a slot somewhere along the victim's kick path, so it gets another round of kicks
+    private void reinsertVictim() {
+        if (victim == 0) {
+            return;
+        }
+        final long fingerprint = victim;
+        final int bucket = victimBucket;
+        victim = 0;
+        if (!insert(bucket, fingerprint) && !insert(alternateBucket(bucket, fingerprint), fingerprint)) {
+            kick(bucket, fingerprint);
+        }
+    }
+
+    private boolean insert(final int bucket, final long fingerprint) {
+        final long word = buckets[bucket];
+        for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+            if (((word >>> shift) & FINGERPRINT_MASK) == 0) {
+                buckets[bucket] = word | (fingerprint << shift);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean delete(final int bucket, final long fingerprint) {
+        final long word = buckets[bucket];
+        for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+            if (((word >>> shift) & FINGERPRINT_MASK) == fingerprint) {
+                buckets[bucket] = word & ~(FINGERPRINT_MASK << shift);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(final int first, final int second, final long fingerprint) {
+        final long[] buckets = this.buckets;
+        return hasFingerprint(buckets[first], fingerprint) || hasFingerprint(buckets[second], fingerprint)
+                || (victim == fingerprint && (victimBucket == first || victimBucket == second));
+    }
+
+    // XOR zeroes the lanes equal to fingerprint, then the classic has-zero-byte trick widened to 16bit lanes finds them
+    private static boolean hasFingerprint(final long bucket, final long fingerprint) {
+        final long lanes = bucket ^ (fingerprint * LOW_BITS);
+        return ((lanes - LOW_BITS) & ~lanes & HIGH_BITS) != 0;
+    }
+
+    private int firstBucket(final long hash) {
+        return (int) hash & bucketMask;
+    }
+
+    // XOR with a hash of the fingerprint is its own inverse, so the other bucket can be found from either one
+    private int alternateBucket(final int bucket, final long fingerprint) {
+        return (bucket ^ (int) ((fingerprint * 0xC2B2AE3D27D4EB4FL) >>> 32)) & bucketMask;
+    }
+
+    // Zero marks an empty slot, so fingerprints are taken from range [1, 65535]
+    private static long fingerprint(final long hash) {
+        final long fingerprint = hash >>> (Long.SIZE - FINGERPRINT_BITS);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private long nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return random >>> 1;
+    }
+
+    private void checkInitialized(final T input) {
+        if (buckets == null) {
+            throw new IllegalStateException("CuckooFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+        if (input == null) {
+            throw new NullPointerException("CuckooFilter does not expect null as an argument");
+        }
+    }
+
+    private DoubleHashProbe hash(final T input) {
+        final KeyBuffer key = KeyBuffer.forCurrentThread();
+        keyEncoder.encode(input, key);
+        return DoubleHashProbe.forCurrentThread().hash(hashFunction, key.array(), 0, key.length());
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.mnukka.memory_bloomer.domain.structure.exception;
+
+public class InvalidKeyFileException extends RuntimeException {
+    public InvalidKeyFileException(String errorMessage) {
+        super(errorMessage);
+    }
+}
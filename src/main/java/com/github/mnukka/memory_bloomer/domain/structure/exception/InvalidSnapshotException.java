@@ -0,0 +1,7 @@
+package com.github.mnukka.memory_bloomer.domain.structure.exception;
+
+public class InvalidSnapshotException extends RuntimeException {
+    public InvalidSnapshotException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,351 @@
+package com.github.mnukka.memory_bloomer.domain.structure.fuse;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.IKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.KeyBuffer;
+import com.github.mnukka.memory_bloomer.domain.hash.DoubleHashProbe;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction128;
+import com.github.mnukka.memory_bloomer.domain.structure.IDataStructure;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomProperties;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Binary fuse filter.
+ * <p>
+ * Immutable filter storing an 8bit fingerprint per slot. Every key maps to three slots
+ * in three consecutive segments of the array, and the filter is built so that
+ * the XOR of the three slots equals the key's fingerprint.
+ * A lookup therefore costs exactly three memory reads close to each other.
+ * </p>
+ *
+ * <p>Collision probability is 1/256 (p=0.0039) at about 9 bits per key,
+ * where a bloom filter needs over 11 bits per key for p=0.005.
+ * Keys can not be added after the filter has been built.</p>
+ *
+ * @param <T> the type parameter for elements which are to be stored in the filter
+ * @see <a href="https://arxiv.org/abs/2201.01174">Binary Fuse Filters: Fast and Smaller Than Xor Filters</a>
+ *
+ * @author Miko Nukka
+ */
+public final class BinaryFuseFilter<T> implements IDataStructure<T>, IMemoryCache<T> {
+    private static final int ARITY = 3;
+    private static final int MAX_SEGMENT_LENGTH = 1 << 18;
+    private static final int MAX_ITERATIONS = 100;
+    private static final double COLLISION_PROBABILITY = 1D / 256;
+
+    private byte[] fingerprints;
+    private IHashFunction128 hashFunction;
+    private IKeyEncoder<? super T> keyEncoder;
+    private long seed;
+    private int segmentLength;
+    private int segmentLengthMask;
+    private int segmentCountLength;
+    private final BloomProperties properties = new BloomProperties();
+
+    /**
+     * Create binary fuse filter cache
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            input of data to be hashed and stored in the filter, duplicates are allowed
+     * @return instance of BinaryFuseFilter
+     * @throws NullPointerException if <i>hashFunctionList</i>, <i>keyEncoder</i> or <i>input</i> is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> list does not contain at least one item
+     * @throws IllegalStateException if the filter could not be built, which in practice only happens
+     * when distinct keys share the same 64bit hash
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final List<T> input) {
+        if (input == null || input.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        initialize(hashFunctionList, keyEncoder, input.size());
+        final long[] keys = new long[input.size()];
+        int i = 0;
+        for (T element : input) {
+            keys[i++] = hash(element);
+        }
+        createFingerprints(keys);
+        return this;
+    }
+
+    /**
+     * Create binary fuse filter cache from keys which are not held in a list, e.g. a {@code KeyFile}.
+     *
+     * Only the 64bit hash of every key is held while the filter is built.
+     *
+     * @param hashFunctionList single 128bit hash function
+     * @param keyEncoder       encoder which turns elements into bytes for hash function
+     * @param input            the keys, duplicates are allowed
+     * @return instance of BinaryFuseFilter
+     * @throws NullPointerException if any of the arguments is not defined
+     * @throws IllegalArgumentException if <i>hashFunctionList</i> is not a single {@link IHashFunction128}
+     * @throws IllegalArgumentException if <i>input</i> does not contain at least one item or contains more than an array can hold
+     * @throws IllegalStateException if the filter could not be built, see {@link #createCache(List, IKeyEncoder, List)}
+     */
+    @Override
+    public IMemoryCache createCache(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder,
+                                    final IKeySource<? extends T> input) {
+        if (input == null) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+        final long size = input.size();
+        initialize(hashFunctionList, keyEncoder, size);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Binary fuse filter of " + size + " items will exceed 32bit in its size");
+        }
+        final long[] keys = new long[(int) size];
+        final int[] count = new int[1];
+        input.forEach(element -> keys[count[0]++] = hash(element));
+        createFingerprints(keys);
+        return this;
+    }
+
+    private void initialize(final List<IHashFunction> hashFunctionList, final IKeyEncoder<? super T> keyEncoder, final long size) {
+        if (hashFunctionList == null || keyEncoder == null || hashFunctionList.stream().anyMatch(Objects::isNull)) {
+            throw new NullPointerException("createCache must be provided with non-null arguments as parameters");
+        }
+
+        if (hashFunctionList.size() != 1 || !(hashFunctionList.get(0) instanceof IHashFunction128)) {
+            throw new IllegalArgumentException("BinaryFuseFilter must be provided a single IHashFunction128");
+        }
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Binary fuse filter must be provided at least one item to be stored in the cache");
+        }
+
+        this.hashFunction = (IHashFunction128) hashFunctionList.get(0);
+        this.keyEncoder = keyEncoder;
+    }
+
+    /**
+     * Check if value is present in the filter
+     *
+     * @param input key to check which was previously stored in the
+     * filter during the createCache call
+     * @return boolean value which indicates whether the key is
+     * <i>possibly in set</i> (true) or <i>definitely not in set</i> (false)
+     * @throws IllegalStateException when class has not been fully initialized (i.e createCache() has not been called yet)
+     * @throws NullPointerException when provided null as an input argument
+     */
+    @Override
+    public boolean isKeyPresent(T input) {
+        if (fingerprints == null) {
+            throw new IllegalStateException("BinaryFuseFilter is not fully initialized. Tip: has createCache() been called on the class instance?");
+        }
+
+        if (input == null) {
+            throw new NullPointerException("isKeyPresent does not expect null as an argument");
+        }
+
+        final long hash = mix(hash(input), seed);
+        final int h0 = slot(hash, 0);
+        final int h1 = slot(hash, 1);
+        final int h2 = slot(hash, 2);
+        return (fingerprint(hash) ^ fingerprints[h0] ^ fingerprints[h1] ^ fingerprints[h2]) == 0;
+    }
+
+    /**
+     * Gets properties for currently built filter.
+     *
+     * Bitmap size is the size of the fingerprint array in bits and hash function count is the number of slots per key.
+     *
+     * @return the properties
+     */
+    public BloomProperties getProperties() {
+        return properties;
+    }
+
+    private void createFingerprints(final long[] keys) {
+        final int size = keys.length;
+        segmentLength = Math.min(MAX_SEGMENT_LENGTH, 1 << (int) Math.floor(Math.log(size) / Math.log(3.33) + 2.25));
+        segmentLengthMask = segmentLength - 1;
+        final double sizeFactor = Math.max(1.125, 0.875 + 0.25 * Math.log(1_000_000) / Math.log(size));
+        final long capacity = size <= 1 ? 0 : Math.round(size * sizeFactor);
+        final long initSegmentCount = (capacity + segmentLength - 1) / segmentLength - (ARITY - 1);
+        long arrayLength = (initSegmentCount + ARITY - 1) * segmentLength;
+        long segmentCount = (arrayLength + segmentLength - 1) / segmentLength;
+        segmentCount = segmentCount <= ARITY - 1 ? 1 : segmentCount - (ARITY - 1);
+        arrayLength = (segmentCount + ARITY - 1) * segmentLength;
+        if (arrayLength > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Binary fuse filter of " + size + " items will exceed 32bit in its size");
+        }
+        segmentCountLength = (int) (segmentCount * segmentLength);
+        fingerprints = new byte[(int) arrayLength];
+        populate(keys, (int) segmentCount);
+
+        properties.setCollisionProbability(COLLISION_PROBABILITY);
+        properties.setBitmapSize(arrayLength * Byte.SIZE);
+        properties.setHashFunctionCount(ARITY);
+        properties.setSeed(hashFunction.getHashSeed());
+    }
+
+    // Peeling as in the reference implementation: keys are sorted into segments, every slot counts its keys and XORs their hashes,
+    // then slots holding a single key are peeled off one by one. Assigning fingerprints in reverse peeling order
+    // leaves each key with one slot nobody assigned after it.
+    private void populate(final long[] keys, final int segmentCount) {
+        final int size = keys.length;
+        final int arrayLength = fingerprints.length;
+        final long[] reverseOrder = new long[size + 1];
+        final byte[] reverseH = new byte[size];
+        final byte[] t2count = new byte[arrayLength];
+        final long[] t2hash = new long[arrayLength];
+        final int[] alone = new int[arrayLength];
+        final int[] h012 = new int[5];
+        int blockBits = 1;
+        while ((1 << blockBits) < segmentCount) {
+            blockBits++;
+        }
+        final int block = 1 << blockBits;
+        final int[] startPos = new int[block];
+        long rngCounter = 0x726b2b9d438b9d4dL;
+        reverseOrder[size] = 1;
+
+        int stackSize = 0;
+        for (int iteration = 0; ; iteration++) {
+            if (iteration == MAX_ITERATIONS) {
+                throw new IllegalStateException("BinaryFuseFilter could not be built, input contains distinct keys with equal hashes");
+            }
+            rngCounter += 0x9E3779B97F4A7C15L;
+            seed = mix(rngCounter, 0);
+            for (int i = 0; i < block; i++) {
+                startPos[i] = (int) (((long) i * size) >> blockBits);
+            }
+            for (long key : keys) {
+                final long hash = mix(key, seed);
+                int segmentIndex = (int) (hash >>> (Long.SIZE - blockBits));
+                while (reverseOrder[startPos[segmentIndex]] != 0) {
+                    segmentIndex = (segmentIndex + 1) & (block - 1);
+                }
+                reverseOrder[startPos[segmentIndex]] = hash;
+                startPos[segmentIndex]++;
+            }
+
+            boolean error = false;
+            int duplicates = 0;
+            for (int i = 0; i < size; i++) {
+                final long hash = reverseOrder[i];
+                final int h0 = slot(hash, 0);
+                final int h1 = slot(hash, 1);
+                final int h2 = slot(hash, 2);
+                t2count[h0] += 4;
+                t2hash[h0] ^= hash;
+                t2count[h1] += 4;
+                t2count[h1] ^= 1;
+                t2hash[h1] ^= hash;
+                t2count[h2] += 4;
+                t2count[h2] ^= 2;
+                t2hash[h2] ^= hash;
+                // The same key added twice cancels itself out of all three slots, drop it instead of failing
+                if ((t2hash[h0] & t2hash[h1] & t2hash[h2]) == 0
+                        && ((t2hash[h0] == 0 && t2count[h0] == 8) || (t2hash[h1] == 0 && t2count[h1] == 8) || (t2hash[h2] == 0 && t2count[h2] == 8))) {
+                    duplicates++;
+                    t2count[h0] -= 4;
+                    t2hash[h0] ^= hash;
+                    t2count[h1] -= 4;
+                    t2count[h1] ^= 1;
+                    t2hash[h1] ^= hash;
+                    t2count[h2] -= 4;
+                    t2count[h2] ^= 2;
+                    t2hash[h2] ^= hash;
+                }
+                error |= (t2count[h0] & 0xFF) < 4 || (t2count[h1] & 0xFF) < 4 || (t2count[h2] & 0xFF) < 4;
+            }
+
+            if (!error) {
+                int queueSize = 0;
+                for (int i = 0; i < arrayLength; i++) {
+                    alone[queueSize] = i;
+                    queueSize += (t2count[i] & 0xFF) >> 2 == 1 ? 1 : 0;
+                }
+                stackSize = 0;
+                while (queueSize > 0) {
+                    final int index = alone[--queueSize];
+                    if ((t2count[index] & 0xFF) >> 2 != 1) {
+                        continue;
+                    }
+                    final long hash = t2hash[index];
+                    h012[1] = slot(hash, 1);
+                    h012[2] = slot(hash, 2);
+                    h012[3] = slot(hash, 0);
+                    h012[4] = h012[1];
+                    final int found = t2count[index] & 3;
+                    reverseH[stackSize] = (byte) found;
+                    reverseOrder[stackSize] = hash;
+                    stackSize++;
+
+                    final int other1 = h012[found + 1];
+                    alone[queueSize] = other1;
+                    queueSize += (t2count[other1] & 0xFF) >> 2 == 2 ? 1 : 0;
+                    t2count[other1] -= 4;
+                    t2count[other1] ^= mod3(found + 1);
+                    t2hash[other1] ^= hash;
+
+                    final int other2 = h012[found + 2];
+                    alone[queueSize] = other2;
+                    queueSize += (t2count[other2] & 0xFF) >> 2 == 2 ? 1 : 0;
+                    t2count[other2] -= 4;
+                    t2count[other2] ^= mod3(found + 2);
+                    t2hash[other2] ^= hash;
+                }
+                if (stackSize + duplicates == size) {
+                    break;
+                }
+            }
+            Arrays.fill(reverseOrder, 0, size, 0L);
+            Arrays.fill(t2count, (byte) 0);
+            Arrays.fill(t2hash, 0L);
+        }
+
+        for (int i = stackSize - 1; i >= 0; i--) {
+            final long hash = reverseOrder[i];
+            final int found = reverseH[i];
+            h012[0] = slot(hash, 0);
+            h012[1] = slot(hash, 1);
+            h012[2] = slot(hash, 2);
+            h012[3] = h012[0];
+            h012[4] = h012[1];
+            fingerprints[h012[found]] = (byte) (fingerprint(hash) ^ fingerprints[h012[found + 1]] ^ fingerprints[h012[found + 2]]);
+        }
+    }
+
+    private int slot(final long hash, final int index) {
+        final long h = DoubleHashProbe.reduce(hash, segmentCountLength) + (long) index * segmentLength;
+        switch (index) {
+            case 1:
+                return (int) (h ^ ((hash >>> 18) & segmentLengthMask));
+            case 2:
+                return (int) (h ^ (hash & segmentLengthMask));
+            default:
+                return (int) h;
+        }
+    }
+
+    private static int mod3(final int value) {
+        return value > 2 ? value - 3 : value;
+    }
+
+    private static byte fingerprint(final long hash) {
+        return (byte) (hash ^ (hash >>> 32));
+    }
+
+    private static long mix(final long key, final long seed) {
+        long h = key + seed;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private long hash(final T input) {
+        final KeyBuffer key = KeyBuffer.forCurrentThread();
+        keyEncoder.encode(input, key);
+        return DoubleHashProbe.forCurrentThread().hash(hashFunction, key.array(), 0, key.length()).h1();
+    }
+}
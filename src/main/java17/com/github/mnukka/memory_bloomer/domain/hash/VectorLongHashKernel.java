@@ -0,0 +1,44 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector long hash kernel.
+ * <p>
+ * Runs {@link Murmur3Hash128#fmix64(long)} on as many keys at once as the widest vector of the CPU holds,
+ * using the Vector API of Java 17. Keys which do not fill a whole vector are hashed one by one.
+ * Only shipped in the Java 17 part of the multi-release jar and only used when the runtime has
+ * the <i>jdk.incubator.vector</i> module, see {@link LongHashBatch#isVectorized()}.
+ * </p>
+ *
+ * @author Miko Nukka
+ */
+final class VectorLongHashKernel implements LongHashKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void hash(long[] keys, int from, int count, long seedMix, long[] h1, long[] h2) {
+        final int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            final LongVector first = fmix64(LongVector.fromArray(SPECIES, keys, from + i).lanewise(VectorOperators.XOR, seedMix));
+            first.intoArray(h1, i);
+            fmix64(first.add(GOLDEN_GAMMA)).intoArray(h2, i);
+        }
+        for (; i < count; i++) {
+            final long first = Murmur3Hash128.fmix64(keys[from + i] ^ seedMix);
+            h1[i] = first;
+            h2[i] = Murmur3Hash128.fmix64(first + GOLDEN_GAMMA);
+        }
+    }
+
+    private static LongVector fmix64(LongVector k) {
+        k = k.lanewise(VectorOperators.XOR, k.lanewise(VectorOperators.LSHR, 33));
+        k = k.mul(0xff51afd7ed558ccdL);
+        k = k.lanewise(VectorOperators.XOR, k.lanewise(VectorOperators.LSHR, 33));
+        k = k.mul(0xc4ceb9fe1a85ec53L);
+        return k.lanewise(VectorOperators.XOR, k.lanewise(VectorOperators.LSHR, 33));
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.mnukka.memory_bloomer.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadingMemoryCacheTest {
+    private final List<String> keys = IntStream.range(0, 10_000).mapToObj(i -> "key" + i).collect(Collectors.toList());
+    private final IMemoryCache<String> filter = MemoryCacheFactory.createImmutableCache(keys);
+
+    @Test
+    void get_KeyRejectedByFilter_DoesNotCallLoader() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LoadingMemoryCache<String, String> cache = new LoadingMemoryCache<>(filter, key -> {
+            calls.incrementAndGet();
+            return keys.contains(key) ? key.toUpperCase() : null;
+        }, 100);
+
+        int rejected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (cache.get("missing" + i) == null) {
+                rejected++;
+            }
+        }
+        assertEquals(1000, rejected);
+        assertEquals(calls.get(), cache.getLoadCount());
+        assertTrue(cache.getFilteredCount() > 990);
+    }
+
+    @Test
+    void get_KeyLoadedBefore_ReturnsCachedValue() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LoadingMemoryCache<String, String> cache = new LoadingMemoryCache<>(filter, key -> {
+            calls.incrementAndGet();
+            return key.toUpperCase();
+        }, 100);
+
+        assertEquals("KEY1", cache.get("key1"));
+        assertEquals("KEY1", cache.get("key1"));
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.invalidate("key1");
+        assertNull(cache.getIfPresent("key1"));
+        assertEquals("KEY1", cache.get("key1"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void get_ConcurrentMissesOnSameKey_LoadsOnce() throws Exception {
+        final int threads = 8;
+        final CountDownLatch waiting = new CountDownLatch(threads);
+        final AtomicInteger calls = new AtomicInteger();
+        final LoadingMemoryCache<String, String> cache = new LoadingMemoryCache<>(filter, key -> {
+            calls.incrementAndGet();
+            try {
+                waiting.await(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return key.toUpperCase();
+        }, 100);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    waiting.countDown();
+                    return cache.get("key7");
+                }));
+            }
+            for (Future<String> result : results) {
+                assertEquals("KEY7", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getLoadCount());
+    }
+
+    @Test
+    void get_ScanOfColdKeys_KeepsHotKeysAndStaysBounded() {
+        final LoadingMemoryCache<String, String> cache = new LoadingMemoryCache<>(filter, String::toUpperCase, 100);
+        final List<String> hot = keys.subList(0, 50);
+        for (int round = 0; round < 5; round++) {
+            hot.forEach(cache::get);
+        }
+
+        keys.subList(50, keys.size()).forEach(cache::get);
+        hot.forEach(cache::get);
+
+        assertTrue(cache.getSize() <= 100);
+        assertEquals(keys.size() - 100, cache.getEvictionCount(), 1);
+        final long hotHits = hot.stream().filter(key -> cache.getIfPresent(key) != null).count();
+        assertTrue(hotHits >= 45, "hot keys kept: " + hotHits);
+    }
+
+    @Test
+    void get_WeighedValues_StaysWithinMaximumWeight() {
+        final LoadingMemoryCache<String, String> cache =
+                new LoadingMemoryCache<>(filter, String::toUpperCase, 1_000, (key, value) -> value.length());
+        keys.forEach(cache::get);
+
+        assertTrue(cache.getWeight() <= 1_000);
+        assertTrue(cache.getSize() < 1_000 / 4);
+    }
+
+    @Test
+    void get_LargeByteBudget_DoesNotReserveMemoryForBudget() {
+        final List<LoadingMemoryCache<String, String>> caches = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            caches.add(new LoadingMemoryCache<>(filter, String::toUpperCase, 10L << 30, (key, value) -> value.length()));
+        }
+        caches.forEach(cache -> keys.subList(0, 100).forEach(cache::get));
+
+        for (LoadingMemoryCache<String, String> cache : caches) {
+            assertEquals(100, cache.getSize());
+            assertEquals("KEY7", cache.getIfPresent("key7"));
+        }
+    }
+}
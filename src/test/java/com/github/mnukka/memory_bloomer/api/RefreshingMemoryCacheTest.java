@@ -0,0 +1,113 @@
+package com.github.mnukka.memory_bloomer.api;
+
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomFilter64;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class RefreshingMemoryCacheTest {
+
+    @Test
+    void refresh_WithChangedKeys_SwapsInNewCache() {
+        final AtomicReference<List<String>> keys = new AtomicReference<>(List.of("one", "two"));
+        final RefreshingMemoryCache<String> cache = MemoryCacheFactory.createRefreshingCache(keys::get, Runnable::run);
+        Assertions.assertTrue(cache.isKeyPresent("one"));
+
+        keys.set(List.of("three"));
+        final IMemoryCache<String> built = cache.refresh().join();
+        Assertions.assertSame(built, cache.getCurrent());
+        Assertions.assertTrue(cache.isKeyPresent("three"));
+        Assertions.assertFalse(cache.isKeyPresent("one"));
+        Assertions.assertEquals(1, cache.getRefreshCount());
+    }
+
+    @Test
+    void refresh_WhileRebuildIsRunning_KeepsAnsweringFromPreviousCache() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch building = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<List<String>> keys = new AtomicReference<>(List.of("one"));
+        final RefreshingMemoryCache<String> cache = blockingCache(keys, building, release, executor);
+
+        try {
+            keys.set(List.of("two"));
+            final CompletableFuture<IMemoryCache<String>> refresh = cache.refresh();
+            Assertions.assertTrue(building.await(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(cache.isKeyPresent("one"));
+            Assertions.assertFalse(cache.isKeyPresent("two"));
+
+            release.countDown();
+            refresh.join();
+            Assertions.assertTrue(cache.isKeyPresent("two"));
+            Assertions.assertEquals(1, cache.getRefreshCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void refresh_KeysChangedWhileRebuildIsRunning_RebuildsOnceMoreWithChangedKeys() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch building = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<List<String>> keys = new AtomicReference<>(List.of("one"));
+        final RefreshingMemoryCache<String> cache = blockingCache(keys, building, release, executor);
+
+        try {
+            keys.set(List.of("two"));
+            final CompletableFuture<IMemoryCache<String>> first = cache.refresh();
+            Assertions.assertTrue(building.await(5, TimeUnit.SECONDS));
+
+            keys.set(List.of("three"));
+            final CompletableFuture<IMemoryCache<String>> second = cache.refresh();
+            Assertions.assertNotSame(first, second);
+            Assertions.assertSame(second, cache.refresh());
+
+            release.countDown();
+            Assertions.assertTrue(first.join().isKeyPresent("two"));
+            final IMemoryCache<String> built = second.join();
+            Assertions.assertTrue(built.isKeyPresent("three"));
+            Assertions.assertSame(built, cache.getCurrent());
+            Assertions.assertEquals(2, cache.getRefreshCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void refresh_WithFailingKeySupplier_KeepsPreviousCache() {
+        final AtomicReference<List<String>> keys = new AtomicReference<>(List.of("one"));
+        final RefreshingMemoryCache<String> cache = MemoryCacheFactory.createRefreshingCache(keys::get, Runnable::run);
+
+        keys.set(null);
+        Assertions.assertThrows(CompletionException.class, () -> cache.refresh().join());
+        Assertions.assertTrue(cache.isKeyPresent("one"));
+        Assertions.assertEquals(1, cache.getFailedRefreshCount());
+        Assertions.assertEquals(0, cache.getRefreshCount());
+    }
+
+    private static RefreshingMemoryCache<String> blockingCache(AtomicReference<List<String>> keys, CountDownLatch building,
+                                                               CountDownLatch release, ExecutorService executor) {
+        return new RefreshingMemoryCache<>(BloomFilter64::new, List.of(new Murmur3Hash128(42)), () -> {
+            final List<String> current = keys.get();
+            if (current.contains("two")) {
+                building.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return current;
+        }, executor);
+    }
+}
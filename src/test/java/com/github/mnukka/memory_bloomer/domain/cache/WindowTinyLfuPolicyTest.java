@@ -0,0 +1,30 @@
+package com.github.mnukka.memory_bloomer.domain.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowTinyLfuPolicyTest {
+
+    @Test
+    void onInsert_LargeByteBudget_SizesSketchFromEntryCount() {
+        final WindowTinyLfuPolicy<Integer> policy = new WindowTinyLfuPolicy<>(1L << 30);
+        assertTrue(policy.sketchCapacity() <= 16);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(policy.onInsert(i, 4096).isEmpty());
+        }
+        assertEquals(1000, policy.size());
+        assertEquals(1024, policy.sketchCapacity());
+    }
+
+    @Test
+    void onInsert_MoreEntriesThanMaximumSize_StopsGrowingSketch() {
+        final WindowTinyLfuPolicy<Integer> policy = new WindowTinyLfuPolicy<>(100);
+        for (int i = 0; i < 10_000; i++) {
+            policy.onInsert(i, 1);
+        }
+        assertEquals(100, policy.size());
+        assertEquals(128, policy.sketchCapacity());
+    }
+}
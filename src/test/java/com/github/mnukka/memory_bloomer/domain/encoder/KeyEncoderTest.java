@@ -0,0 +1,66 @@
+package com.github.mnukka.memory_bloomer.domain.encoder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+class KeyEncoderTest {
+
+    @Test
+    void encode_Utf8WithMultiByteCharacters_MatchesStringGetBytes() {
+        final String key = "tere, \u00f5un \u20ac \uD83D\uDE00 \uD800 end";
+        final KeyBuffer buffer = new KeyBuffer(1);
+        new Utf8KeyEncoder().encode(key, buffer);
+        Assertions.assertArrayEquals(key.getBytes(StandardCharsets.UTF_8), Arrays.copyOf(buffer.array(), buffer.length()));
+    }
+
+    @Test
+    void encode_Latin1_MatchesStringGetBytes() {
+        final String key = "\u00f5un \u20ac";
+        final KeyBuffer buffer = new KeyBuffer();
+        new Latin1KeyEncoder().encode(key, buffer);
+        Assertions.assertArrayEquals(key.getBytes(StandardCharsets.ISO_8859_1), Arrays.copyOf(buffer.array(), buffer.length()));
+    }
+
+    @Test
+    void encode_NumbersAndUuid_MatchesByteBufferLayout() {
+        final UUID uuid = UUID.randomUUID();
+        final KeyBuffer buffer = new KeyBuffer(1);
+        new LongKeyEncoder().encode(-42L, buffer);
+        new IntegerKeyEncoder().encode(7, buffer);
+        new UuidKeyEncoder().encode(uuid, buffer);
+
+        final ByteBuffer expected = ByteBuffer.allocate(28)
+                .putLong(-42L)
+                .putInt(7)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits());
+        Assertions.assertArrayEquals(expected.array(), Arrays.copyOf(buffer.array(), buffer.length()));
+    }
+
+    @Test
+    void forCurrentThread_AfterPreviousUse_ReturnsEmptyBuffer() {
+        KeyBuffer.forCurrentThread().putLong(1L);
+        final KeyBuffer buffer = KeyBuffer.forCurrentThread();
+        Assertions.assertEquals(0, buffer.length());
+    }
+
+    @Test
+    void encode_DefaultWithUnsupportedType_ThrowsIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DefaultKeyEncoder().encode(new Object(), new KeyBuffer()));
+    }
+
+    @Test
+    void encode_SerializingWithSameKey_ProducesSameBytes() {
+        final KeyBuffer first = new KeyBuffer();
+        final KeyBuffer second = new KeyBuffer();
+        new SerializingKeyEncoder().encode(12.5D, first);
+        new SerializingKeyEncoder().encode(12.5D, second);
+        Assertions.assertTrue(first.length() > 0);
+        Assertions.assertArrayEquals(Arrays.copyOf(first.array(), first.length()), Arrays.copyOf(second.array(), second.length()));
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.mnukka.memory_bloomer.domain.file;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.CacheBuilder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BlockedBloomFilter;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomFilter32;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidKeyFileException;
+import com.github.mnukka.memory_bloomer.domain.structure.fuse.BinaryFuseFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class KeyFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void open_NewlineFileWithCarriageReturnsAndEmptyLines_SkipsEmptyKeys() throws IOException {
+        final Path path = Files.write(directory.resolve("keys.txt"), "one\r\ntwo\n\nthree".getBytes(StandardCharsets.UTF_8));
+        final KeyFile keyFile = KeyFile.open(path, KeyFileFormat.NEWLINE);
+
+        final List<String> keys = new ArrayList<>();
+        keyFile.forEach(key -> keys.add(key.toString()));
+        Assertions.assertEquals(3, keyFile.size());
+        Assertions.assertEquals(List.of("one", "two", "three"), keys);
+    }
+
+    @Test
+    void open_LengthPrefixedFileCutShort_ThrowsInvalidKeyFileException() throws IOException {
+        final byte[] bytes = lengthPrefixed(List.of("one", "two"));
+        final Path path = Files.write(directory.resolve("keys.bin"), Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertThrows(InvalidKeyFileException.class, () -> KeyFile.open(path, KeyFileFormat.LENGTH_PREFIXED));
+    }
+
+    @Test
+    void forEach_WithSmallChunksOnPool_VisitsEveryKeyOnce() throws IOException {
+        final List<String> expected = IntStream.range(0, 10_000).mapToObj(i -> "key" + i).collect(Collectors.toList());
+        final Path path = Files.write(directory.resolve("keys.bin"), lengthPrefixed(expected));
+        final KeyFile keyFile = KeyFile.open(path, KeyFileFormat.LENGTH_PREFIXED, 256);
+        Assertions.assertTrue(keyFile.chunkCount() > 100);
+
+        final Set<String> visited = ConcurrentHashMap.newKeySet();
+        keyFile.forEach(new ForkJoinPool(4), key -> Assertions.assertTrue(visited.add(key.toString())));
+        Assertions.assertEquals(expected.size(), keyFile.size());
+        Assertions.assertEquals(Set.copyOf(expected), visited);
+    }
+
+    @Test
+    void buildCacheFromFile_WordListInParallel_FindsEveryWord() throws Exception {
+        final Path path = Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource("wordlist.txt")).toURI());
+        final IMemoryCache cache = new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(new BlockedBloomFilter<String>())
+                .addForkJoinPool(ForkJoinPool.commonPool())
+                .buildCacheFromFile(path, KeyFileFormat.NEWLINE);
+
+        final List<String> words = Files.readAllLines(path);
+        Assertions.assertTrue(words.stream().allMatch(cache::isKeyPresent));
+        final long falsePositives = words.stream().filter(word -> cache.isKeyPresent(word + ' ')).count();
+        Assertions.assertTrue(falsePositives < words.size() * 0.01, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void buildCacheFromFile_BloomFilter32InParallel_FindsEveryWord() throws Exception {
+        final Path path = Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource("wordlist.txt")).toURI());
+        final IMemoryCache cache = new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(new BloomFilter32<String>())
+                .addForkJoinPool(ForkJoinPool.commonPool())
+                .buildCacheFromFile(path, KeyFileFormat.NEWLINE);
+
+        final List<String> words = Files.readAllLines(path);
+        Assertions.assertTrue(words.stream().allMatch(cache::isKeyPresent));
+        Assertions.assertEquals(words.size(), KeyFile.open(path, KeyFileFormat.NEWLINE).size());
+        final long falsePositives = words.stream().filter(word -> cache.isKeyPresent(word + ' ')).count();
+        Assertions.assertTrue(falsePositives < words.size() * 0.01, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void buildCacheFromFile_BloomFilter32_MatchesFilterBuiltFromList() throws IOException {
+        final List<String> keys = Arrays.asList("one", "two", "three", "four");
+        final Path path = Files.write(directory.resolve("keys.txt"), keys);
+        final BloomFilter32<String> fromFile = new BloomFilter32<>();
+        new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(fromFile)
+                .buildCacheFromFile(path, KeyFileFormat.NEWLINE);
+        final BloomFilter32<String> fromList = new BloomFilter32<>();
+        new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(fromList)
+                .buildCache(keys);
+
+        Assertions.assertEquals(fromList.getProperties().getBitmapSize(), fromFile.getProperties().getBitmapSize());
+        Assertions.assertEquals(fromList.getBitCount(), fromFile.getBitCount());
+        Assertions.assertTrue(keys.stream().allMatch(fromFile::isKeyPresent));
+    }
+
+    @Test
+    void buildCacheFromFile_BinaryFuseFilter_FindsEveryWord() throws Exception {
+        final Path path = Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource("wordlist.txt")).toURI());
+        final IMemoryCache cache = new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(new BinaryFuseFilter<String>())
+                .buildCacheFromFile(path, KeyFileFormat.NEWLINE);
+
+        final List<String> words = Files.readAllLines(path);
+        Assertions.assertTrue(words.stream().allMatch(cache::isKeyPresent));
+    }
+
+    private static byte[] lengthPrefixed(List<String> keys) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        for (String key : keys) {
+            final byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(encoded.length);
+            output.write(encoded);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class HashFunctionTest {
+
+    @Test
+    void hash128_WithReferenceVectors_MatchesMurmurHash3x64() {
+        final long[] result = new long[2];
+        final Murmur3Hash128 murmur = new Murmur3Hash128(0);
+
+        murmur.hash128(new byte[0], 0, 0, result);
+        Assertions.assertEquals(0L, result[0]);
+        Assertions.assertEquals(0L, result[1]);
+
+        final byte[] hello = "hello".getBytes(StandardCharsets.UTF_8);
+        murmur.hash128(hello, 0, hello.length, result);
+        Assertions.assertEquals(0xcbd8a7b341bd9b02L, result[0]);
+        Assertions.assertEquals(0x5b1e906a48ae1d19L, result[1]);
+    }
+
+    @Test
+    void hash128_WithOffset_MatchesHashOfCopiedRange() {
+        final byte[] input = "prefix-some longer key spanning blocks-suffix".getBytes(StandardCharsets.UTF_8);
+        final byte[] range = "some longer key spanning blocks".getBytes(StandardCharsets.UTF_8);
+        final long[] expected = new long[2];
+        final long[] actual = new long[2];
+        final Murmur3Hash128 murmur = new Murmur3Hash128(42);
+        murmur.hash128(range, 0, range.length, expected);
+        murmur.hash128(input, 7, range.length, actual);
+        Assertions.assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void hash32_WithProbeInUse_KeepsProbeOfCallingThread() {
+        final Murmur3Hash128 murmur = new Murmur3Hash128(42);
+        final byte[] key = "key".getBytes(StandardCharsets.UTF_8);
+        final DoubleHashProbe probe = DoubleHashProbe.forCurrentThread().hash(murmur, key, 0, key.length);
+        final long h1 = probe.h1();
+        final long h2 = probe.h2();
+
+        murmur.hash32("other".getBytes(StandardCharsets.UTF_8), 1024);
+        Assertions.assertEquals(h1, probe.h1());
+        Assertions.assertEquals(h2, probe.h2());
+    }
+
+    @Test
+    void reduce_WithExtremeHashes_StaysInRange() {
+        final int[] hashes = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        for (int hash : hashes) {
+            final int position = DoubleHashProbe.reduce(hash, 199);
+            Assertions.assertTrue(position >= 0 && position < 199);
+        }
+        final long[] longHashes = {Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE};
+        for (long hash : longHashes) {
+            final long position = DoubleHashProbe.reduce(hash, 10_000_000_000L);
+            Assertions.assertTrue(position >= 0 && position < 10_000_000_000L);
+        }
+    }
+
+    @Test
+    void reduce_WithAllOnes_ReturnsLastPosition() {
+        Assertions.assertEquals(198, DoubleHashProbe.reduce(-1, 199));
+        Assertions.assertEquals(9_999_999_999L, DoubleHashProbe.reduce(-1L, 10_000_000_000L));
+    }
+
+    @Test
+    void hash32_LegacyFunctionsWithMinValueHash_NeverNegative() {
+        final byte[] input = "one".getBytes(StandardCharsets.UTF_8);
+        for (int maxBitPos = 1; maxBitPos < 2048; maxBitPos++) {
+            Assertions.assertTrue(new MurmurHash().hash32(input, maxBitPos) >= 0);
+            Assertions.assertTrue(new SpookyHash().hash32(input, maxBitPos) >= 0);
+        }
+    }
+}
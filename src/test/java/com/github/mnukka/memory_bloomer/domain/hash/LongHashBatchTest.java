@@ -0,0 +1,55 @@
+package com.github.mnukka.memory_bloomer.domain.hash;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+class LongHashBatchTest {
+
+    @Test
+    void hash_WithEveryBatchSize_MatchesScalarKernel() {
+        final SplittableRandom random = new SplittableRandom(7);
+        final long[] keys = random.longs(3 * LongHashBatch.SIZE).toArray();
+        final long[] h1 = new long[LongHashBatch.SIZE];
+        final long[] h2 = new long[LongHashBatch.SIZE];
+        final LongHashBatch batch = LongHashBatch.forCurrentThread();
+        for (int count = 0; count <= LongHashBatch.SIZE; count++) {
+            final long seedMix = random.nextLong();
+            final int from = random.nextInt(2 * LongHashBatch.SIZE);
+            batch.hash(keys, from, count, seedMix);
+            new ScalarLongHashKernel().hash(keys, from, count, seedMix, h1, h2);
+            for (int slot = 0; slot < count; slot++) {
+                Assertions.assertEquals(h1[slot], batch.h1(slot));
+                Assertions.assertEquals(h2[slot], batch.h2(slot));
+                Assertions.assertEquals(Murmur3Hash128.fmix64(keys[from + slot] ^ seedMix), batch.h1(slot));
+            }
+        }
+    }
+
+    @Test
+    void hash_WithIntKeys_MatchesWidenedLongKeys() {
+        final int[] keys = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        final long[] widened = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        final long[] h1 = new long[keys.length];
+        final long[] h2 = new long[keys.length];
+        new ScalarLongHashKernel().hash(widened, 0, widened.length, 42, h1, h2);
+
+        final LongHashBatch batch = LongHashBatch.forCurrentThread();
+        batch.hash(keys, 0, keys.length, 42);
+        for (int slot = 0; slot < keys.length; slot++) {
+            Assertions.assertEquals(h1[slot], batch.h1(slot));
+            Assertions.assertEquals(h2[slot], batch.h2(slot));
+        }
+    }
+
+    @Test
+    void loadVectorKernel_WithVectorModule_MatchesScalarKernel() {
+        final LongHashKernel vector = LongHashBatch.loadVectorKernel();
+        Assumptions.assumeTrue(vector != null, "Vector API is not available on this runtime");
+
+        Assertions.assertTrue(LongHashBatch.matchesScalar(vector));
+        Assertions.assertTrue(LongHashBatch.isVectorized());
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.mnukka.memory_bloomer.domain.stats;
+
+import com.github.mnukka.memory_bloomer.domain.CacheBuilder;
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.bloom.BloomFilter64;
+import com.github.mnukka.memory_bloomer.domain.structure.fuse.BinaryFuseFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+class InstrumentedMemoryCacheTest {
+
+    @Test
+    void isKeyPresent_WithPresentAndAbsentKeys_CountsLookups() {
+        final InstrumentedMemoryCache<String> cache = new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(new BloomFilter64<String>())
+                .buildInstrumentedCache(Arrays.asList("one", "two"));
+        cache.isKeyPresent("one");
+        cache.isKeyPresent("three");
+        cache.isKeysPresent(Arrays.asList("two", "four", "five"));
+
+        final CacheStats stats = cache.getStats();
+        Assertions.assertEquals(5, stats.getLookupCount());
+        Assertions.assertEquals(stats.getLookupCount(), stats.getPositiveCount() + stats.getNegativeCount());
+        Assertions.assertTrue(stats.getPositiveCount() >= 2);
+        Assertions.assertTrue(stats.getBuildDurationNanos() > 0);
+    }
+
+    @Test
+    void getStats_WithFullBloomFilter_ReportsFillAndCollisionProbability() {
+        final List<Long> keys = LongStream.range(0, 100_000).boxed().collect(Collectors.toList());
+        final InstrumentedMemoryCache<Long> cache = new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addKeyEncoder(new LongKeyEncoder())
+                .addDataStructure(new BloomFilter64<Long>())
+                .buildInstrumentedCache(keys);
+
+        final CacheStats stats = cache.getStats();
+        Assertions.assertEquals(0.5, stats.getFillRatio(), 0.03);
+        Assertions.assertEquals(0.005, stats.getCollisionProbability());
+        Assertions.assertEquals(0.005, stats.getEstimatedCollisionProbability(), 0.0005);
+    }
+
+    @Test
+    void getStats_WithCacheWithoutStatistics_ReportsZeroFill() {
+        final InstrumentedMemoryCache<String> cache = new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(new BinaryFuseFilter<String>())
+                .buildInstrumentedCache(Arrays.asList("one", "two"));
+        Assertions.assertEquals(0, cache.getStats().getFillRatio());
+    }
+
+    @Test
+    void register_WithName_PublishesMXBean() throws Exception {
+        final InstrumentedMemoryCache<String> cache = new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128())
+                .addDataStructure(new BloomFilter64<String>())
+                .buildInstrumentedCache(Arrays.asList("one", "two"))
+                .register("deny-list");
+        try {
+            cache.isKeyPresent("one");
+            final ObjectName name = new ObjectName("com.github.mnukka.memory_bloomer:type=MemoryCache,name=\"deny-list\"");
+            Assertions.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "LookupCount"));
+            Assertions.assertThrows(IllegalStateException.class, () -> new InstrumentedMemoryCache<>(cache).register("deny-list"));
+        } finally {
+            cache.unregister();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+class AlignedBitmapTest {
+    private static final int REGION_WORD_SHIFT = 4;
+    private static final long REGION_BITS = (1L << REGION_WORD_SHIFT) * 64;
+
+    @Test
+    void set_AcrossRegionBoundaries_OnlyGivenBitsAreSet() {
+        final long bitSize = 3 * REGION_BITS + 100;
+        final AlignedBitmap bitmap = new AlignedBitmap(bitSize, REGION_WORD_SHIFT);
+        final long[] bits = {0, 63, 64, REGION_BITS - 1, REGION_BITS, 2 * REGION_BITS + 1, bitSize - 1};
+        for (long bit : bits) {
+            bitmap.set(bit);
+        }
+        for (long bit : bits) {
+            Assertions.assertTrue(bitmap.get(bit));
+        }
+        Assertions.assertFalse(bitmap.get(1));
+        Assertions.assertFalse(bitmap.get(REGION_BITS + 1));
+        Assertions.assertEquals(bits.length, bitmap.cardinality());
+        Assertions.assertEquals((bitSize + 63) >>> 6, bitmap.wordCount());
+    }
+
+    @Test
+    void set_FromManyThreads_KeepsEveryBit() {
+        final AlignedBitmap bitmap = new AlignedBitmap(1 << 16);
+        LongStream.range(0, 1 << 16).parallel().forEach(bitmap::set);
+        Assertions.assertEquals(1 << 16, bitmap.cardinality());
+        Assertions.assertEquals(-1L, bitmap.getWord(0));
+    }
+
+    @Test
+    void constructor_WithNonPositiveSize_ThrowsIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AlignedBitmap(0));
+    }
+}
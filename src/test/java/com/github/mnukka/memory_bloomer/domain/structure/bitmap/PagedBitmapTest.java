@@ -0,0 +1,37 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bitmap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PagedBitmapTest {
+    private static final long PAGE_BITS = (long) PagedBitmap.PAGE_WORDS * 64;
+
+    @Test
+    void set_AcrossPageBoundaries_OnlyGivenBitsAreSet() {
+        final long bitSize = 3 * PAGE_BITS + 100;
+        final PagedBitmap bitmap = new PagedBitmap(bitSize);
+        final long[] bits = {0, 63, 64, PAGE_BITS - 1, PAGE_BITS, 2 * PAGE_BITS + 1, bitSize - 1};
+        for (long bit : bits) {
+            bitmap.set(bit);
+        }
+        for (long bit : bits) {
+            Assertions.assertTrue(bitmap.get(bit));
+        }
+        Assertions.assertFalse(bitmap.get(1));
+        Assertions.assertFalse(bitmap.get(PAGE_BITS + 1));
+        Assertions.assertEquals(bits.length, bitmap.cardinality());
+    }
+
+    @Test
+    void wordCount_WithPartialLastWord_RoundsUp() {
+        final PagedBitmap bitmap = new PagedBitmap(PAGE_BITS + 65);
+        Assertions.assertEquals(PagedBitmap.PAGE_WORDS + 2, bitmap.wordCount());
+        bitmap.set(PAGE_BITS + 64);
+        Assertions.assertEquals(1L, bitmap.getWord(PagedBitmap.PAGE_WORDS + 1));
+    }
+
+    @Test
+    void constructor_WithNonPositiveSize_ThrowsIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PagedBitmap(0));
+    }
+}
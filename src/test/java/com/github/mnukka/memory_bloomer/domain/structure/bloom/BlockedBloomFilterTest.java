@@ -0,0 +1,73 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+class BlockedBloomFilterTest {
+
+    @Test
+    void createCache_WithLegacyHashFunction_ThrowsIllegalArgumentException() {
+        final BlockedBloomFilter<String> filter = new BlockedBloomFilter<>();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> filter.createCache(Collections.singletonList(new MurmurHash()), Arrays.asList("one", "two")));
+    }
+
+    @Test
+    void createCache_WithExpectedInsertions_BitmapIsWholeBlocksAndLargerThanStandard() {
+        final BlockedBloomFilter<Long> filter = new BlockedBloomFilter<>();
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), Collections.singletonList(1L).iterator(), 1_000_000);
+        final BloomProperties properties = filter.getProperties();
+        Assertions.assertEquals(0, properties.getBitmapSize() % BlockedBloomFilter.BLOCK_BITS);
+        Assertions.assertTrue(properties.getBitmapSize() > BloomMath.optimalBits(properties.getHashFunctionCount(), 1_000_000, 0.005));
+    }
+
+    @Test
+    void isKeyPresent_WithMillionLongs_AllMatchAndFewFalsePositives() {
+        final BlockedBloomFilter<Long> filter = new BlockedBloomFilter<>();
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(),
+                LongStream.range(0, 1_000_000).boxed().iterator(), 1_000_000);
+        Assertions.assertTrue(LongStream.range(0, 1_000_000).allMatch(filter::isKeyPresent));
+
+        final long falsePositives = LongStream.range(1_000_000, 1_200_000).filter(filter::isKeyPresent).count();
+        Assertions.assertTrue(falsePositives / 200_000D <= 0.006D);
+    }
+
+    @Test
+    void isKeyPresent_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new BlockedBloomFilter<String>().isKeyPresent("one"));
+    }
+
+    @Test
+    void createCache_WithForkJoinPool_MatchesSequentialBitmap() {
+        final List<Long> keys = LongStream.range(0, 200_000).boxed().collect(Collectors.toList());
+        final BlockedBloomFilter<Long> sequential = new BlockedBloomFilter<>();
+        sequential.createCache(Collections.singletonList(new Murmur3Hash128(7)), new LongKeyEncoder(), keys);
+        final BlockedBloomFilter<Long> parallel = new BlockedBloomFilter<>();
+        parallel.createCache(Collections.singletonList(new Murmur3Hash128(7)), new LongKeyEncoder(), keys, ForkJoinPool.commonPool());
+        Assertions.assertEquals(sequential.getProperties().getBitmapSize(), parallel.getProperties().getBitmapSize());
+        Assertions.assertTrue(keys.stream().allMatch(parallel::isKeyPresent));
+        Assertions.assertEquals(LongStream.range(1_000_000, 1_100_000).filter(sequential::isKeyPresent).count(),
+                LongStream.range(1_000_000, 1_100_000).filter(parallel::isKeyPresent).count());
+    }
+
+    @Test
+    void isKeysPresent_WithPresentAndAbsentKeys_MatchesIsKeyPresent() {
+        final BlockedBloomFilter<Long> filter = new BlockedBloomFilter<>();
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), LongStream.range(0, 10_000).boxed().iterator(), 10_000);
+        final List<Long> keys = LongStream.range(5_000, 15_003).boxed().collect(Collectors.toList());
+        final boolean[] result = new boolean[keys.size()];
+        filter.isKeysPresent(keys, result);
+        for (int i = 0; i < keys.size(); i++) {
+            Assertions.assertEquals(filter.isKeyPresent(keys.get(i)), result[i]);
+        }
+    }
+}
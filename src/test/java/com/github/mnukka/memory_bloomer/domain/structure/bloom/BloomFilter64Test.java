@@ -0,0 +1,80 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+class BloomFilter64Test {
+
+    @Test
+    void createCache_WithLegacyHashFunction_ThrowsIllegalArgumentException() {
+        final BloomFilter64<String> bloomFilter64 = new BloomFilter64<>();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bloomFilter64.createCache(Collections.singletonList(new MurmurHash()), Arrays.asList("one", "two")));
+    }
+
+    @Test
+    void createCache_WithNullElement_ThrowsNPE() {
+        final BloomFilter64<String> bloomFilter64 = new BloomFilter64<>();
+        Assertions.assertThrows(NullPointerException.class, () -> bloomFilter64.createCache(Collections.singletonList(new Murmur3Hash128()), Arrays.asList("one", null)));
+    }
+
+    @Test
+    void createCache_WithExpectedInsertions_MatchesOptimalBits() {
+        final BloomFilter64<Long> bloomFilter64 = new BloomFilter64<>();
+        bloomFilter64.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(),
+                Collections.singletonList(1L).iterator(), 10_000_000L);
+        final BloomProperties properties = bloomFilter64.getProperties();
+        Assertions.assertEquals((long) BloomMath.optimalBits(properties.getHashFunctionCount(), 10_000_000L, 0.005), properties.getBitmapSize());
+        Assertions.assertTrue(bloomFilter64.isKeyPresent(1L));
+    }
+
+    @Test
+    void isKeyPresent_WithMillionLongs_AllMatchAndFewFalsePositives() {
+        final BloomFilter64<Long> bloomFilter64 = new BloomFilter64<>();
+        bloomFilter64.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(),
+                LongStream.range(0, 1_000_000).boxed().iterator(), 1_000_000);
+        Assertions.assertTrue(LongStream.range(0, 1_000_000).allMatch(bloomFilter64::isKeyPresent));
+
+        final long falsePositives = LongStream.range(1_000_000, 1_200_000).filter(bloomFilter64::isKeyPresent).count();
+        Assertions.assertTrue(falsePositives / 200_000D <= 0.0075D);
+    }
+
+    @Test
+    void isKeyPresent_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new BloomFilter64<String>().isKeyPresent("one"));
+    }
+
+    @Test
+    void createCache_WithForkJoinPool_MatchesSequentialBitmap() {
+        final List<Long> keys = LongStream.range(0, 200_000).boxed().collect(Collectors.toList());
+        final BloomFilter64<Long> sequential = new BloomFilter64<>();
+        sequential.createCache(Collections.singletonList(new Murmur3Hash128(7)), new LongKeyEncoder(), keys);
+        final BloomFilter64<Long> parallel = new BloomFilter64<>();
+        parallel.createCache(Collections.singletonList(new Murmur3Hash128(7)), new LongKeyEncoder(), keys, ForkJoinPool.commonPool());
+        Assertions.assertEquals(sequential.getProperties().getBitmapSize(), parallel.getProperties().getBitmapSize());
+        Assertions.assertTrue(keys.stream().allMatch(parallel::isKeyPresent));
+        Assertions.assertEquals(LongStream.range(1_000_000, 1_100_000).filter(sequential::isKeyPresent).count(),
+                LongStream.range(1_000_000, 1_100_000).filter(parallel::isKeyPresent).count());
+    }
+
+    @Test
+    void isKeysPresent_WithPresentAndAbsentKeys_MatchesIsKeyPresent() {
+        final BloomFilter64<Long> filter = new BloomFilter64<>();
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), LongStream.range(0, 10_000).boxed().iterator(), 10_000);
+        final List<Long> keys = LongStream.range(5_000, 15_003).boxed().collect(Collectors.toList());
+        final boolean[] result = new boolean[keys.size()];
+        filter.isKeysPresent(keys, result);
+        for (int i = 0; i < keys.size(); i++) {
+            Assertions.assertEquals(filter.isKeyPresent(keys.get(i)), result[i]);
+        }
+    }
+}
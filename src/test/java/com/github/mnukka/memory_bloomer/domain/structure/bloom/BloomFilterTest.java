@@ -1,6 +1,10 @@
 package com.github.mnukka.memory_bloomer.domain.structure.bloom;
 
+import com.github.mnukka.memory_bloomer.domain.CacheBuilder;
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.SerializingKeyEncoder;
 import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
 import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
 import com.github.mnukka.memory_bloomer.domain.hash.SpookyHash;
 import org.junit.jupiter.api.Assertions;
@@ -11,7 +15,9 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 class BloomFilterTest {
@@ -43,6 +49,12 @@ class BloomFilterTest {
         Assertions.assertDoesNotThrow(() -> bloomFilter32.createCache(Collections.singletonList(new MurmurHash()), Arrays.asList("one", "two")));
     }
 
+    @Test
+    void createCache_WithImmutableLists_ReturnsBloomFilterWithoutExceptions() {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        Assertions.assertDoesNotThrow(() -> bloomFilter32.createCache(List.of(new Murmur3Hash128()), List.of("one", "two")));
+    }
+
     @Test
     void createCache_WithOneHashAndOneItem_matchesOptimalBits() {
         final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
@@ -63,6 +75,19 @@ class BloomFilterTest {
         Assertions.assertEquals(IHashFunction.getSeed(), bloomProperties.getSeed());
     }
 
+    @Test
+    void createCache_WithSingle128BitHash_UsesOptimalHashFunctionCount() {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128()), Arrays.asList("one", "two"));
+        Assertions.assertEquals(BloomMath.optimalHashFunctionCount(0.005), bloomFilter32.getProperties().getHashFunctionCount());
+    }
+
+    @Test
+    void createCache_WithConfiguredCountAndLegacyHashes_ThrowsIllegalArgumentException() {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>(0.01, 4);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bloomFilter32.createCache(Arrays.asList(new MurmurHash(), new SpookyHash()), Arrays.asList("one", "two")));
+    }
+
     @Test
     void isKeyPresent_WithItemsFromList_Match() {
         BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
@@ -70,6 +95,20 @@ class BloomFilterTest {
         assert bloomFilter32.isKeyPresent("one");
     }
 
+    @Test
+    void createCache_WithUnsupportedKeyType_ThrowsIllegalArgumentException() {
+        final BloomFilter32<Double> bloomFilter32 = new BloomFilter32<>();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bloomFilter32.createCache(Collections.singletonList(new MurmurHash()), Collections.singletonList(1.5D)));
+    }
+
+    @Test
+    void isKeyPresent_WithSerializingKeyEncoder_Match() {
+        final BloomFilter32<Double> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Arrays.asList(new MurmurHash(), new SpookyHash()), new SerializingKeyEncoder(), Arrays.asList(1.5D, 2.5D));
+        Assertions.assertTrue(bloomFilter32.isKeyPresent(1.5D));
+        Assertions.assertTrue(bloomFilter32.isKeyPresent(2.5D));
+    }
+
     @Test
     void isKeyPresent_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
         BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
@@ -118,6 +157,69 @@ class BloomFilterTest {
         Assertions.assertTrue(Math.round(average * 1000D) / 1000D <= 0.005D);
     }
 
+    @Test
+    void isKeyPresent_DoubleHashingRandomStringsNotInWordList_LessThan1In200Match() throws IOException, URISyntaxException {
+        final List<String> wordList = loadWordList();
+        final Set<String> wordSet = new HashSet<>(wordList);
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128()), wordList);
+        assert wordList.stream().allMatch(bloomFilter32::isKeyPresent);
+
+        final List<String> randomStringList = createRandomStringList(100000);
+        randomStringList.removeAll(wordSet);
+        final long falsePositives = randomStringList.stream().filter(bloomFilter32::isKeyPresent).count();
+        Assertions.assertTrue(falsePositives / (double) randomStringList.size() <= 0.0075D);
+    }
+
+
+    @Test
+    void buildCache_WithForkJoinPool_MatchesSequentialBitmap() {
+        final List<Long> keys = LongStream.range(0, 200_000).boxed().collect(Collectors.toList());
+        final BloomFilter32<Long> sequential = new BloomFilter32<>();
+        sequential.createCache(Collections.singletonList(new Murmur3Hash128(7)), new LongKeyEncoder(), keys);
+        final BloomFilter32<Long> parallel = new BloomFilter32<>();
+        new CacheBuilder()
+                .addHashFunction(new Murmur3Hash128(7))
+                .addKeyEncoder(new LongKeyEncoder())
+                .addDataStructure(parallel)
+                .addForkJoinPool(ForkJoinPool.commonPool())
+                .buildCache(keys);
+        Assertions.assertEquals(sequential.bitMap(), parallel.bitMap());
+        Assertions.assertEquals(sequential.getProperties().getBitmapSize(), parallel.getProperties().getBitmapSize());
+    }
+
+    @Test
+    void createCache_WithForkJoinPoolAndNullInList_ThrowsNPE() {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        Assertions.assertThrows(NullPointerException.class, () -> bloomFilter32.createCache(Collections.singletonList(new MurmurHash()),
+                new SerializingKeyEncoder(), Arrays.asList("one", null), ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void isKeysPresent_WithSingle128BitHash_MatchesIsKeyPresent() {
+        final BloomFilter32<Long> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(),
+                LongStream.range(0, 10_000).boxed().collect(Collectors.toList()));
+        final List<Long> keys = LongStream.range(5_000, 15_003).boxed().collect(Collectors.toList());
+        final boolean[] result = bloomFilter32.isKeysPresent(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            Assertions.assertEquals(bloomFilter32.isKeyPresent(keys.get(i)), result[i]);
+        }
+    }
+
+    @Test
+    void isKeysPresent_WithLegacyHashes_MatchesIsKeyPresent() {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Arrays.asList(new MurmurHash(), new SpookyHash()), Arrays.asList("one", "two"));
+        Assertions.assertArrayEquals(new boolean[]{true, true}, bloomFilter32.isKeysPresent(new LinkedList<>(Arrays.asList("one", "two"))));
+    }
+
+    @Test
+    void isKeysPresent_WithShortResultArray_ThrowsIllegalArgumentException() {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128()), Arrays.asList("one", "two"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bloomFilter32.isKeysPresent(Arrays.asList("one", "two"), new boolean[1]));
+    }
     private List<String> loadWordList() throws IOException, URISyntaxException {
         List<String> wordList;
         var path = Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource("wordlist.txt")).toURI());
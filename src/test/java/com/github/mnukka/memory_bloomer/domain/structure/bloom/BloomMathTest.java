@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -31,4 +32,29 @@ class BloomMathTest {
         int expectedBitCount = 9284438;
         assertEquals(expectedBitCount, Math.floor(m));
     }
+
+    @Test
+    void optimalHashFunctionCount_WithDefaultProbability_MinimizesBits() {
+        final int k = BloomMath.optimalHashFunctionCount(0.005);
+        assertEquals(8, k);
+        assertTrue(BloomMath.optimalBits(k, NUM_OF_ITEMS_TO_STORE, 0.005) < BloomMath.optimalBits(NUM_OF_HASH_FUNCTIONS, NUM_OF_ITEMS_TO_STORE, 0.005));
+    }
+
+    @Test
+    void findBlockedCollisionProbability_WithSameBits_HigherThanStandard() {
+        final int k = 8;
+        final long m = (long) BloomMath.optimalBits(k, NUM_OF_ITEMS_TO_STORE, 0.005);
+        final double standard = BloomMath.findCollisionProbability(k, NUM_OF_ITEMS_TO_STORE, m);
+        final double blocked = BloomMath.findBlockedCollisionProbability(k, NUM_OF_ITEMS_TO_STORE, m, 512);
+        assertTrue(blocked > standard);
+        assertTrue(blocked < standard * 2);
+    }
+
+    @Test
+    void optimalBlockedBits_WithDefaultProbability_SatisfiesProbability() {
+        final int k = BloomMath.optimalBlockedHashFunctionCount(0.005, 512);
+        final double m = BloomMath.optimalBlockedBits(k, NUM_OF_ITEMS_TO_STORE, 0.005, 512);
+        assertTrue(BloomMath.findBlockedCollisionProbability(k, NUM_OF_ITEMS_TO_STORE, (long) Math.ceil(m), 512) <= 0.005);
+        assertTrue(BloomMath.findBlockedCollisionProbability(k, NUM_OF_ITEMS_TO_STORE, (long) m - 2, 512) > 0.005);
+    }
 }
\ No newline at end of file
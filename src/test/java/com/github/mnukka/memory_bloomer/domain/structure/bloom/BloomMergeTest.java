@@ -0,0 +1,73 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+class BloomMergeTest {
+    private static final long SHARD_SIZE = 20_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void union_OfBuiltAndLoadedShards_FindsKeysOfEveryShard() {
+        final BloomFilter64<Long> first = createShard(0, 7);
+        final BloomFilter64<Long> second = createShard(1, 7);
+        final Path path = directory.resolve("second.bloom");
+        BloomSnapshot.write(second, path);
+        final ConcurrentBloomFilter<Long> third = new ConcurrentBloomFilter<>(SHARD_SIZE);
+        third.createCache(Collections.singletonList(new Murmur3Hash128(7)), new LongKeyEncoder(), Collections.emptyList());
+        LongStream.range(2 * SHARD_SIZE, 3 * SHARD_SIZE).forEach(third::add);
+
+        final MappedBloomFilter<Long> union = BloomMerge.union(
+                List.of(first, BloomSnapshot.load(path, new LongKeyEncoder()), third), new LongKeyEncoder());
+
+        Assertions.assertTrue(LongStream.range(0, 3 * SHARD_SIZE).allMatch(union::isKeyPresent));
+        Assertions.assertEquals(3 * SHARD_SIZE, union.getEstimatedElementCount(), 3 * SHARD_SIZE * 0.03);
+        Assertions.assertTrue(union.getEstimatedCollisionProbability() > first.getEstimatedCollisionProbability());
+    }
+
+    @Test
+    void intersection_OfOverlappingFilters_KeepsSharedKeys() {
+        final BloomFilter64<Long> first = createFilter(LongStream.range(0, SHARD_SIZE), 3);
+        final BloomFilter64<Long> second = createFilter(LongStream.range(SHARD_SIZE / 2, SHARD_SIZE * 3 / 2), 3);
+
+        final MappedBloomFilter<Long> intersection = BloomMerge.intersection(List.of(first, second), new LongKeyEncoder());
+        Assertions.assertTrue(LongStream.range(SHARD_SIZE / 2, SHARD_SIZE).allMatch(intersection::isKeyPresent));
+        final long onlyFirst = LongStream.range(0, SHARD_SIZE / 2).filter(intersection::isKeyPresent).count();
+        Assertions.assertTrue(onlyFirst < SHARD_SIZE / 2 * 0.02, "keys of first filter only: " + onlyFirst);
+        Assertions.assertEquals(SHARD_SIZE / 2, BloomMerge.estimateIntersectionSize(first, second), SHARD_SIZE / 2 * 0.05);
+    }
+
+    @Test
+    void union_OfFiltersWithDifferentSeeds_ThrowsIllegalArgumentException() {
+        final List<BloomFilter64<Long>> filters = List.of(createShard(0, 7), createShard(1, 8));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BloomMerge.union(filters, new LongKeyEncoder()));
+    }
+
+    @Test
+    void union_OfFiltersOfDifferentSize_ThrowsIllegalArgumentException() {
+        final BloomFilter64<Long> small = new BloomFilter64<>();
+        small.createCache(Collections.singletonList(new Murmur3Hash128(7)), new LongKeyEncoder(), LongStream.range(0, 10).boxed().iterator(), 10);
+        final List<BloomFilter64<Long>> filters = List.of(createShard(0, 7), small);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BloomMerge.union(filters, new LongKeyEncoder()));
+    }
+
+    private static BloomFilter64<Long> createShard(long shard, int seed) {
+        return createFilter(LongStream.range(shard * SHARD_SIZE, (shard + 1) * SHARD_SIZE), seed);
+    }
+
+    private static BloomFilter64<Long> createFilter(LongStream keys, int seed) {
+        final BloomFilter64<Long> filter = new BloomFilter64<>();
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(seed)), new LongKeyEncoder(), keys.boxed().iterator(), SHARD_SIZE);
+        return filter;
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.encoder.Utf8KeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.IHashFunction;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
+import com.github.mnukka.memory_bloomer.domain.hash.SpookyHash;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidSnapshotException;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.UnexpectedIOException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+class BloomSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void load_BloomFilter32PerHashFunction_AnswersSameAsOriginal() {
+        final List<String> keys = createKeys(5000);
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Arrays.asList(new MurmurHash(11), new SpookyHash(13)), keys);
+        final Path path = directory.resolve("filter32.bloom");
+        BloomSnapshot.write(bloomFilter32, path);
+
+        final MappedBloomFilter<String> mapped = BloomSnapshot.load(path, new Utf8KeyEncoder());
+        assertSameAnswers(bloomFilter32, mapped);
+        Assertions.assertEquals(bloomFilter32.getProperties().getBitmapSize(), mapped.getProperties().getBitmapSize());
+        Assertions.assertEquals(11, mapped.getProperties().getSeed());
+    }
+
+    @Test
+    void load_BloomFilter32DoubleHashing_AnswersSameAsOriginal() {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>(0.01);
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128(5)), createKeys(5000));
+        final Path path = directory.resolve("filter32.bloom");
+        BloomSnapshot.write(bloomFilter32, path);
+
+        assertSameAnswers(bloomFilter32, BloomSnapshot.load(path, new Utf8KeyEncoder()));
+    }
+
+    @Test
+    void load_BloomFilter64_AnswersSameAsOriginal() {
+        final BloomFilter64<Long> bloomFilter64 = new BloomFilter64<>();
+        bloomFilter64.createCache(Collections.singletonList(new Murmur3Hash128(5)), new LongKeyEncoder(),
+                LongStream.range(0, 20_000).boxed().iterator(), 20_000);
+        final Path path = directory.resolve("filter64.bloom");
+        BloomSnapshot.write(bloomFilter64, path);
+
+        final MappedBloomFilter<Long> mapped = BloomSnapshot.load(path, new LongKeyEncoder());
+        Assertions.assertTrue(LongStream.range(0, 20_000).allMatch(mapped::isKeyPresent));
+        Assertions.assertTrue(LongStream.range(20_000, 60_000).allMatch(p -> mapped.isKeyPresent(p) == bloomFilter64.isKeyPresent(p)));
+    }
+
+    @Test
+    void createCache_WithSameSeeds_ProducesIdenticalSnapshots() throws IOException {
+        final List<String> keys = createKeys(1000);
+        final Path first = directory.resolve("first.bloom");
+        final Path second = directory.resolve("second.bloom");
+        final BloomFilter32<String> firstFilter = new BloomFilter32<>();
+        firstFilter.createCache(Collections.singletonList(new Murmur3Hash128(99)), keys);
+        final BloomFilter32<String> secondFilter = new BloomFilter32<>();
+        secondFilter.createCache(Collections.singletonList(new Murmur3Hash128(99)), keys);
+        BloomSnapshot.write(firstFilter, first);
+        BloomSnapshot.write(secondFilter, second);
+        Assertions.assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    }
+
+    @Test
+    void write_WithCustomHashFunction_ThrowsIllegalArgumentException() {
+        final IHashFunction custom = (input, maxBitPos) -> input.length % maxBitPos;
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(custom), Collections.singletonList("one"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BloomSnapshot.write(bloomFilter32, directory.resolve("custom.bloom")));
+    }
+
+    @Test
+    void write_WhenMoveFails_DeletesTemporaryFile() throws IOException {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128(5)), createKeys(100));
+        final Path path = Files.createDirectory(directory.resolve("occupied.bloom"));
+        Files.write(path.resolve("file"), new byte[1]);
+
+        Assertions.assertThrows(UnexpectedIOException.class, () -> BloomSnapshot.write(bloomFilter32, path));
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(List.of(path), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void write_ConcurrentlyToSamePath_LeavesOneCompleteSnapshot() throws Exception {
+        final List<String> keys = createKeys(20_000);
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128(5)), keys);
+        final Path path = directory.resolve("shared.bloom");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> writes = IntStream.range(0, 16)
+                    .mapToObj(i -> executor.submit(() -> BloomSnapshot.write(bloomFilter32, path)))
+                    .collect(Collectors.toList());
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertSameAnswers(bloomFilter32, BloomSnapshot.load(path, new Utf8KeyEncoder()));
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(List.of(path), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void load_WithForeignFile_ThrowsInvalidSnapshotException() throws IOException {
+        final Path path = directory.resolve("foreign.bloom");
+        Files.write(path, new byte[64]);
+        Assertions.assertThrows(InvalidSnapshotException.class, () -> BloomSnapshot.load(path, new Utf8KeyEncoder()));
+    }
+
+    @Test
+    void load_WithTruncatedBitmap_ThrowsInvalidSnapshotException() throws IOException {
+        final BloomFilter32<String> bloomFilter32 = new BloomFilter32<>();
+        bloomFilter32.createCache(Collections.singletonList(new Murmur3Hash128(5)), createKeys(1000));
+        final Path path = directory.resolve("truncated.bloom");
+        BloomSnapshot.write(bloomFilter32, path);
+        final byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 8));
+        Assertions.assertThrows(InvalidSnapshotException.class, () -> BloomSnapshot.load(path, new Utf8KeyEncoder()));
+    }
+
+    private static void assertSameAnswers(BloomFilter32<String> original, MappedBloomFilter<String> mapped) {
+        final List<String> probes = createKeys(20000);
+        Assertions.assertTrue(probes.stream().allMatch(p -> original.isKeyPresent(p) == mapped.isKeyPresent(p)));
+    }
+
+    private static List<String> createKeys(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "key-" + i).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.FilterArena;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.OffHeapBitmap;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidSnapshotException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class BloomWireTest {
+
+    private static List<String> keys(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "key" + i).collect(Collectors.toList());
+    }
+
+    private static BloomFilter64<String> sparseFilter() {
+        final BloomFilter64<String> filter = new BloomFilter64<>();
+        filter.createCache(List.of(new Murmur3Hash128(42)), new DefaultKeyEncoder(), keys(1000).iterator(), 100_000);
+        return filter;
+    }
+
+    private static void assertSameAnswers(BloomFilter64<String> expected, MappedBloomFilter<String> actual) {
+        Assertions.assertTrue(keys(1000).stream().allMatch(actual::isKeyPresent));
+        Assertions.assertTrue(IntStream.range(0, 100_000).allMatch(i -> expected.isKeyPresent("absent" + i) == actual.isKeyPresent("absent" + i)));
+        Assertions.assertEquals(expected.getBitCount(), actual.getBitCount());
+    }
+
+    @Test
+    void write_WithSparseFilter_PicksCompressedEncodingSmallerThanRaw() {
+        final BloomFilter64<String> filter = sparseFilter();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Assertions.assertEquals(BloomWire.Encoding.GOLOMB_RICE, BloomWire.write(filter, output));
+        Assertions.assertTrue(output.size() * 4L < filter.getProperties().getBitmapSize() / 8, "bytes: " + output.size());
+        assertSameAnswers(filter, BloomWire.read(new ByteArrayInputStream(output.toByteArray()), new DefaultKeyEncoder()));
+    }
+
+    @Test
+    void write_WithFilterFilledAsSized_IsNotLargerThanRaw() {
+        final BloomFilter32<String> filter = new BloomFilter32<>();
+        filter.createCache(List.of(new Murmur3Hash128(42)), keys(10_000));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        BloomWire.write(filter, output);
+        Assertions.assertTrue(output.size() <= 64 + (filter.getProperties().getBitmapSize() + 63) / 64 * 8, "bytes: " + output.size());
+        final MappedBloomFilter<String> read = BloomWire.read(new ByteArrayInputStream(output.toByteArray()), new DefaultKeyEncoder());
+        Assertions.assertTrue(keys(10_000).stream().allMatch(read::isKeyPresent));
+        Assertions.assertEquals(filter.getBitCount(), read.getBitCount());
+    }
+
+    @Test
+    void write_WithOverfilledFilter_PicksRaw() {
+        final BloomFilter64<String> filter = new BloomFilter64<>();
+        filter.createCache(List.of(new Murmur3Hash128(42)), new DefaultKeyEncoder(), keys(3000).iterator(), 1000);
+        Assertions.assertEquals(BloomWire.Encoding.RAW, BloomWire.write(filter, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void read_WithEveryEncoding_RestoresSameBitmap() {
+        final BloomFilter64<String> filter = sparseFilter();
+        for (BloomWire.Encoding encoding : BloomWire.Encoding.values()) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            Assertions.assertEquals(encoding, BloomWire.write(filter, output, encoding));
+            assertSameAnswers(filter, BloomWire.read(new ByteArrayInputStream(output.toByteArray()), new DefaultKeyEncoder()));
+        }
+    }
+
+    @Test
+    void read_IntoArena_ReservesBitmapInArena() {
+        final BloomFilter64<String> filter = sparseFilter();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BloomWire.write(filter, output);
+        final FilterArena arena = new FilterArena(1 << 20);
+
+        final MappedBloomFilter<String> read = BloomWire.read(new ByteArrayInputStream(output.toByteArray()), new DefaultKeyEncoder(), arena);
+        assertSameAnswers(filter, read);
+        Assertions.assertEquals(OffHeapBitmap.byteSize(filter.getProperties().getBitmapSize()), arena.getUsedBytes());
+        arena.release((OffHeapBitmap) read.bitMap());
+        Assertions.assertEquals(0, arena.getUsedBytes());
+    }
+
+    @Test
+    void read_WithTruncatedStream_ThrowsInvalidSnapshotException() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BloomWire.write(sparseFilter(), output);
+        final byte[] truncated = Arrays.copyOf(output.toByteArray(), output.size() / 2);
+        Assertions.assertThrows(InvalidSnapshotException.class, () -> BloomWire.read(new ByteArrayInputStream(truncated), new DefaultKeyEncoder()));
+    }
+
+    @Test
+    void read_WithHeaderClaimingHugeBitmap_ThrowsInvalidSnapshotException() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BloomWire.write(sparseFilter(), output);
+        final byte[] corrupt = Arrays.copyOf(output.toByteArray(), 50);
+        ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putLong(24, 1L << 40);
+
+        Assertions.assertThrows(InvalidSnapshotException.class, () -> BloomWire.read(new ByteArrayInputStream(corrupt), new DefaultKeyEncoder()));
+    }
+
+    @Test
+    void read_WithBitmapLargerThanMaximum_ThrowsInvalidSnapshotException() {
+        final BloomFilter64<String> filter = sparseFilter();
+        final long bitmapSize = filter.getProperties().getBitmapSize();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BloomWire.write(filter, output);
+
+        Assertions.assertThrows(InvalidSnapshotException.class,
+                () -> BloomWire.read(new ByteArrayInputStream(output.toByteArray()), new DefaultKeyEncoder(), bitmapSize - 1));
+        assertSameAnswers(filter, BloomWire.read(new ByteArrayInputStream(output.toByteArray()), new DefaultKeyEncoder(), bitmapSize));
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+class ConcurrentBloomFilterTest {
+
+    @Test
+    void add_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new ConcurrentBloomFilter<String>(10).add("one"));
+    }
+
+    @Test
+    void add_WithNewKey_ReturnsTrueOnlyFirstTime() {
+        final ConcurrentBloomFilter<String> filter = createFilter(100);
+        Assertions.assertFalse(filter.isKeyPresent("one"));
+        Assertions.assertTrue(filter.add("one"));
+        Assertions.assertFalse(filter.add("one"));
+        Assertions.assertTrue(filter.isKeyPresent("one"));
+    }
+
+    @Test
+    void add_FromManyThreads_AllKeysPresentAndBitCountExact() throws Exception {
+        final int threads = 8;
+        final long keysPerThread = 50_000;
+        final ConcurrentBloomFilter<Long> filter = new ConcurrentBloomFilter<>(threads * keysPerThread);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), Collections.emptyList());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final long first = t * keysPerThread;
+                futures.add(executor.submit(() -> LongStream.range(first, first + keysPerThread).forEach(filter::add)));
+                futures.add(executor.submit(() -> LongStream.range(first, first + keysPerThread).forEach(filter::isKeyPresent)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertTrue(LongStream.range(0, threads * keysPerThread).allMatch(filter::isKeyPresent));
+        final long cardinality = filter.bitMap().cardinality();
+        Assertions.assertEquals(cardinality, filter.getBitCount());
+        Assertions.assertEquals(threads * keysPerThread, filter.getEstimatedElementCount(), threads * keysPerThread * 0.02);
+        Assertions.assertEquals(0.005, filter.getEstimatedCollisionProbability(), 0.001);
+    }
+
+    @Test
+    void getEstimatedCollisionProbability_AsFilterFills_Grows() {
+        final ConcurrentBloomFilter<Long> filter = new ConcurrentBloomFilter<>(10_000);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), Collections.emptyList());
+        Assertions.assertEquals(0D, filter.getEstimatedCollisionProbability());
+        LongStream.range(0, 5_000).forEach(filter::add);
+        final double halfFull = filter.getEstimatedCollisionProbability();
+        LongStream.range(5_000, 20_000).forEach(filter::add);
+        Assertions.assertTrue(halfFull < 0.005);
+        Assertions.assertTrue(filter.getEstimatedCollisionProbability() > 0.005);
+    }
+
+    private static ConcurrentBloomFilter<String> createFilter(long expectedInsertions) {
+        final ConcurrentBloomFilter<String> filter = new ConcurrentBloomFilter<>(expectedInsertions);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), Collections.emptyList());
+        return filter;
+    }
+}
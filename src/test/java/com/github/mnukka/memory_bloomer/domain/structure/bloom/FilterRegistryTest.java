@@ -0,0 +1,104 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.api.IMemoryCache;
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.FilterArena;
+import com.github.mnukka.memory_bloomer.domain.structure.bitmap.OffHeapBitmap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class FilterRegistryTest {
+    @TempDir
+    Path directory;
+
+    private static List<String> keys(String tenant) {
+        return IntStream.range(0, 1000).mapToObj(i -> tenant + i).collect(Collectors.toList());
+    }
+
+    @Test
+    void create_WithinBudget_AnswersLookupsFromArena() {
+        final FilterRegistry<String> registry = new FilterRegistry<>(new FilterArena(1 << 20), directory, new Murmur3Hash128(42), new DefaultKeyEncoder());
+        final IMemoryCache<String> cache = registry.create("customer", keys("customer"));
+
+        Assertions.assertTrue(keys("customer").stream().allMatch(cache::isKeyPresent));
+        Assertions.assertFalse(cache.isKeyPresent("other"));
+        Assertions.assertSame(cache, registry.get("customer"));
+        Assertions.assertTrue(registry.getArena().getUsedBytes() > 0);
+        Assertions.assertEquals(0, registry.getEvictionCount());
+    }
+
+    @Test
+    void isKeyPresent_WithFiltersOverBudget_EvictsColdFiltersAndLoadsThemBack() {
+        final long filterBytes = OffHeapBitmap.byteSize((long) BloomMath.optimalBits(BloomMath.optimalHashFunctionCount(0.005), 1000, 0.005));
+        final FilterRegistry<String> registry = new FilterRegistry<>(new FilterArena(filterBytes * 2), directory, new Murmur3Hash128(42), new DefaultKeyEncoder());
+        final List<String> names = List.of("a", "b", "c", "d");
+        names.forEach(name -> registry.create(name, keys(name)));
+
+        Assertions.assertEquals(2, registry.getResidentCount());
+        Assertions.assertEquals(2, registry.getEvictionCount());
+        for (int round = 0; round < 3; round++) {
+            for (String name : names) {
+                Assertions.assertTrue(keys(name).stream().allMatch(registry.get(name)::isKeyPresent), name);
+            }
+        }
+        Assertions.assertTrue(registry.getLoadCount() > 0);
+        Assertions.assertTrue(registry.getArena().getUsedBytes() <= filterBytes * 2);
+    }
+
+    @Test
+    @Timeout(10)
+    void create_WithRegistriesSharingArena_EvictsFilterOfOtherRegistry() {
+        final FilterArena arena = new FilterArena(40_000);
+        final FilterRegistry<String> first = new FilterRegistry<>(arena, directory, new Murmur3Hash128(42), new DefaultKeyEncoder());
+        final FilterRegistry<String> second = new FilterRegistry<>(arena, directory, new Murmur3Hash128(42), new DefaultKeyEncoder());
+        final List<String> a = IntStream.range(0, 20_000).mapToObj(i -> "a" + i).collect(Collectors.toList());
+        final List<String> b = IntStream.range(0, 20_000).mapToObj(i -> "b" + i).collect(Collectors.toList());
+        first.create("a", a);
+        second.create("b", b);
+
+        Assertions.assertEquals(1, first.getEvictionCount());
+        Assertions.assertEquals(0, first.getResidentCount());
+        Assertions.assertTrue(a.stream().allMatch(first.get("a")::isKeyPresent));
+        Assertions.assertEquals(1, second.getEvictionCount());
+        Assertions.assertTrue(arena.getUsedBytes() <= arena.getBudgetBytes());
+    }
+
+    @Test
+    @Timeout(10)
+    void create_WithArenaHeldByOtherBitmaps_ThrowsIllegalStateException() {
+        final long filterBytes = OffHeapBitmap.byteSize((long) BloomMath.optimalBits(BloomMath.optimalHashFunctionCount(0.005), 1000, 0.005));
+        final FilterArena arena = new FilterArena(filterBytes);
+        final FilterRegistry<String> registry = new FilterRegistry<>(arena, directory, new Murmur3Hash128(42), new DefaultKeyEncoder());
+        Assertions.assertNotNull(arena.allocate(8));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> registry.create("customer", keys("customer")));
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertEquals(OffHeapBitmap.byteSize(8), arena.getUsedBytes());
+    }
+
+    @Test
+    void create_LargerThanBudget_ThrowsIllegalArgumentException() {
+        final FilterRegistry<String> registry = new FilterRegistry<>(new FilterArena(64), directory, new Murmur3Hash128(42), new DefaultKeyEncoder());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.create("customer", keys("customer")));
+        Assertions.assertEquals(0, registry.size());
+    }
+
+    @Test
+    void remove_WithCreatedFilter_ReleasesMemoryAndInvalidatesCache() {
+        final FilterRegistry<String> registry = new FilterRegistry<>(new FilterArena(1 << 20), directory, new Murmur3Hash128(42), new DefaultKeyEncoder());
+        final IMemoryCache<String> cache = registry.create("customer", keys("customer"));
+
+        Assertions.assertTrue(registry.remove("customer"));
+        Assertions.assertNull(registry.get("customer"));
+        Assertions.assertEquals(0, registry.getArena().getUsedBytes());
+        Assertions.assertThrows(IllegalStateException.class, () -> cache.isKeyPresent("customer1"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+class IntBloomFilterTest {
+
+    @Test
+    void isKeyPresent_WithNullKey_ThrowsNullPointerException() {
+        final IntBloomFilter filter = new IntBloomFilter().createCache(new int[]{1});
+        Assertions.assertThrows(NullPointerException.class, () -> filter.isKeyPresent((Integer) null));
+    }
+
+    @Test
+    void isKeyPresent_WithKeysFromCreateAndAdd_FindsAll() {
+        final int[] keys = IntStream.range(0, 100_000).toArray();
+        final IntBloomFilter filter = new IntBloomFilter(200_000).createCache(keys);
+        IntStream.range(-100_000, 0).forEach(filter::add);
+
+        Assertions.assertTrue(IntStream.range(-100_000, 100_000).allMatch(filter::isKeyPresent));
+        final long falsePositives = IntStream.range(100_000, 300_000).filter(filter::isKeyPresent).count();
+        Assertions.assertTrue(falsePositives < 200_000 * 0.007, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void isKeysPresent_WithMixedKeys_MatchesSingleLookups() {
+        final int[] keys = IntStream.range(-5_000, 5_000).map(i -> i * 31).toArray();
+        final IntBloomFilter filter = new IntBloomFilter().createCache(Arrays.copyOf(keys, 5_000));
+
+        final boolean[] result = new boolean[keys.length];
+        filter.isKeysPresent(keys, result);
+        for (int i = 0; i < keys.length; i++) {
+            Assertions.assertEquals(filter.isKeyPresent(keys[i]), result[i]);
+        }
+    }
+}
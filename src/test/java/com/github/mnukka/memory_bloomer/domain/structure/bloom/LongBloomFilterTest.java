@@ -0,0 +1,64 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+class LongBloomFilterTest {
+
+    @Test
+    void isKeyPresent_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new LongBloomFilter().isKeyPresent(1L));
+    }
+
+    @Test
+    void createCache_CalledTwice_ThrowsIllegalStateException() {
+        final LongBloomFilter filter = new LongBloomFilter().createCache(new long[]{1});
+        Assertions.assertThrows(IllegalStateException.class, () -> filter.createCache(new long[]{2}));
+    }
+
+    @Test
+    void isKeyPresent_WithMillionKeys_FindsAllAndKeepsCollisionProbability() {
+        final long[] keys = LongStream.range(0, 1_000_000).map(i -> i * 7919).toArray();
+        final LongBloomFilter filter = new LongBloomFilter().createCache(keys);
+
+        Assertions.assertTrue(LongStream.of(keys).allMatch(filter::isKeyPresent));
+        final long falsePositives = LongStream.range(0, 1_000_000).map(i -> i * 7919 + 1).filter(filter::isKeyPresent).count();
+        Assertions.assertEquals(0.005, falsePositives / 1_000_000d, 0.001);
+        Assertions.assertEquals(keys.length, filter.getEstimatedElementCount(), keys.length * 0.02);
+    }
+
+    @Test
+    void add_WithNewKey_ReturnsTrueOnlyFirstTime() {
+        final LongBloomFilter filter = new LongBloomFilter(100).createCache(new long[0]);
+        Assertions.assertFalse(filter.isKeyPresent(Long.MIN_VALUE));
+        Assertions.assertTrue(filter.add(Long.MIN_VALUE));
+        Assertions.assertFalse(filter.add(Long.valueOf(Long.MIN_VALUE)));
+        Assertions.assertTrue(filter.isKeyPresent(Long.valueOf(Long.MIN_VALUE)));
+    }
+
+    @Test
+    void isKeyPresent_FiltersWithSameSeed_SetSameBits() {
+        final long[] keys = LongStream.range(0, 1000).toArray();
+        final LongBloomFilter first = new LongBloomFilter(1000, 0.01, 0, 42).createCache(keys);
+        final LongBloomFilter second = new LongBloomFilter(1000, 0.01, 0, 42).createCache(keys);
+
+        Assertions.assertEquals(first.getBitCount(), second.getBitCount());
+        Assertions.assertTrue(LongStream.range(1000, 100_000).allMatch(key -> first.isKeyPresent(key) == second.isKeyPresent(key)));
+    }
+
+    @Test
+    void isKeysPresent_WithMixedKeys_MatchesSingleLookups() {
+        final long[] keys = new SplittableRandom(3).longs(10_000).toArray();
+        final LongBloomFilter filter = new LongBloomFilter().createCache(Arrays.copyOf(keys, 5_000));
+
+        final boolean[] result = filter.isKeysPresent(keys);
+        for (int i = 0; i < keys.length; i++) {
+            Assertions.assertEquals(filter.isKeyPresent(keys[i]), result[i]);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> filter.isKeysPresent(keys, new boolean[1]));
+    }
+}
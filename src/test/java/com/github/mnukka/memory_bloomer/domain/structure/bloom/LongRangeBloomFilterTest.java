@@ -0,0 +1,52 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+class LongRangeBloomFilterTest {
+
+    @Test
+    void mayContainRange_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new LongRangeBloomFilter(10, 8).mayContainRange(0, 10));
+    }
+
+    @Test
+    void mayContainRange_WithRangesAroundKeys_FindsEveryRangeHoldingKey() {
+        final long[] keys = LongStream.range(-500, 500).map(i -> i * 1000 + 7).toArray();
+        final LongRangeBloomFilter filter = new LongRangeBloomFilter(keys.length, 10, 0.001).createCache(keys);
+
+        for (long key : keys) {
+            Assertions.assertTrue(filter.isKeyPresent(key));
+            Assertions.assertTrue(filter.mayContainRange(key, key));
+            Assertions.assertTrue(filter.mayContainRange(key - 300, key + 300));
+            Assertions.assertTrue(filter.mayContainRange(key - 1, key));
+        }
+        final long falsePositives = LongStream.range(-500, 500).filter(i -> filter.mayContainRange(i * 1000 + 100, i * 1000 + 900)).count();
+        Assertions.assertTrue(falsePositives < 1000 * 20 * 0.001, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void isKeyPresent_KeyXorLevelSalt_IsNotReported() {
+        final long salt = 0xD6E8FEB86659FD93L;
+        final long[] keys = LongStream.range(0, 200).map(i -> i * 2).toArray();
+        final LongRangeBloomFilter filter = new LongRangeBloomFilter(keys.length, 8, 0.001).createCache(keys);
+
+        final long aliases = LongStream.of(keys).filter(key -> filter.isKeyPresent(key ^ salt)).count();
+        Assertions.assertTrue(aliases <= 2, "aliases reported: " + aliases);
+    }
+
+    @Test
+    void mayContainRange_WithRangeWiderThanLevels_ReturnsTrue() {
+        final LongRangeBloomFilter filter = new LongRangeBloomFilter(10, 4).createCache(new long[]{1});
+        Assertions.assertTrue(filter.mayContainRange(Long.MIN_VALUE, Long.MAX_VALUE));
+        Assertions.assertFalse(filter.mayContainRange(100, 110));
+    }
+
+    @Test
+    void mayContainRange_WithReversedRange_ThrowsIllegalArgumentException() {
+        final LongRangeBloomFilter filter = new LongRangeBloomFilter(10, 4).createCache(new long[]{1});
+        Assertions.assertThrows(IllegalArgumentException.class, () -> filter.mayContainRange(2, 1));
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.structure.IKeySource;
+import com.github.mnukka.memory_bloomer.domain.structure.exception.InvalidSnapshotException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+class PartitionedBloomFilterTest {
+    @TempDir
+    Path directory;
+
+    private static IKeySource<String> source(List<String> keys) {
+        return new IKeySource<>() {
+            @Override
+            public long size() {
+                return keys.size();
+            }
+
+            @Override
+            public void forEach(Consumer<? super String> action) {
+                keys.forEach(action);
+            }
+
+            @Override
+            public void forEach(ForkJoinPool pool, Consumer<? super String> action) {
+                keys.forEach(action);
+            }
+        };
+    }
+
+    private static List<String> keys(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + i).collect(Collectors.toList());
+    }
+
+    @Test
+    void isKeyPresent_BuiltInManyGroups_FindsAllKeysAndKeepsCollisionProbability() {
+        final Path path = directory.resolve("filter.mblp");
+        final List<String> keys = keys("key", 100_000);
+        PartitionedBloomFilter.write(path, new Murmur3Hash128(42), new DefaultKeyEncoder(), source(keys), 16, 0.005, 16 << 10);
+
+        try (PartitionedBloomFilter<String> filter = PartitionedBloomFilter.open(path, new DefaultKeyEncoder(), 4)) {
+            Assertions.assertTrue(keys.stream().allMatch(filter::isKeyPresent));
+            final long falsePositives = keys("other", 100_000).stream().filter(filter::isKeyPresent).count();
+            Assertions.assertEquals(0.005, falsePositives / 100_000d, 0.002);
+            Assertions.assertEquals(0.005, filter.getEstimatedCollisionProbability(), 0.001);
+            Assertions.assertEquals(16, filter.getPartitionCount());
+        }
+    }
+
+    @Test
+    void isKeyPresent_WithColdPartitions_ReadsAtMostOnePagePerLookup() {
+        final Path path = directory.resolve("filter.mblp");
+        final List<String> keys = keys("key", 10_000);
+        PartitionedBloomFilter.write(path, new Murmur3Hash128(42), new DefaultKeyEncoder(), source(keys), 32);
+
+        try (PartitionedBloomFilter<String> filter = PartitionedBloomFilter.open(path, new DefaultKeyEncoder(), 2)) {
+            for (String key : keys.subList(0, 1000)) {
+                final long reads = filter.getPageReadCount();
+                Assertions.assertTrue(filter.isKeyPresent(key));
+                Assertions.assertTrue(filter.getPageReadCount() - reads <= 1);
+                Assertions.assertTrue(filter.getCachedPartitionCount() <= 2);
+            }
+            Assertions.assertTrue(filter.getPageReadCount() > 32);
+
+            final long reads = filter.getPageReadCount();
+            Assertions.assertTrue(filter.isKeyPresent(keys.get(999)));
+            Assertions.assertEquals(reads, filter.getPageReadCount());
+        }
+    }
+
+    @Test
+    void write_WhenKeySourceFails_DeletesTemporaryFile() throws IOException {
+        final Path path = directory.resolve("filter.mblp");
+        final List<String> keys = keys("key", 1000);
+        final IKeySource<String> failing = new IKeySource<>() {
+            private int passes;
+
+            @Override
+            public long size() {
+                return keys.size();
+            }
+
+            @Override
+            public void forEach(Consumer<? super String> action) {
+                if (passes++ > 0) {
+                    throw new IllegalStateException("source is gone");
+                }
+                keys.forEach(action);
+            }
+
+            @Override
+            public void forEach(ForkJoinPool pool, Consumer<? super String> action) {
+                forEach(action);
+            }
+        };
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> PartitionedBloomFilter.write(path, new Murmur3Hash128(42), new DefaultKeyEncoder(), failing, 4));
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void open_WithTruncatedFile_ThrowsInvalidSnapshotException() throws IOException {
+        final Path path = directory.resolve("filter.mblp");
+        PartitionedBloomFilter.write(path, new Murmur3Hash128(42), new DefaultKeyEncoder(), source(keys("key", 10_000)), 4);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+
+        Assertions.assertThrows(InvalidSnapshotException.class, () -> PartitionedBloomFilter.open(path, new DefaultKeyEncoder(), 1));
+    }
+}
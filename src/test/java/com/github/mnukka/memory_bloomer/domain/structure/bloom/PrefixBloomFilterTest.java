@@ -0,0 +1,58 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.DefaultKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class PrefixBloomFilterTest {
+
+    private static String tenant(String key) {
+        final int separator = key.indexOf('/');
+        return separator < 0 ? null : key.substring(0, separator);
+    }
+
+    @Test
+    void isPrefixPresent_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new PrefixBloomFilter<String, String>(PrefixBloomFilterTest::tenant).isPrefixPresent("a"));
+    }
+
+    @Test
+    void createCache_CalledTwice_ThrowsIllegalStateException() {
+        final PrefixBloomFilter<String, String> filter = new PrefixBloomFilter<>(PrefixBloomFilterTest::tenant);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), new DefaultKeyEncoder(), List.of("tenant/order"));
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), new DefaultKeyEncoder(), List.of("other/order")));
+        Assertions.assertTrue(filter.isKeyPresent("tenant/order"));
+        Assertions.assertTrue(filter.isPrefixPresent("tenant"));
+    }
+
+    @Test
+    void isPrefixPresent_WithCompositeKeys_FindsPrefixesAndKeys() {
+        final List<String> keys = IntStream.range(0, 10_000).mapToObj(i -> "tenant" + (i % 100) + "/order" + i).collect(Collectors.toList());
+        final PrefixBloomFilter<String, String> filter = new PrefixBloomFilter<>(PrefixBloomFilterTest::tenant);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), new DefaultKeyEncoder(), keys);
+
+        Assertions.assertTrue(keys.stream().allMatch(filter::isKeyPresent));
+        Assertions.assertTrue(IntStream.range(0, 100).allMatch(i -> filter.isPrefixPresent("tenant" + i)));
+        final long falsePositives = IntStream.range(100, 10_100).filter(i -> filter.isPrefixPresent("tenant" + i)).count();
+        Assertions.assertTrue(falsePositives < 10_000 * 0.005 * 1.5, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void isKeyPresent_WithKeyEqualToPrefix_DoesNotMatchPrefix() {
+        final PrefixBloomFilter<String, String> filter = new PrefixBloomFilter<>(PrefixBloomFilterTest::tenant);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), new DefaultKeyEncoder(), List.of("tenant/order", "single"));
+
+        Assertions.assertTrue(filter.isPrefixPresent("tenant"));
+        Assertions.assertFalse(filter.isKeyPresent("tenant"));
+        Assertions.assertTrue(filter.isKeyPresent("single"));
+        Assertions.assertFalse(filter.isPrefixPresent("single"));
+    }
+}
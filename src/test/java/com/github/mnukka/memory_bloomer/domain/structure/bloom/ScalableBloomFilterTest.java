@@ -0,0 +1,44 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void add_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new ScalableBloomFilter<String>().add("one"));
+    }
+
+    @Test
+    void createCache_FromStreamFarLargerThanFirstStage_GrowsAndKeepsCollisionProbability() {
+        final ScalableBloomFilter<String> filter = new ScalableBloomFilter<>(1000, 0.01);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), IntStream.range(0, 200_000).mapToObj(i -> "key" + i));
+
+        Assertions.assertTrue(filter.getStageCount() >= 7, "stages: " + filter.getStageCount());
+        Assertions.assertTrue(IntStream.range(0, 200_000).allMatch(i -> filter.isKeyPresent("key" + i)));
+        final long falsePositives = IntStream.range(0, 200_000).filter(i -> filter.isKeyPresent("absent" + i)).count();
+        Assertions.assertTrue(falsePositives < 200_000 * 0.01 * 1.2, "false positives: " + falsePositives);
+        Assertions.assertTrue(filter.getEstimatedCollisionProbability() < 0.01 * 1.2);
+        Assertions.assertTrue(filter.getKeyCount() > 200_000 * 0.98 && filter.getKeyCount() <= 200_000);
+    }
+
+    @Test
+    void add_WithNewKey_ReturnsTrueOnlyFirstTime() {
+        final ScalableBloomFilter<String> filter = new ScalableBloomFilter<>(2, 0.01);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), Collections.emptyList());
+        Assertions.assertEquals(1, filter.getStageCount());
+
+        Assertions.assertTrue(filter.add("one"));
+        Assertions.assertFalse(filter.add("one"));
+        Assertions.assertTrue(filter.add("two"));
+        Assertions.assertTrue(filter.add("three"));
+        Assertions.assertEquals(2, filter.getStageCount());
+        Assertions.assertTrue(filter.isKeyPresent("one"));
+        Assertions.assertTrue(filter.isKeyPresent("three"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.mnukka.memory_bloomer.domain.structure.bloom;
+
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class SlidingWindowBloomFilterTest {
+
+    @Test
+    void rotate_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new SlidingWindowBloomFilter<String>(10, 3).rotate());
+    }
+
+    @Test
+    void rotate_AfterAllGenerations_ForgetsKeys() {
+        final SlidingWindowBloomFilter<String> filter = new SlidingWindowBloomFilter<>(1000, 3);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), List.of("one"));
+
+        filter.rotate();
+        filter.rotate();
+        Assertions.assertTrue(filter.isKeyPresent("one"));
+        filter.rotate();
+        Assertions.assertFalse(filter.isKeyPresent("one"));
+        Assertions.assertEquals(0, filter.getBitCount());
+    }
+
+    @Test
+    void add_WithKeySeenInWindow_ReturnsFalseAndRenewsKey() {
+        final SlidingWindowBloomFilter<String> filter = new SlidingWindowBloomFilter<>(1000, 2);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), Collections.emptyList());
+
+        Assertions.assertTrue(filter.add("one"));
+        Assertions.assertFalse(filter.add("one"));
+        filter.rotate();
+        Assertions.assertFalse(filter.add("one"));
+        filter.rotate();
+        Assertions.assertTrue(filter.isKeyPresent("one"));
+        filter.rotate();
+        Assertions.assertTrue(filter.add("one"));
+    }
+
+    @Test
+    void isKeyPresent_OverManyRotations_KeepsCollisionProbability() {
+        final SlidingWindowBloomFilter<String> filter = new SlidingWindowBloomFilter<>(10_000, 4, 0.01);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), Collections.emptyList());
+
+        for (int period = 0; period < 10; period++) {
+            final int base = period * 10_000;
+            IntStream.range(base, base + 10_000).forEach(i -> filter.add("key" + i));
+            filter.rotate();
+        }
+        final long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.isKeyPresent("absent" + i)).count();
+        Assertions.assertTrue(falsePositives < 100_000 * 0.01 * 1.2, "false positives: " + falsePositives);
+        Assertions.assertTrue(IntStream.range(70_000, 100_000).allMatch(i -> filter.isKeyPresent("key" + i)));
+    }
+
+    @Test
+    void isKeyPresent_WhileRotating_DoesNotLoseKeysOfNewestGenerations() throws InterruptedException {
+        final SlidingWindowBloomFilter<String> filter = new SlidingWindowBloomFilter<>(100_000, 3);
+        final List<String> keys = IntStream.range(0, 1000).mapToObj(i -> "key" + i).collect(Collectors.toList());
+        filter.createCache(Collections.singletonList(new Murmur3Hash128(42)), keys);
+        filter.rotate();
+
+        final AtomicBoolean missed = new AtomicBoolean();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread reader = new Thread(() -> {
+            while (running.get()) {
+                if (!keys.stream().allMatch(filter::isKeyPresent)) {
+                    missed.set(true);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 200; i++) {
+            // Keys are renewed into the newest generation before the rotation, so they are always within the window
+            filter.addAll(keys);
+            filter.rotate();
+        }
+        running.set(false);
+        reader.join();
+        Assertions.assertFalse(missed.get());
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.mnukka.memory_bloomer.domain.structure.cuckoo;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.LongStream;
+
+class CuckooFilterTest {
+
+    @Test
+    void createCache_WithLegacyHashFunction_ThrowsIllegalArgumentException() {
+        final CuckooFilter<String> filter = new CuckooFilter<>(10);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> filter.createCache(Collections.singletonList(new MurmurHash()), Arrays.asList("one", "two")));
+    }
+
+    @Test
+    void add_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new CuckooFilter<String>(10).add("one"));
+    }
+
+    @Test
+    void remove_WithAddedKey_KeyIsNoLongerPresent() {
+        final CuckooFilter<String> filter = new CuckooFilter<>(10);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), Arrays.asList("one", "two"));
+        Assertions.assertTrue(filter.remove("one"));
+        Assertions.assertFalse(filter.isKeyPresent("one"));
+        Assertions.assertTrue(filter.isKeyPresent("two"));
+        Assertions.assertFalse(filter.remove("one"));
+        Assertions.assertEquals(1, filter.getSize());
+    }
+
+    @Test
+    void isKeyPresent_AfterRemovingHalfOfMillionLongs_MatchesRestAndFewFalsePositives() {
+        final CuckooFilter<Long> filter = new CuckooFilter<>(1_000_000);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), Collections.emptyList());
+        Assertions.assertTrue(LongStream.range(0, 1_000_000).allMatch(filter::add));
+        Assertions.assertTrue(LongStream.range(0, 500_000).allMatch(filter::remove));
+
+        Assertions.assertTrue(LongStream.range(500_000, 1_000_000).allMatch(filter::isKeyPresent));
+        final long falsePositives = LongStream.range(0, 500_000).filter(filter::isKeyPresent).count()
+                + LongStream.range(1_000_000, 1_500_000).filter(filter::isKeyPresent).count();
+        Assertions.assertTrue(falsePositives / 1_000_000D <= 0.0005D);
+    }
+
+    @Test
+    void add_PastCapacity_EventuallyFailsWithoutLosingStoredKeys() {
+        final CuckooFilter<Long> filter = new CuckooFilter<>(1_000);
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), Collections.emptyList());
+        long stored = 0;
+        while (filter.add(stored)) {
+            stored++;
+        }
+        Assertions.assertTrue(stored >= 1_000);
+        Assertions.assertTrue(LongStream.range(0, stored).allMatch(filter::isKeyPresent));
+
+        Assertions.assertTrue(LongStream.range(0, stored / 2).allMatch(filter::remove));
+        Assertions.assertTrue(filter.add(stored));
+        Assertions.assertTrue(LongStream.range(stored / 2, stored + 1).allMatch(filter::isKeyPresent));
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.mnukka.memory_bloomer.domain.structure.fuse;
+
+import com.github.mnukka.memory_bloomer.domain.encoder.LongKeyEncoder;
+import com.github.mnukka.memory_bloomer.domain.hash.Murmur3Hash128;
+import com.github.mnukka.memory_bloomer.domain.hash.MurmurHash;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+class BinaryFuseFilterTest {
+
+    @Test
+    void createCache_WithLegacyHashFunction_ThrowsIllegalArgumentException() {
+        final BinaryFuseFilter<String> filter = new BinaryFuseFilter<>();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> filter.createCache(Collections.singletonList(new MurmurHash()), Arrays.asList("one", "two")));
+    }
+
+    @Test
+    void createCache_WithEmptyList_ThrowsIllegalArgumentException() {
+        final BinaryFuseFilter<String> filter = new BinaryFuseFilter<>();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> filter.createCache(Collections.singletonList(new Murmur3Hash128()), Collections.emptyList()));
+    }
+
+    @Test
+    void isKeyPresent_WithClassNotFullyConstructed_ThrowsIllegalStateException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new BinaryFuseFilter<String>().isKeyPresent("one"));
+    }
+
+    @Test
+    void isKeyPresent_WithOneItemAndDuplicates_Match() {
+        final BinaryFuseFilter<String> single = new BinaryFuseFilter<>();
+        single.createCache(Collections.singletonList(new Murmur3Hash128()), Collections.singletonList("one"));
+        Assertions.assertTrue(single.isKeyPresent("one"));
+
+        final BinaryFuseFilter<String> duplicates = new BinaryFuseFilter<>();
+        duplicates.createCache(Collections.singletonList(new Murmur3Hash128()), Arrays.asList("one", "two", "one", "three", "two"));
+        Assertions.assertTrue(duplicates.isKeyPresent("one"));
+        Assertions.assertTrue(duplicates.isKeyPresent("two"));
+        Assertions.assertTrue(duplicates.isKeyPresent("three"));
+    }
+
+    @Test
+    void isKeyPresent_WithMillionLongs_AllMatchAndFewFalsePositivesInLessSpace() {
+        final List<Long> keys = LongStream.range(0, 1_000_000).boxed().collect(Collectors.toList());
+        final BinaryFuseFilter<Long> filter = new BinaryFuseFilter<>();
+        filter.createCache(Collections.singletonList(new Murmur3Hash128()), new LongKeyEncoder(), keys);
+        Assertions.assertTrue(keys.stream().allMatch(filter::isKeyPresent));
+
+        final long falsePositives = LongStream.range(1_000_000, 1_200_000).filter(filter::isKeyPresent).count();
+        Assertions.assertTrue(falsePositives / 200_000D <= 0.005D);
+        Assertions.assertTrue(filter.getProperties().getBitmapSize() / 1_000_000D < 9.2D);
+    }
+}